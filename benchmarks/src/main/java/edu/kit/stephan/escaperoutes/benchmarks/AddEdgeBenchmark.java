@@ -0,0 +1,85 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+import edu.kit.stephan.escaperoutes.graphs.Edge;
+import edu.kit.stephan.escaperoutes.graphs.EscapeNetwork;
+import edu.kit.stephan.escaperoutes.graphs.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the insertion of new sections into an existent EscapeNetwork. Every insertion adds a new
+ * Vertex in front of the previous start point, so it checks and commits a tentative change which grows the Graph.
+ * The network is built again before every invocation, so every invocation inserts into the generated network.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see EscapeNetwork
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddEdgeBenchmark {
+    private static final int INSERTIONS = 256;
+    private static final int CAPACITY = 1;
+    private Edge[] insertedEdges;
+    private EscapeNetwork escapeNetwork;
+
+    /**
+     * Creates the inserted sections, which lead from new Vertices to the start point
+     *
+     * @param networkState the generated network
+     */
+    @Setup(Level.Trial)
+    public void createEdges(NetworkState networkState) {
+        NetworkGenerator networkGenerator = networkState.getNetworkGenerator();
+        insertedEdges = new Edge[INSERTIONS];
+        Vertex previousStart = networkGenerator.getSource();
+        for (int i = 0; i < INSERTIONS; i++) {
+            Vertex newStart = new Vertex(NetworkGenerator.nameVertex(networkGenerator.getNumberOfVertices() + i));
+            insertedEdges[i] = new Edge(newStart, previousStart, CAPACITY);
+            previousStart = newStart;
+        }
+    }
+
+    /**
+     * Builds the generated network, which is not measured
+     *
+     * @param networkState the generated network
+     * @throws SemanticsException if the network is invalid
+     */
+    @Setup(Level.Invocation)
+    public void buildNetwork(NetworkState networkState) throws SemanticsException {
+        escapeNetwork = new EscapeNetwork(NetworkState.IDENTIFIER, networkState.getNetworkGenerator().getEdges());
+    }
+
+    /**
+     * Inserts the new sections
+     *
+     * @return the number of Vertices after the insertions
+     * @throws SemanticsException if a section can't be inserted
+     */
+    @Benchmark
+    @OperationsPerInvocation(INSERTIONS)
+    public int addEdge() throws SemanticsException {
+        for (Edge edge : insertedEdges) {
+            escapeNetwork.addEdge(edge, false);
+        }
+        return escapeNetwork.getNumberOfVertices();
+    }
+}
@@ -0,0 +1,38 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the JMH benchmarks with the GC profiler, so the allocation rate per operation is reported next
+ * to the time per operation. Every option of JMH can be given, for example "-p shape=grid -p size=1000" to select
+ * the networks or a regular expression to select the benchmarks.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Utility class constructor
+     */
+    private BenchmarkRunner() {
+        throw new IllegalStateException("Utility-class constructor.");
+    }
+
+    /**
+     * EntryPoint of the benchmarks
+     *
+     * @param args the options of JMH
+     * @throws CommandLineOptionException if an option is invalid
+     * @throws RunnerException            if a benchmark failed
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build())
+                .run();
+    }
+}
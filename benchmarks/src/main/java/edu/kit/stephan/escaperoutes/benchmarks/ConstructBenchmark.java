@@ -0,0 +1,40 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+import edu.kit.stephan.escaperoutes.graphs.EscapeNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the construction of an EscapeNetwork out of all sections of a generated network
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see EscapeNetwork
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructBenchmark {
+
+    /**
+     * Constructs the EscapeNetwork
+     *
+     * @param networkState the generated network
+     * @return the constructed EscapeNetwork
+     * @throws SemanticsException if the network is invalid
+     */
+    @Benchmark
+    public EscapeNetwork construct(NetworkState networkState) throws SemanticsException {
+        return new EscapeNetwork(NetworkState.IDENTIFIER, networkState.getNetworkGenerator().getEdges());
+    }
+}
@@ -0,0 +1,116 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+import edu.kit.stephan.escaperoutes.graphs.EscapeNetwork;
+import edu.kit.stephan.escaperoutes.graphs.EscapeNetworkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the flow from the start to the end point of a generated network, once with a new database
+ * in which nothing is cached and once with a database in which the flow was calculated before
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see EscapeNetworkDatabase
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowBenchmark {
+
+    /**
+     * Calculates the flow in a new database
+     *
+     * @param coldDatabase the new database
+     * @param networkState the generated network
+     * @return the flow
+     * @throws SemanticsException if the flow can't be calculated
+     */
+    @Benchmark
+    public String flowCold(ColdDatabase coldDatabase, NetworkState networkState) throws SemanticsException {
+        return coldDatabase.escapeNetworkDatabase.calculateOrGetFlow(NetworkState.IDENTIFIER,
+                networkState.getNetworkGenerator().getSource(), networkState.getNetworkGenerator().getSink());
+    }
+
+    /**
+     * Gets the flow which was calculated before
+     *
+     * @param warmDatabase the database with the calculated flow
+     * @param networkState the generated network
+     * @return the flow
+     * @throws SemanticsException if the flow can't be calculated
+     */
+    @Benchmark
+    public String flowWarm(WarmDatabase warmDatabase, NetworkState networkState) throws SemanticsException {
+        return warmDatabase.escapeNetworkDatabase.calculateOrGetFlow(NetworkState.IDENTIFIER,
+                networkState.getNetworkGenerator().getSource(), networkState.getNetworkGenerator().getSink());
+    }
+
+    /**
+     * Creates a database with the generated network
+     *
+     * @param networkState the generated network
+     * @return the database
+     * @throws SemanticsException if the network is invalid
+     */
+    private static EscapeNetworkDatabase createDatabase(NetworkState networkState) throws SemanticsException {
+        EscapeNetworkDatabase escapeNetworkDatabase = new EscapeNetworkDatabase();
+        escapeNetworkDatabase.addNewEscapeNetwork(new EscapeNetwork(NetworkState.IDENTIFIER,
+                networkState.getNetworkGenerator().getEdges()));
+        return escapeNetworkDatabase;
+    }
+
+    /**
+     * This class describes a database which is created again before every invocation, so nothing is cached
+     */
+    @State(Scope.Thread)
+    public static class ColdDatabase {
+        private EscapeNetworkDatabase escapeNetworkDatabase;
+
+        /**
+         * Creates the database, which is not measured
+         *
+         * @param networkState the generated network
+         * @throws SemanticsException if the network is invalid
+         */
+        @Setup(Level.Invocation)
+        public void create(NetworkState networkState) throws SemanticsException {
+            escapeNetworkDatabase = createDatabase(networkState);
+        }
+    }
+
+    /**
+     * This class describes a database in which the flow was calculated before the trial
+     */
+    @State(Scope.Thread)
+    public static class WarmDatabase {
+        private EscapeNetworkDatabase escapeNetworkDatabase;
+
+        /**
+         * Creates the database and calculates the flow
+         *
+         * @param networkState the generated network
+         * @throws SemanticsException if the flow can't be calculated
+         */
+        @Setup(Level.Trial)
+        public void create(NetworkState networkState) throws SemanticsException {
+            escapeNetworkDatabase = createDatabase(networkState);
+            escapeNetworkDatabase.calculateOrGetFlow(NetworkState.IDENTIFIER,
+                    networkState.getNetworkGenerator().getSource(), networkState.getNetworkGenerator().getSink());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * This class describes the generated network of a benchmark trial. Every benchmark runs on every shape and size,
+ * the network is generated before the trial and is never changed by a benchmark.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see NetworkGenerator
+ */
+@State(Scope.Benchmark)
+public class NetworkState {
+    /**
+     * The identifier of the benchmarked EscapeNetworks
+     */
+    static final String IDENTIFIER = "BENCH";
+    private static final long SEED = 42;
+
+    /**
+     * The name of the shape of the network
+     */
+    @Param({"layered", "grid", "sparse", "dense"})
+    public String shape;
+
+    /**
+     * The number of Vertices of the network
+     */
+    @Param({"1000", "10000"})
+    public int size;
+
+    private NetworkGenerator networkGenerator;
+
+    /**
+     * Generates the network
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        NetworkShape networkShape = NetworkShape.getNetworkShape(shape);
+        if (networkShape == null) throw new IllegalArgumentException(shape);
+        networkGenerator = new NetworkGenerator(networkShape, size, SEED);
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the generated network
+     */
+    NetworkGenerator getNetworkGenerator() {
+        return networkGenerator;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.stephan.escaperoutes.commands.CommandParser;
+import edu.kit.stephan.escaperoutes.errors.SyntaxException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the parser with the add Command of a whole generated network
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see CommandParser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private String command;
+
+    /**
+     * Creates the add Command of the network
+     *
+     * @param networkState the generated network
+     */
+    @Setup(Level.Trial)
+    public void createCommand(NetworkState networkState) {
+        command = networkState.getNetworkGenerator().toAddCommand(NetworkState.IDENTIFIER);
+    }
+
+    /**
+     * Parses the add Command
+     *
+     * @return the number of parsed sections
+     * @throws SyntaxException if the Command is invalid
+     */
+    @Benchmark
+    public int parse() throws SyntaxException {
+        return new CommandParser().parseCommand(command).getSecondElement().getEdges().size();
+    }
+}
@@ -0,0 +1,61 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+import edu.kit.stephan.escaperoutes.graphs.Edge;
+import edu.kit.stephan.escaperoutes.graphs.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the validation of the Graph of a whole generated network
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see Graph
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidateBenchmark {
+    private Graph graph;
+
+    /**
+     * Builds the Graph
+     *
+     * @param networkState the generated network
+     * @throws SemanticsException if a section is invalid
+     */
+    @Setup(Level.Trial)
+    public void buildGraph(NetworkState networkState) throws SemanticsException {
+        graph = new Graph();
+        for (Edge edge : networkState.getNetworkGenerator().getEdges()) {
+            graph.addEdge(edge.getFromVertex(), edge.getToVertex(), edge.getCapacityFlow());
+        }
+    }
+
+    /**
+     * Checks if the Graph is valid
+     *
+     * @return the number of Vertices
+     * @throws SemanticsException if the Graph is invalid
+     */
+    @Benchmark
+    public int validate() throws SemanticsException {
+        graph.checkIfGraphIsValid();
+        return graph.getNumberOfVertices();
+    }
+}
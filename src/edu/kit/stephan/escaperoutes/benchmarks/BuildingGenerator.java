@@ -0,0 +1,191 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.stephan.escaperoutes.graphs.Edge;
+import edu.kit.stephan.escaperoutes.graphs.Vertex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates the escape network of a building with several floors. Every floor is a grid of corridors,
+ * which lead to the nearest stairwell and along the stairwell to the front row. A stairwell connects the front
+ * of its column to the same place on the floor below through a single section of low capacity, so the stairwells
+ * are the bottlenecks. The front row of the ground floor has an exit at every column. Every corridor is entered
+ * from a room, so the rooms are the start points and the exits are the end points.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see NetworkGenerator
+ */
+public final class BuildingGenerator {
+    private static final int MINIMUM_CORRIDOR_CAPACITY = 20;
+    private static final int MINIMUM_STAIRWELL_CAPACITY = 5;
+    private static final int MINIMUM_ROOM_CAPACITY = 2;
+    private static final int EXIT_CAPACITY = 30;
+    private static final int CAPACITY_RANGE = 10;
+    private final int rows;
+    private final int columns;
+    private final Random random;
+    private final Vertex[] corridors;
+    private final List<Edge> edges;
+    private final List<Vertex> rooms;
+    private final List<Vertex> exits;
+    private int numberOfVertices;
+
+    /**
+     * Constructor
+     *
+     * @param floors           the number of floors
+     * @param rows             the number of rows of corridors on a floor
+     * @param columns          the number of columns of corridors on a floor
+     * @param stairwellSpacing the number of columns between two stairwells
+     * @param random           the random source of the capacities and of added rooms
+     */
+    public BuildingGenerator(int floors, int rows, int columns, int stairwellSpacing, Random random) {
+        this.rows = rows;
+        this.columns = columns;
+        this.random = random;
+        this.corridors = new Vertex[floors * rows * columns];
+        this.edges = new ArrayList<>();
+        this.rooms = new ArrayList<>();
+        this.exits = new ArrayList<>();
+        for (int corridor = 0; corridor < corridors.length; corridor++) {
+            corridors[corridor] = createVertex();
+        }
+        int[] directions = getDirections(stairwellSpacing);
+        for (int floor = 0; floor < floors; floor++) {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    Vertex corridor = getCorridor(floor, row, column);
+                    if (directions[column] != 0) {
+                        addEdge(corridor, getCorridor(floor, row, column + directions[column]),
+                                MINIMUM_CORRIDOR_CAPACITY);
+                    } else if (row > 0) {
+                        addEdge(corridor, getCorridor(floor, row - 1, column), MINIMUM_CORRIDOR_CAPACITY);
+                    } else if (floor > 0) {
+                        Vertex stairwell = createVertex();
+                        addEdge(corridor, stairwell, MINIMUM_STAIRWELL_CAPACITY);
+                        addEdge(stairwell, getCorridor(floor - 1, row, column), MINIMUM_STAIRWELL_CAPACITY);
+                    }
+                    if (floor == 0 && row == 0) {
+                        Vertex exit = createVertex();
+                        exits.add(exit);
+                        edges.add(new Edge(corridor, exit, EXIT_CAPACITY));
+                    }
+                }
+            }
+        }
+        for (Vertex corridor : corridors) {
+            addRoom(corridor);
+        }
+    }
+
+    /**
+     * Calculates the direction of the corridors of every column, which lead to the nearest stairwell
+     *
+     * @param stairwellSpacing the number of columns between two stairwells
+     * @return -1 for the left, 1 for the right and 0 for a column with a stairwell
+     */
+    private int[] getDirections(int stairwellSpacing) {
+        int[] directions = new int[columns];
+        for (int column = 0; column < columns; column++) {
+            int left = column / stairwellSpacing * stairwellSpacing;
+            int right = Math.min(left + stairwellSpacing, columns - 1);
+            if (column == left || column == right) continue;
+            directions[column] = column - left <= right - column ? -1 : 1;
+        }
+        return directions;
+    }
+
+    /**
+     * Adds a section with a random capacity
+     *
+     * @param fromVertex      the origin
+     * @param toVertex        the destination
+     * @param minimumCapacity the lowest capacity
+     */
+    private void addEdge(Vertex fromVertex, Vertex toVertex, int minimumCapacity) {
+        edges.add(new Edge(fromVertex, toVertex, minimumCapacity + random.nextInt(CAPACITY_RANGE)));
+    }
+
+    /**
+     * Creates the next Vertex
+     *
+     * @return the Vertex with a new name
+     */
+    private Vertex createVertex() {
+        return new Vertex(NetworkGenerator.nameVertex(numberOfVertices++));
+    }
+
+    /**
+     * Adds a new room to a corridor
+     *
+     * @param corridor the corridor
+     * @return the section from the room to the corridor
+     */
+    private Edge addRoom(Vertex corridor) {
+        Vertex room = createVertex();
+        rooms.add(room);
+        Edge edge = new Edge(room, corridor, MINIMUM_ROOM_CAPACITY + random.nextInt(CAPACITY_RANGE));
+        edges.add(edge);
+        return edge;
+    }
+
+    /**
+     * Adds a new room to a random corridor
+     *
+     * @return the section from the room to the corridor
+     */
+    public Edge addRoom() {
+        return addRoom(corridors[random.nextInt(corridors.length)]);
+    }
+
+    /**
+     * Gets the corridor at a place of the building
+     *
+     * @param floor  the floor
+     * @param row    the row
+     * @param column the column
+     * @return the corridor
+     */
+    private Vertex getCorridor(int floor, int row, int column) {
+        return corridors[(floor * rows + row) * columns + column];
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the sections of the building, including the added rooms
+     */
+    public List<Edge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return a random room, which is a start point
+     */
+    public Vertex getRandomRoom() {
+        return rooms.get(random.nextInt(rooms.size()));
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return a random exit, which is an end point
+     */
+    public Vertex getRandomExit() {
+        return exits.get(random.nextInt(exits.size()));
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of Vertices of the building
+     */
+    public int getNumberOfVertices() {
+        return numberOfVertices;
+    }
+}
@@ -0,0 +1,380 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.stephan.escaperoutes.commands.CommandParser;
+import edu.kit.stephan.escaperoutes.commands.Result;
+import edu.kit.stephan.escaperoutes.graphs.Edge;
+import edu.kit.stephan.escaperoutes.main.Session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class replays a mixed stream of commands on generated buildings through a Session and reports the
+ * throughput and the latency percentiles of every type of command. The commands are submitted at a fixed target
+ * rate, and the latency of a command is measured from the time it was due, so a stalled session increases the
+ * latency of every command that waits behind it. The stream only depends on the seed, so runs are repeatable.
+ * The options are "--threads", "--rate", "--commands", "--networks", "--floors", "--rows", "--columns",
+ * "--spacing" and "--seed" followed by a number, and "--mix" followed by weights like "flow=60,print=9".
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see BuildingGenerator
+ */
+public final class LoadHarness {
+    private static final String THREADS_OPTION = "--threads";
+    private static final String RATE_OPTION = "--rate";
+    private static final String COMMANDS_OPTION = "--commands";
+    private static final String NETWORKS_OPTION = "--networks";
+    private static final String FLOORS_OPTION = "--floors";
+    private static final String ROWS_OPTION = "--rows";
+    private static final String COLUMNS_OPTION = "--columns";
+    private static final String SPACING_OPTION = "--spacing";
+    private static final String SEED_OPTION = "--seed";
+    private static final String MIX_OPTION = "--mix";
+    private static final String LIST_SEPARATOR = ",";
+    private static final String WEIGHT_SEPARATOR = "=";
+    private static final String SUMMARY = "%d commands in %.2f s, throughput %.1f commands/s (target %s), "
+            + "%d failures";
+    private static final String HEADER = String.format("%-12s %9s %9s %11s %11s %11s %11s",
+            "command", "count", "failures", "p50 us", "p99 us", "p999 us", "max us");
+    private static final String RESULT_LINE = "%-12s %9d %9d %11.1f %11.1f %11.1f %11.1f";
+    private static final String UNLIMITED_RATE = "unlimited";
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double MEDIAN = 0.5;
+    private static final double PERCENTILE_99 = 0.99;
+    private static final double PERCENTILE_999 = 0.999;
+    private static final double MAXIMUM = 1;
+
+    /**
+     * Utility class constructor
+     */
+    private LoadHarness() {
+        throw new IllegalStateException("Utility-class constructor.");
+    }
+
+    /**
+     * EntryPoint of the load test
+     *
+     * @param args the options, without options 20000 commands run as fast as possible on one thread
+     */
+    public static void main(String[] args) {
+        int threads = 0;
+        double rate = 0;
+        int numberOfCommands = 20000;
+        int numberOfNetworks = 8;
+        int floors = 4;
+        int rows = 8;
+        int columns = 24;
+        int spacing = 8;
+        long seed = 42;
+        Map<CommandType, Integer> mix = CommandType.getDefaultMix();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case THREADS_OPTION:
+                    threads = Integer.parseInt(value);
+                    break;
+                case RATE_OPTION:
+                    rate = Double.parseDouble(value);
+                    break;
+                case COMMANDS_OPTION:
+                    numberOfCommands = Integer.parseInt(value);
+                    break;
+                case NETWORKS_OPTION:
+                    numberOfNetworks = Integer.parseInt(value);
+                    break;
+                case FLOORS_OPTION:
+                    floors = Integer.parseInt(value);
+                    break;
+                case ROWS_OPTION:
+                    rows = Integer.parseInt(value);
+                    break;
+                case COLUMNS_OPTION:
+                    columns = Integer.parseInt(value);
+                    break;
+                case SPACING_OPTION:
+                    spacing = Integer.parseInt(value);
+                    break;
+                case SEED_OPTION:
+                    seed = Long.parseLong(value);
+                    break;
+                case MIX_OPTION:
+                    mix = parseMix(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException(args[i]);
+            }
+        }
+        Random random = new Random(seed);
+        List<BuildingGenerator> buildings = new ArrayList<>();
+        List<String> identifiers = new ArrayList<>();
+        Session session = threads > 0 ? new Session(threads) : new Session();
+        for (int i = 0; i < numberOfNetworks; i++) {
+            session.submit(addBuilding(buildings, identifiers, floors, rows, columns, spacing, random)).join();
+        }
+
+        CommandType[] types = new CommandType[numberOfCommands];
+        String[] lines = new String[numberOfCommands];
+        List<CommandType> weightedTypes = new ArrayList<>();
+        for (Map.Entry<CommandType, Integer> weight : mix.entrySet()) {
+            weightedTypes.addAll(Collections.nCopies(weight.getValue(), weight.getKey()));
+        }
+        for (int i = 0; i < numberOfCommands; i++) {
+            types[i] = weightedTypes.get(random.nextInt(weightedTypes.size()));
+            lines[i] = types[i] == CommandType.ADD
+                    ? addBuilding(buildings, identifiers, floors, rows, columns, spacing, random)
+                    : types[i].createLine(buildings, identifiers, random);
+        }
+
+        Map<CommandType, LatencyRecorder> recorders = new EnumMap<>(CommandType.class);
+        for (CommandType type : CommandType.values()) {
+            recorders.put(type, new LatencyRecorder());
+        }
+        List<CompletableFuture<Result>> results = new ArrayList<>(numberOfCommands);
+        long start = System.nanoTime();
+        for (int i = 0; i < numberOfCommands; i++) {
+            long due = rate > 0 ? start + (long) (i * NANOS_PER_SECOND / rate) : System.nanoTime();
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            LatencyRecorder recorder = recorders.get(types[i]);
+            results.add(session.submit(lines[i]).whenComplete((result, throwable)
+                -> recorder.record(System.nanoTime() - due, result == null
+                    || result.getType() == Result.ResultType.FAILURE)));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        long elapsed = System.nanoTime() - start;
+        session.shutdown();
+        printReport(recorders, numberOfCommands, elapsed, rate);
+    }
+
+    /**
+     * Generates a new building
+     *
+     * @param buildings   the generated buildings
+     * @param identifiers the identifiers of the buildings
+     * @param floors      the number of floors
+     * @param rows        the number of rows of a floor
+     * @param columns     the number of columns of a floor
+     * @param spacing     the number of columns between two stairwells
+     * @param random      the random source
+     * @return the add Command of the building
+     */
+    private static String addBuilding(List<BuildingGenerator> buildings, List<String> identifiers, int floors,
+                                      int rows, int columns, int spacing, Random random) {
+        BuildingGenerator building = new BuildingGenerator(floors, rows, columns, spacing, random);
+        String identifier = NetworkGenerator.nameNetwork(identifiers.size());
+        buildings.add(building);
+        identifiers.add(identifier);
+        return NetworkGenerator.toAddCommand(identifier, building.getEdges());
+    }
+
+    /**
+     * Parses the weights of the types of commands
+     *
+     * @param list the weights like "flow=60,print=9"
+     * @return the weight of every type
+     */
+    private static Map<CommandType, Integer> parseMix(String list) {
+        Map<CommandType, Integer> mix = new EnumMap<>(CommandType.class);
+        for (String entry : list.split(LIST_SEPARATOR)) {
+            String[] weight = entry.split(WEIGHT_SEPARATOR);
+            CommandType type = CommandType.getCommandType(weight[0]);
+            if (type == null || weight.length != 2) throw new IllegalArgumentException(entry);
+            mix.put(type, Integer.parseInt(weight[1]));
+        }
+        return mix;
+    }
+
+    /**
+     * Prints the throughput and the latencies of every type of command
+     *
+     * @param recorders        the latencies of every type
+     * @param numberOfCommands the number of commands
+     * @param elapsed          the nanoseconds from the first command to the last result
+     * @param rate             the target rate, or zero if there is none
+     */
+    private static void printReport(Map<CommandType, LatencyRecorder> recorders, int numberOfCommands,
+                                    long elapsed, double rate) {
+        int failures = 0;
+        for (LatencyRecorder recorder : recorders.values()) {
+            failures += recorder.getFailures();
+        }
+        double seconds = elapsed / NANOS_PER_SECOND;
+        Terminal.printLine(String.format(SUMMARY, numberOfCommands, seconds, numberOfCommands / seconds,
+                rate > 0 ? String.valueOf(rate) : UNLIMITED_RATE, failures));
+        Terminal.printLine(HEADER);
+        for (Map.Entry<CommandType, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            if (recorder.getCount() == 0) continue;
+            Terminal.printLine(String.format(RESULT_LINE, entry.getKey().getTypeName(), recorder.getCount(),
+                    recorder.getFailures(), recorder.getPercentile(MEDIAN) / NANOS_PER_MICRO,
+                    recorder.getPercentile(PERCENTILE_99) / NANOS_PER_MICRO,
+                    recorder.getPercentile(PERCENTILE_999) / NANOS_PER_MICRO,
+                    recorder.getPercentile(MAXIMUM) / NANOS_PER_MICRO));
+        }
+    }
+
+    /**
+     * This enum describes the types of commands in the stream
+     */
+    private enum CommandType {
+        /**
+         * Adds a new building
+         */
+        ADD("add", 1),
+        /**
+         * Adds a room to a building
+         */
+        ADD_SECTION("addSection", 10),
+        /**
+         * Calculates the flow from a room to an exit
+         */
+        FLOW("flow", 60),
+        /**
+         * Lists all networks or the flows of a building
+         */
+        LIST("list", 20),
+        /**
+         * Prints a building
+         */
+        PRINT("print", 9);
+
+        private final String typeName;
+        private final int defaultWeight;
+
+        /**
+         * Constructor of the CommandType Enum
+         *
+         * @param typeName      the name of the type
+         * @param defaultWeight the weight of the type in the default mix
+         */
+        CommandType(String typeName, int defaultWeight) {
+            this.typeName = typeName;
+            this.defaultWeight = defaultWeight;
+        }
+
+        /**
+         * Creates a command of this type on a random building
+         *
+         * @param buildings   the generated buildings
+         * @param identifiers the identifiers of the buildings
+         * @param random      the random source
+         * @return the command
+         */
+        private String createLine(List<BuildingGenerator> buildings, List<String> identifiers, Random random) {
+            int index = random.nextInt(buildings.size());
+            BuildingGenerator building = buildings.get(index);
+            String identifier = identifiers.get(index);
+            switch (this) {
+                case ADD_SECTION:
+                    Edge room = building.addRoom();
+                    return NetworkGenerator.toAddCommand(identifier, Collections.singletonList(room));
+                case FLOW:
+                    return String.join(" ", CommandParser.FLOW, identifier, building.getRandomRoom().toString(),
+                            building.getRandomExit().toString());
+                case LIST:
+                    return random.nextBoolean() ? CommandParser.LIST : CommandParser.LIST + " " + identifier;
+                case PRINT:
+                    return CommandParser.PRINT + " " + identifier;
+                default:
+                    throw new IllegalStateException(typeName);
+            }
+        }
+
+        /**
+         * Getter-Method
+         *
+         * @return the name of the type
+         */
+        private String getTypeName() {
+            return typeName;
+        }
+
+        /**
+         * Gets the weights of the default mix
+         *
+         * @return the weight of every type
+         */
+        private static Map<CommandType, Integer> getDefaultMix() {
+            Map<CommandType, Integer> mix = new EnumMap<>(CommandType.class);
+            for (CommandType type : values()) {
+                mix.put(type, type.defaultWeight);
+            }
+            return mix;
+        }
+
+        /**
+         * Gets the corresponding CommandType to an inputted String
+         *
+         * @param typeName the name of a type
+         * @return the CommandType, or null if there is none
+         */
+        private static CommandType getCommandType(String typeName) {
+            return Arrays.stream(values()).filter(type -> type.typeName.equals(typeName))
+                    .findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * This class collects the latencies of a type of command, which are recorded by the threads of the session
+     */
+    private static final class LatencyRecorder {
+        private long[] latencies = new long[16];
+        private int count;
+        private int failures;
+        private boolean isSorted;
+
+        /**
+         * Records the latency of a command
+         *
+         * @param nanos     the latency
+         * @param isFailure true, if the command failed; false, if not
+         */
+        private synchronized void record(long nanos, boolean isFailure) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+            if (isFailure) failures++;
+            isSorted = false;
+        }
+
+        /**
+         * Gets a percentile of the latencies
+         *
+         * @param fraction the percentile as a fraction, 1 for the maximum
+         * @return the latency in nanoseconds
+         */
+        private synchronized double getPercentile(double fraction) {
+            if (!isSorted) Arrays.sort(latencies, 0, count);
+            isSorted = true;
+            return latencies[Math.min(count - 1, (int) Math.ceil(fraction * count) - 1)];
+        }
+
+        /**
+         * Getter-Method
+         *
+         * @return the number of recorded commands
+         */
+        private synchronized int getCount() {
+            return count;
+        }
+
+        /**
+         * Getter-Method
+         *
+         * @return the number of failed commands
+         */
+        private synchronized int getFailures() {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import edu.kit.stephan.escaperoutes.commands.CommandParser;
+import edu.kit.stephan.escaperoutes.graphs.Edge;
+import edu.kit.stephan.escaperoutes.graphs.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class generates a valid escape network of a given shape and size. Every section leads from a Vertex to a
+ * Vertex with a higher index, so there are no loops and no opposite sections, the first Vertex is the only start
+ * point and the last Vertex is the only end point. The same seed always generates the same network.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see NetworkShape
+ */
+public final class NetworkGenerator {
+    private static final int LETTERS = 26;
+    private static final int MAXIMUM_CAPACITY = 100;
+    private static final int SECTIONS_PER_VERTEX = 3;
+    private static final char SECTION_SEPARATOR = ';';
+    private final Vertex[] vertices;
+    private final List<Edge> edges;
+
+    /**
+     * Constructor
+     *
+     * @param networkShape     the shape of the network
+     * @param numberOfVertices the number of Vertices, at least two
+     * @param seed             the seed of the random capacities and sections
+     */
+    public NetworkGenerator(NetworkShape networkShape, int numberOfVertices, long seed) {
+        Random random = new Random(seed);
+        Set<Long> sections = new HashSet<>();
+        switch (networkShape) {
+            case LAYERED:
+                generateLayers(numberOfVertices, random, sections);
+                break;
+            case GRID:
+                numberOfVertices = generateGrid(numberOfVertices, sections);
+                break;
+            case SPARSE:
+                generateRandom(numberOfVertices, SECTIONS_PER_VERTEX, random, sections);
+                break;
+            default:
+                generateRandom(numberOfVertices, Math.max(SECTIONS_PER_VERTEX,
+                        (int) Math.sqrt(numberOfVertices) / 2), random, sections);
+                break;
+        }
+        this.vertices = new Vertex[numberOfVertices];
+        for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+            vertices[vertex] = new Vertex(nameVertex(vertex));
+        }
+        List<Long> sortedSections = new ArrayList<>(sections);
+        Collections.sort(sortedSections);
+        Collections.shuffle(sortedSections, random);
+        this.edges = new ArrayList<>(sortedSections.size());
+        for (long section : sortedSections) {
+            edges.add(new Edge(vertices[(int) (section >>> Integer.SIZE)], vertices[(int) section],
+                    1 + random.nextInt(MAXIMUM_CAPACITY)));
+        }
+    }
+
+    /**
+     * Generates the sections of layers of the same width, the start point leads to the first and the last layer
+     * leads to the end point. Every Vertex leads to the Vertex at its position in the next layer and to some
+     * random Vertices of it.
+     *
+     * @param numberOfVertices the number of Vertices
+     * @param random           the random source
+     * @param sections         the generated sections
+     */
+    private static void generateLayers(int numberOfVertices, Random random, Set<Long> sections) {
+        int inner = numberOfVertices - 2;
+        int width = Math.max(1, (int) Math.sqrt(inner));
+        for (int vertex = 1; vertex <= inner; vertex++) {
+            int layerStart = 1 + (vertex - 1) / width * width;
+            int nextLayerStart = layerStart + width;
+            if (layerStart == 1) addSection(sections, 0, vertex);
+            if (nextLayerStart > inner) {
+                addSection(sections, vertex, numberOfVertices - 1);
+                continue;
+            }
+            int nextWidth = Math.min(width, inner + 1 - nextLayerStart);
+            addSection(sections, vertex, nextLayerStart + (vertex - layerStart) % nextWidth);
+            for (int i = 0; i < SECTIONS_PER_VERTEX; i++) {
+                addSection(sections, vertex, nextLayerStart + random.nextInt(nextWidth));
+            }
+        }
+        if (inner <= 0) addSection(sections, 0, numberOfVertices - 1);
+    }
+
+    /**
+     * Generates the sections of the largest square grid with at most the given number of Vertices
+     *
+     * @param numberOfVertices the number of Vertices
+     * @param sections         the generated sections
+     * @return the number of Vertices of the grid
+     */
+    private static int generateGrid(int numberOfVertices, Set<Long> sections) {
+        int side = Math.max(2, (int) Math.sqrt(numberOfVertices));
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int vertex = row * side + column;
+                if (column + 1 < side) addSection(sections, vertex, vertex + 1);
+                if (row + 1 < side) addSection(sections, vertex, vertex + side);
+            }
+        }
+        return side * side;
+    }
+
+    /**
+     * Generates random sections. Every Vertex is reached by an earlier Vertex and leads to a later Vertex, so the
+     * first and the last Vertex are the only start and end point.
+     *
+     * @param numberOfVertices   the number of Vertices
+     * @param sectionsPerVertex  the average number of sections per Vertex
+     * @param random             the random source
+     * @param sections           the generated sections
+     */
+    private static void generateRandom(int numberOfVertices, int sectionsPerVertex, Random random,
+                                       Set<Long> sections) {
+        for (int vertex = 1; vertex < numberOfVertices; vertex++) {
+            addSection(sections, random.nextInt(vertex), vertex);
+            if (vertex + 1 < numberOfVertices) {
+                addSection(sections, vertex, vertex + 1 + random.nextInt(numberOfVertices - vertex - 1));
+            }
+        }
+        long maximumSections = (long) numberOfVertices * (numberOfVertices - 1) / 2;
+        long numberOfSections = Math.min(maximumSections, (long) numberOfVertices * sectionsPerVertex);
+        while (sections.size() < numberOfSections) {
+            int origin = random.nextInt(numberOfVertices);
+            int destination = random.nextInt(numberOfVertices);
+            if (origin != destination) addSection(sections, Math.min(origin, destination),
+                    Math.max(origin, destination));
+        }
+    }
+
+    /**
+     * Adds a section as the index of its origin in the upper and the index of its destination in the lower half
+     *
+     * @param sections    the generated sections
+     * @param origin      the index of the origin
+     * @param destination the index of the destination
+     */
+    private static void addSection(Set<Long> sections, int origin, int destination) {
+        sections.add(((long) origin << Integer.SIZE) | destination);
+    }
+
+    /**
+     * Names a Vertex by its index in bijective base 26, so the names are short and valid
+     *
+     * @param index the index of the Vertex
+     * @return the name of the Vertex
+     */
+    static String nameVertex(int index) {
+        return name(index, 'a');
+    }
+
+    /**
+     * Names a network by its index in bijective base 26, so the identifiers are short and valid
+     *
+     * @param index the index of the network
+     * @return the identifier of the network
+     */
+    static String nameNetwork(int index) {
+        return name(index, 'A');
+    }
+
+    /**
+     * Writes an index in bijective base 26
+     *
+     * @param index       the index
+     * @param firstLetter the letter of the digit zero
+     * @return the name
+     */
+    private static String name(int index, char firstLetter) {
+        StringBuilder name = new StringBuilder();
+        for (int rest = index + 1; rest > 0; rest = (rest - 1) / LETTERS) {
+            name.append((char) (firstLetter + (rest - 1) % LETTERS));
+        }
+        return name.reverse().toString();
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the sections of the network in a random order
+     */
+    public List<Edge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of Vertices of the network
+     */
+    public int getNumberOfVertices() {
+        return vertices.length;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the only start point of the network
+     */
+    public Vertex getSource() {
+        return vertices[0];
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the only end point of the network
+     */
+    public Vertex getSink() {
+        return vertices[vertices.length - 1];
+    }
+
+    /**
+     * Creates the input line which adds the network
+     *
+     * @param uniqueIdentifier the identifier of the network
+     * @return the add Command with all sections
+     */
+    public String toAddCommand(String uniqueIdentifier) {
+        return toAddCommand(uniqueIdentifier, edges);
+    }
+
+    /**
+     * Creates the input line which adds a network or, with a single section, a section
+     *
+     * @param uniqueIdentifier the identifier of the network
+     * @param edges            the sections
+     * @return the add Command with all sections
+     */
+    static String toAddCommand(String uniqueIdentifier, List<Edge> edges) {
+        StringBuilder command = new StringBuilder(CommandParser.ADD).append(' ').append(uniqueIdentifier).append(' ');
+        for (int i = 0; i < edges.size(); i++) {
+            if (i > 0) command.append(SECTION_SEPARATOR);
+            command.append(edges.get(i));
+        }
+        return command.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package edu.kit.stephan.escaperoutes.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * This enum describes the shapes of the generated escape networks
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see NetworkGenerator
+ */
+public enum NetworkShape {
+    /**
+     * Layers of the same width, every Vertex leads to some Vertices of the next layer
+     */
+    LAYERED("layered"),
+    /**
+     * A square grid, every Vertex leads to its right and its lower neighbour
+     */
+    GRID("grid"),
+    /**
+     * A random network with about three sections per Vertex
+     */
+    SPARSE("sparse"),
+    /**
+     * A random network with about half the square root of the number of Vertices as sections per Vertex
+     */
+    DENSE("dense");
+
+    private final String shapeName;
+
+    /**
+     * Constructor of the NetworkShape Enum
+     *
+     * @param shapeName the corresponding String name of a shape
+     */
+    NetworkShape(String shapeName) {
+        this.shapeName = shapeName;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the shapeName
+     */
+    public String getShapeName() {
+        return shapeName;
+    }
+
+    /**
+     * Gets the corresponding NetworkShape to an inputted String
+     *
+     * @param shapeName the name of a shape
+     * @return the NetworkShape, or null if there is none
+     */
+    public static NetworkShape getNetworkShape(String shapeName) {
+        return Arrays.stream(NetworkShape.values())
+                .filter(networkShape -> networkShape.getShapeName().equals(shapeName))
+                .findFirst().orElse(null);
+    }
+}
@@ -2,16 +2,14 @@ package edu.kit.stephan.escaperoutes.commands;
 
 import edu.kit.stephan.escaperoutes.errors.Errors;
 import edu.kit.stephan.escaperoutes.errors.SemanticsException;
-import edu.kit.stephan.escaperoutes.graphs.Edge;
 import edu.kit.stephan.escaperoutes.graphs.EscapeNetwork;
 import edu.kit.stephan.escaperoutes.graphs.EscapeNetworkDatabase;
-import edu.kit.stephan.escaperoutes.graphs.Vertex;
+import edu.kit.stephan.escaperoutes.graphs.SolverType;
+import edu.kit.stephan.escaperoutes.statistics.LatencyHistogram;
+import edu.kit.stephan.escaperoutes.statistics.Statistics;
 
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This class describes a Command
@@ -25,11 +23,11 @@ public enum Command {
      */
     ADD_NETWORK(CommandParser.ADD_NETWORK) {
         @Override
-        public Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase) {
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
             String resultMessage;
 
             try {
-                resultMessage = escapeNetworkDatabase.addNewEscapeNetwork(Command.createEscapeNetwork(parameters));
+                resultMessage = escapeNetworkDatabase.addNewEscapeNetwork(Command.createEscapeNetwork(arguments));
             } catch (SemanticsException e) {
                 return new Result(Result.ResultType.FAILURE, e.getMessage());
             }
@@ -42,12 +40,12 @@ public enum Command {
      */
     ADD_SECTION(CommandParser.ADD_SECTION) {
         @Override
-        public Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase) {
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
             String resultMessage;
 
             try {
-                resultMessage = escapeNetworkDatabase.addNewSection(parameters.get(INDEX_OF_NAME),
-                        Command.createEdgeOutOfInput(parameters.get(INDEX_OF_PARAMETERS)));
+                Command.checkSections(arguments);
+                resultMessage = escapeNetworkDatabase.addNewSection(arguments.getIdentifier(), arguments.getEdge());
             } catch (SemanticsException e) {
                 return new Result(Result.ResultType.FAILURE, e.getMessage());
             }
@@ -60,7 +58,7 @@ public enum Command {
      */
     LIST_ALL_NETWORKS(CommandParser.LIST_ONE) {
         @Override
-        public Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase) {
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
             return new Result(Result.ResultType.SUCCESS, escapeNetworkDatabase.listNetworks());
         }
     },
@@ -70,11 +68,11 @@ public enum Command {
      */
     LIST_SPECIFIC_NETWORK(CommandParser.LIST_TWO) {
         @Override
-        public Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase) {
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
             String resultMessage;
 
             try {
-                resultMessage = escapeNetworkDatabase.listFlowOfSpecificNetwork(parameters.get(INDEX_OF_NAME));
+                resultMessage = escapeNetworkDatabase.listFlowOfSpecificNetwork(arguments.getIdentifier());
             } catch (SemanticsException e) {
                 return new Result(Result.ResultType.FAILURE, e.getMessage());
             }
@@ -87,13 +85,89 @@ public enum Command {
      */
     FLOW(CommandParser.FLOW) {
         @Override
-        public Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase) {
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
             String resultMessage;
 
             try {
-                resultMessage = escapeNetworkDatabase.calculateOrGetFlow(parameters.get(INDEX_OF_NAME)
-                        , new Vertex(parameters.get(INDEX_OF_FLOW_START_POINT))
-                        , new Vertex(parameters.get(INDEX_OF_FLOW_END_POINT)));
+                if (arguments.getSolverName() != null) {
+                    resultMessage = escapeNetworkDatabase.calculateOrGetFlow(arguments.getIdentifier()
+                            , arguments.getStartPoint(), arguments.getEndPoint()
+                            , Command.createSolverType(arguments.getSolverName()));
+                } else {
+                    resultMessage = escapeNetworkDatabase.calculateOrGetFlow(arguments.getIdentifier()
+                            , arguments.getStartPoint(), arguments.getEndPoint());
+                }
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the flows Command, which calculates the flows between many given pairs of Points
+     */
+    FLOWS(CommandParser.FLOWS) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                if (arguments.getSolverName() != null) {
+                    resultMessage = escapeNetworkDatabase.calculateOrGetFlows(arguments.getIdentifier()
+                            , arguments.getPoints(), Command.createSolverType(arguments.getSolverName()));
+                } else {
+                    resultMessage = escapeNetworkDatabase.calculateOrGetFlows(arguments.getIdentifier()
+                            , arguments.getPoints());
+                }
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the evacuate Command, which calculates the flow between a set of start points and a set of end points
+     */
+    EVACUATE(CommandParser.EVACUATE) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                if (arguments.getSolverName() != null) {
+                    resultMessage = escapeNetworkDatabase.calculateOrGetEvacuationFlow(arguments.getIdentifier()
+                            , arguments.getStartPoints(), arguments.getEndPoints()
+                            , Command.createSolverType(arguments.getSolverName()));
+                } else {
+                    resultMessage = escapeNetworkDatabase.calculateOrGetEvacuationFlow(arguments.getIdentifier()
+                            , arguments.getStartPoints(), arguments.getEndPoints());
+                }
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the cut Command, which finds the saturated sections of the minimum cut between two given Points
+     */
+    CUT(CommandParser.CUT) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                if (arguments.getSolverName() != null) {
+                    resultMessage = escapeNetworkDatabase.calculateCut(arguments.getIdentifier()
+                            , arguments.getStartPoint(), arguments.getEndPoint()
+                            , Command.createSolverType(arguments.getSolverName()));
+                } else {
+                    resultMessage = escapeNetworkDatabase.calculateCut(arguments.getIdentifier()
+                            , arguments.getStartPoint(), arguments.getEndPoint());
+                }
             } catch (SemanticsException e) {
                 return new Result(Result.ResultType.FAILURE, e.getMessage());
             }
@@ -106,11 +180,116 @@ public enum Command {
      */
     PRINT(CommandParser.PRINT) {
         @Override
-        public Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase) {
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                resultMessage = escapeNetworkDatabase.printEscapeNetwork(arguments.getIdentifier());
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the explain Command, which shows the statistics of a network and how its flows are calculated
+     */
+    EXPLAIN(CommandParser.EXPLAIN) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                resultMessage = escapeNetworkDatabase.explainEscapeNetwork(arguments.getIdentifier());
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the solver Command, which sets the algorithm used to calculate the flows of a network
+     */
+    SET_SOLVER(CommandParser.SOLVER) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                resultMessage = escapeNetworkDatabase.setSolverOfNetwork(arguments.getIdentifier(),
+                        Command.createSolverType(arguments.getSolverName()));
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the load Command, which adds a network out of a file
+     */
+    LOAD(CommandParser.LOAD) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                resultMessage = escapeNetworkDatabase.loadEscapeNetwork(arguments.getIdentifier(),
+                        arguments.getPath());
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the export Command, which writes a network into a file
+     */
+    EXPORT(CommandParser.EXPORT) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                resultMessage = escapeNetworkDatabase.exportEscapeNetwork(arguments.getIdentifier(),
+                        arguments.getPath());
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the save Command, which writes a snapshot of all networks
+     */
+    SAVE(CommandParser.SAVE) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            String resultMessage;
+
+            try {
+                resultMessage = escapeNetworkDatabase.saveDatabase(arguments.getPath());
+            } catch (SemanticsException e) {
+                return new Result(Result.ResultType.FAILURE, e.getMessage());
+            }
+            return new Result(Result.ResultType.SUCCESS, resultMessage);
+        }
+    },
+
+    /**
+     * Executes the restore Command, which restores the networks of a snapshot
+     */
+    RESTORE(CommandParser.RESTORE) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
             String resultMessage;
 
             try {
-                resultMessage = escapeNetworkDatabase.printEscapeNetwork(parameters.get(INDEX_OF_NAME));
+                resultMessage = escapeNetworkDatabase.restoreDatabase(arguments.getPath());
             } catch (SemanticsException e) {
                 return new Result(Result.ResultType.FAILURE, e.getMessage());
             }
@@ -118,24 +297,29 @@ public enum Command {
         }
     },
 
+    /**
+     * Executes the stats Command, which shows the latencies of the Commands and the counters of the flow calculation
+     */
+    STATS(CommandParser.STATS) {
+        @Override
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+            return new Result(Result.ResultType.SUCCESS, escapeNetworkDatabase.printStatistics());
+        }
+    },
+
     /**
      * Executes the Quit Command
      */
     QUIT(CommandParser.QUIT) {
         @Override
-        public Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase) {
+        public Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
             return new Result(Result.ResultType.SUCCESS);
         }
     };
 
-    private static final int INDEX_OF_FLOW_START_POINT = 2;
-    private static final int INDEX_OF_FLOW_END_POINT = 3;
-    private static final int INDEX_OF_PARAMETERS = 2;
-    private static final int INDEX_OF_NAME = 1;
-    private static final int START_OF_NAME = 0;
-    private static final String SPLIT_SECTION = ";";
-    private static final String REGEX_NUMBER = "\\d+";
+    private static final Map<String, Command> COMMANDS_BY_NAME = new HashMap<>();
     private final String commandName;
+    private final LatencyHistogram latencyHistogram;
 
     /**
      * Constructor of the Command Enum
@@ -143,15 +327,31 @@ public enum Command {
      */
     Command(String commandName) {
         this.commandName = commandName;
+        this.latencyHistogram = Statistics.createHistogram(commandName);
+    }
+
+    /**
+     * Executes a specific Command and records its latency
+     * @param arguments the typed arguments which are needed to execute the Command
+     * @param escapeNetworkDatabase the database on which the Command is executed
+     * @return a result, which corresponds to a result type and a message
+     */
+    public Result execute(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase) {
+        long start = System.nanoTime();
+        try {
+            return executeCommand(arguments, escapeNetworkDatabase);
+        } finally {
+            latencyHistogram.record(System.nanoTime() - start);
+        }
     }
 
     /**
      * Executes a specific Command
-     * @param parameters Parameters which are needed to execute the Command
+     * @param arguments the typed arguments which are needed to execute the Command
      * @param escapeNetworkDatabase the database on which the Command is executed
      * @return a result, which corresponds to a result type and a message
      */
-    public abstract Result executeCommand(List<String> parameters, EscapeNetworkDatabase escapeNetworkDatabase);
+    public abstract Result executeCommand(CommandArguments arguments, EscapeNetworkDatabase escapeNetworkDatabase);
 
     /**
      * Getter-Method for the get-Command
@@ -161,58 +361,50 @@ public enum Command {
         return commandName;
     }
 
+    static {
+        for (Command command : values()) {
+            COMMANDS_BY_NAME.put(command.getCommandName(), command);
+        }
+    }
+
     /**
-     * Gets the corresponding Command to an inputted String
+     * Gets the corresponding Command to an inputted String in constant time
      * @param commandName the name of a command
-     * @return the Command
+     * @return the Command, or null if there is none
      */
     public static Command getCommand(String commandName) {
-        return Arrays.stream(Command.values())
-                .filter(command -> command.getCommandName().equals(commandName))
-                .findFirst().orElse(null);
+        return COMMANDS_BY_NAME.get(commandName);
     }
 
     /**
-     *
-     * Method which creates Edges
-     * @param parameterEdges Edges represented as String
-     * @return the parsed Edge
-     * @throws SemanticsException throws an Error if Edge is not valid
-     */
-    private static Edge createEdgeOutOfInput(String parameterEdges) throws SemanticsException {
-        Pattern pattern = Pattern.compile(REGEX_NUMBER);
-        Matcher matcher = pattern.matcher(parameterEdges);
-        //noinspection ResultOfMethodCallIgnored
-        matcher.find();
-        String nameOfFirstVertex = parameterEdges.substring(START_OF_NAME, matcher.start());
-        String nameOfSecondVertex = parameterEdges.substring(matcher.end());
-        if (nameOfFirstVertex.equals(nameOfSecondVertex)) throw new SemanticsException(Errors.LOOPS_NOT_ALLOWED);
-        int capacity;
-        try {
-            capacity = Integer.parseInt(matcher.group());
-        } catch (NumberFormatException e) {
-            throw new SemanticsException(Errors.CAPACITY_IS_NOT_A_INT);
-        }
-        return new Edge(new Vertex(nameOfFirstVertex), new Vertex(nameOfSecondVertex), capacity);
+     * Method which throws the semantic error of the sections, which was found by the parser
+     * @param arguments the arguments of an add Command
+     * @throws SemanticsException if a section is a loop, has a capacity which is not an int or exists twice
+     */
+    private static void checkSections(CommandArguments arguments) throws SemanticsException {
+        if (arguments.getSemanticError() != null) throw new SemanticsException(arguments.getSemanticError());
+    }
+
+    /**
+     * Method which finds the algorithm to a solver name
+     * @param solverName the name of the solver
+     * @return the corresponding SolverType
+     * @throws SemanticsException if there is no solver with this name
+     */
+    private static SolverType createSolverType(String solverName) throws SemanticsException {
+        SolverType solverType = SolverType.getSolverType(solverName);
+        if (solverType == null) throw new SemanticsException(Errors.SOLVER_DOES_NOT_EXIST);
+        return solverType;
     }
 
     /**
      * Method which creates an EscapeNetwork
-     * @param parameters the parameters needed to create an Escape Network
+     * @param arguments the arguments needed to create an Escape Network
      * @return the finished EscapeNetwork
      * @throws SemanticsException if the semantics are wrong, which are needed to construct the EscapeNetwork
      */
-    private static EscapeNetwork createEscapeNetwork(List<String> parameters) throws SemanticsException {
-        String[] edgesString = parameters.get(INDEX_OF_PARAMETERS).split(SPLIT_SECTION);
-        List<Edge> edges = new LinkedList<>();
-
-        for (String s : edgesString) {
-            Edge edge = createEdgeOutOfInput(s);
-            if (edges.contains(edge)) {
-                throw new SemanticsException(Errors.CANT_ADD_EDGE_WHICH_EXIST);
-            }
-            edges.add(edge);
-        }
-        return new EscapeNetwork(parameters.get(INDEX_OF_NAME), edges);
+    private static EscapeNetwork createEscapeNetwork(CommandArguments arguments) throws SemanticsException {
+        checkSections(arguments);
+        return new EscapeNetwork(arguments.getIdentifier(), arguments.getEdges());
     }
 }
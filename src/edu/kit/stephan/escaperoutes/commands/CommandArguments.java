@@ -0,0 +1,199 @@
+package edu.kit.stephan.escaperoutes.commands;
+
+import edu.kit.stephan.escaperoutes.graphs.Edge;
+import edu.kit.stephan.escaperoutes.graphs.Vertex;
+import edu.kit.stephan.escaperoutes.utilities.Pair;
+
+import java.util.List;
+
+/**
+ * This class describes the typed arguments of a parsed Command. Only the arguments of the parsed Command are set,
+ * every other argument is null.
+ * A semantic error, which was found while the sections were scanned, is not thrown by the parser but kept until
+ * the Command is executed, so the errors appear in the same order as they are checked.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see CommandParser
+ */
+public class CommandArguments {
+    private static final int INDEX_OF_SECTION = 0;
+    private String identifier;
+    private List<Edge> edges;
+    private Vertex startPoint;
+    private Vertex endPoint;
+    private List<Pair<Vertex, Vertex>> points;
+    private List<Vertex> startPoints;
+    private List<Vertex> endPoints;
+    private String solverName;
+    private String path;
+    private String semanticError;
+
+    /**
+     * Getter-Method
+     * @return the identifier of the escape network
+     */
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Getter-Method
+     * @return the sections of an add Command in the order of the input
+     */
+    public List<Edge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * Getter-Method
+     * @return the section of an add section Command
+     */
+    public Edge getEdge() {
+        return edges.get(INDEX_OF_SECTION);
+    }
+
+    /**
+     * Getter-Method
+     * @return the start point of a flow Command
+     */
+    public Vertex getStartPoint() {
+        return startPoint;
+    }
+
+    /**
+     * Getter-Method
+     * @return the end point of a flow Command
+     */
+    public Vertex getEndPoint() {
+        return endPoint;
+    }
+
+    /**
+     * Getter-Method
+     * @return the pairs of start and end point of a flows Command in the order of the input
+     */
+    public List<Pair<Vertex, Vertex>> getPoints() {
+        return points;
+    }
+
+    /**
+     * Getter-Method
+     * @return the start points of an evacuate Command, or null if every valid start point is used
+     */
+    public List<Vertex> getStartPoints() {
+        return startPoints;
+    }
+
+    /**
+     * Getter-Method
+     * @return the end points of an evacuate Command, or null if every valid end point is used
+     */
+    public List<Vertex> getEndPoints() {
+        return endPoints;
+    }
+
+    /**
+     * Getter-Method
+     * @return the name of the solver, or null if no solver was given
+     */
+    public String getSolverName() {
+        return solverName;
+    }
+
+    /**
+     * Getter-Method
+     * @return the path of the file of a load, export, save or restore Command
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Getter-Method
+     * @return the first semantic error of the sections, or null if there is none
+     */
+    public String getSemanticError() {
+        return semanticError;
+    }
+
+    /**
+     * Setter-Method
+     * @param identifier the identifier of the escape network
+     */
+    void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Setter-Method
+     * @param edges the sections of an add Command
+     */
+    void setEdges(List<Edge> edges) {
+        this.edges = edges;
+    }
+
+    /**
+     * Setter-Method
+     * @param startPoint the start point of a flow Command
+     */
+    void setStartPoint(Vertex startPoint) {
+        this.startPoint = startPoint;
+    }
+
+    /**
+     * Setter-Method
+     * @param endPoint the end point of a flow Command
+     */
+    void setEndPoint(Vertex endPoint) {
+        this.endPoint = endPoint;
+    }
+
+    /**
+     * Setter-Method
+     * @param points the pairs of start and end point of a flows Command
+     */
+    void setPoints(List<Pair<Vertex, Vertex>> points) {
+        this.points = points;
+    }
+
+    /**
+     * Setter-Method
+     * @param startPoints the start points of an evacuate Command, or null for every valid start point
+     */
+    void setStartPoints(List<Vertex> startPoints) {
+        this.startPoints = startPoints;
+    }
+
+    /**
+     * Setter-Method
+     * @param endPoints the end points of an evacuate Command, or null for every valid end point
+     */
+    void setEndPoints(List<Vertex> endPoints) {
+        this.endPoints = endPoints;
+    }
+
+    /**
+     * Setter-Method
+     * @param solverName the name of the solver
+     */
+    void setSolverName(String solverName) {
+        this.solverName = solverName;
+    }
+
+    /**
+     * Setter-Method
+     * @param path the path of the file of a load, export, save or restore Command
+     */
+    void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Setter-Method
+     * @param semanticError the first semantic error of the sections
+     */
+    void setSemanticError(String semanticError) {
+        this.semanticError = semanticError;
+    }
+}
@@ -2,16 +2,21 @@ package edu.kit.stephan.escaperoutes.commands;
 
 import edu.kit.stephan.escaperoutes.errors.Errors;
 import edu.kit.stephan.escaperoutes.errors.SyntaxException;
+import edu.kit.stephan.escaperoutes.graphs.Edge;
+import edu.kit.stephan.escaperoutes.graphs.Vertex;
+import edu.kit.stephan.escaperoutes.statistics.Statistics;
 import edu.kit.stephan.escaperoutes.utilities.Pair;
 
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 
 /**
  * This class represents a Command Parser, which has the purpose to check the Validation of the Syntax and handles
- * the conversion of the inputted String
+ * the conversion of the inputted String. The input is scanned character by character, so even very long lines are
+ * parsed in linear time.
  * @author Johannes Stephan
  * @version 1.0
  */
@@ -36,6 +41,18 @@ public class CommandParser implements CommandParserInterface {
      * String representation of flow Command
      */
     public static final String FLOW = "flow";
+    /**
+     * String representation of the flow Command for many pairs of Points
+     */
+    public static final String FLOWS = "flows";
+    /**
+     * String representation of the cut Command, which finds the minimum cut between two Points
+     */
+    public static final String CUT = "cut";
+    /**
+     * String representation of the evacuate Command, which finds the flow between sets of start and end points
+     */
+    public static final String EVACUATE = "evacuate";
     /**
      * String representation of list Command
      */
@@ -44,6 +61,14 @@ public class CommandParser implements CommandParserInterface {
      * String representation of Print Command
      */
     public static final String PRINT = "print";
+    /**
+     * String representation of the explain Command, which shows how the flows of a network are calculated
+     */
+    public static final String EXPLAIN = "explain";
+    /**
+     * String representation of Solver Command
+     */
+    public static final String SOLVER = "solver";
     /**
      * String representation of List all Networks
      */
@@ -52,48 +77,66 @@ public class CommandParser implements CommandParserInterface {
      * String representation of List all flow of a specific network
      */
     public static final String LIST_TWO = "listFlowOfNetwork";
+    /**
+     * String representation of the load Command, which loads a network out of a file
+     */
+    public static final String LOAD = "load";
+    /**
+     * String representation of the export Command, which writes a network into a file
+     */
+    public static final String EXPORT = "export";
+    /**
+     * String representation of the save Command, which writes a snapshot of all networks
+     */
+    public static final String SAVE = "save";
+    /**
+     * String representation of the restore Command, which restores the networks of a snapshot
+     */
+    public static final String RESTORE = "restore";
+    /**
+     * String representation of the stats Command, which shows the statistics
+     */
+    public static final String STATS = "stats";
     private static final char SPACE_CHAR = ' ';
-    private static final String REGEX_IDENTIFIER = "[A-Z]{1,6}";
-    private static final String REGEX_VERTEX = "[a-z]{1,6}";
-    private static final String REGEX_NUMBER = "[0]*[1-9][0-9]*";
     private static final char SECTION_SPLITTER = ';';
-    private static final String REGEX_SECTION = REGEX_VERTEX + REGEX_NUMBER + REGEX_VERTEX;
-    private static final String REGEX_ADD_NETWORK
-            = ADD + SPACE_CHAR + REGEX_IDENTIFIER + SPACE_CHAR
-            + "(" + REGEX_SECTION + SECTION_SPLITTER + ")++" + REGEX_SECTION;
-    private static final String REGEX_ADD_SECTION = ADD + SPACE_CHAR + REGEX_IDENTIFIER + SPACE_CHAR + REGEX_SECTION;
-    private static final String REGEX_PRINT = PRINT + SPACE_CHAR + REGEX_IDENTIFIER;
-    private static final String REGEX_FLOW = FLOW + SPACE_CHAR + REGEX_IDENTIFIER + SPACE_CHAR
-            + REGEX_VERTEX + SPACE_CHAR + REGEX_VERTEX;
-    private static final String REGEX_LIST_NETWORKS = LIST;
-    private static final String REGEX_LIST_NETWORK = LIST + SPACE_CHAR + REGEX_IDENTIFIER;
-
-
+    private static final char POINT_SPLITTER = ':';
+    private static final char ALL_POINTS = '*';
+    private static final int MAXIMUM_NAME_LENGTH = 6;
+    private static final int NO_ERROR = -1;
+    private String input;
+    private int position;
 
     /**
-     * Parses the inputted String to be handled more easily
+     * Parses the inputted String in a single pass without regular expressions. The syntax of the whole line is
+     * checked first, the sections are converted to Edges directly.
+     * A parser keeps the position in the current line, so it must not be shared by several threads.
      * @param inputUser The String which should be parsed
-     * @return Pair, which consists out of a Command and its Parameters
-     * @throws SyntaxException if the Regex is wrong, or the Command is not Valid and Error gets thrown.
+     * @return Pair, which consists out of a Command and its typed arguments
+     * @throws SyntaxException if the syntax is wrong, or the Command is not Valid and Error gets thrown.
      */
-    public Pair<String, List<String>> parseCommand(String inputUser) throws SyntaxException {
-        checkBasicRegex(inputUser);
-        String commandValue = inputUser.split(String.valueOf(SPACE_CHAR))[0];
-        String modifiedInput = inputUser.substring(commandValue.length());
-        return new Pair<>(checkCommand(commandValue, inputUser), createParameters(modifiedInput));
+    public Pair<Command, CommandArguments> parseCommand(String inputUser) throws SyntaxException {
+        long start = System.nanoTime();
+        try {
+            return scanCommand(inputUser);
+        } finally {
+            Statistics.PARSE.record(System.nanoTime() - start);
+        }
     }
 
     /**
-     * Creates the parameters and putts them in a specific String
-     * @param modifiedInput Input which consists out of Parameter which are separated by a white space.
-     * @return List of Parameters
+     * Scans the inputted String
+     * @param inputUser The String which should be parsed
+     * @return Pair, which consists out of a Command and its typed arguments
+     * @throws SyntaxException if the syntax is wrong, or the Command is not Valid and Error gets thrown.
      */
-    private List<String> createParameters(String modifiedInput) {
-        if (modifiedInput.isEmpty()) {
-            return new LinkedList<>();
-        }
-        String[] outputAsStringArray = modifiedInput.split(String.valueOf(SPACE_CHAR));
-        return new LinkedList<>(Arrays.asList(outputAsStringArray));
+    private Pair<Command, CommandArguments> scanCommand(String inputUser) throws SyntaxException {
+        checkBasicRegex(inputUser);
+        this.input = inputUser;
+        this.position = 0;
+        CommandArguments arguments = new CommandArguments();
+        Command command = checkCommand(scanCommandName(), arguments);
+        if (position != input.length()) throw new SyntaxException(Errors.SYNTAX_ERROR);
+        return new Pair<>(command, arguments);
     }
 
     /**
@@ -107,45 +150,314 @@ public class CommandParser implements CommandParserInterface {
     }
 
     /**
-     * Checks the Regex of each Command and throws an Error if the Regex does not match
-     * @param command The first String which should be checked if its an valid command
-     * @param inputUser the inputted User String
+     * Scans the arguments of each Command and throws an Error if the syntax does not match
+     * @param command The first word of the input
+     * @param arguments the arguments which are filled
      * @return the valid command
-     * @throws SyntaxException if command does not match the Regex or is not implemented it throws an Error
+     * @throws SyntaxException if the syntax is wrong or the command is not implemented it throws an Error
      */
-    private String checkCommand(String command, String inputUser) throws SyntaxException {
-
+    private Command checkCommand(String command, CommandArguments arguments) throws SyntaxException {
         switch (command) {
             case ADD:
-                if (inputUser.matches(REGEX_ADD_NETWORK)) return ADD_NETWORK;
-                if (inputUser.matches(REGEX_ADD_SECTION)) return ADD_SECTION;
-                throw new SyntaxException(Errors.SYNTAX_ERROR);
+                return scanAdd(arguments);
             case PRINT:
-                if (inputUser.matches(REGEX_PRINT)) {
-                    return PRINT;
-                }
-                throw new SyntaxException(Errors.SYNTAX_ERROR);
+                scanIdentifierArgument(arguments);
+                return Command.PRINT;
+            case EXPLAIN:
+                scanIdentifierArgument(arguments);
+                return Command.EXPLAIN;
             case FLOW:
-                if (inputUser.matches(REGEX_FLOW)) {
-                    return FLOW;
-                }
-                throw new SyntaxException(Errors.SYNTAX_ERROR);
+                scanIdentifierArgument(arguments);
+                scanSpace();
+                arguments.setStartPoint(scanVertex());
+                scanSpace();
+                arguments.setEndPoint(scanVertex());
+                scanOptionalSolverName(arguments);
+                return Command.FLOW;
+            case CUT:
+                scanIdentifierArgument(arguments);
+                scanSpace();
+                arguments.setStartPoint(scanVertex());
+                scanSpace();
+                arguments.setEndPoint(scanVertex());
+                scanOptionalSolverName(arguments);
+                return Command.CUT;
+            case FLOWS:
+                scanIdentifierArgument(arguments);
+                scanSpace();
+                arguments.setPoints(scanPointPairs());
+                scanOptionalSolverName(arguments);
+                return Command.FLOWS;
+            case EVACUATE:
+                scanIdentifierArgument(arguments);
+                scanSpace();
+                arguments.setStartPoints(scanPointSet());
+                scanSpace();
+                arguments.setEndPoints(scanPointSet());
+                scanOptionalSolverName(arguments);
+                return Command.EVACUATE;
             case LIST:
-                if (inputUser.matches(REGEX_LIST_NETWORKS)) {
-                    return LIST_ONE;
-                }
-                if (inputUser.matches(REGEX_LIST_NETWORK)) {
-                    return LIST_TWO;
+                if (position == input.length()) {
+                    return Command.LIST_ALL_NETWORKS;
                 }
-                throw new SyntaxException(Errors.SYNTAX_ERROR);
-
+                scanIdentifierArgument(arguments);
+                return Command.LIST_SPECIFIC_NETWORK;
+            case SOLVER:
+                scanIdentifierArgument(arguments);
+                scanSpace();
+                arguments.setSolverName(scanSolverName());
+                return Command.SET_SOLVER;
+            case LOAD:
+                scanIdentifierArgument(arguments);
+                scanSpace();
+                arguments.setPath(scanPath());
+                return Command.LOAD;
+            case EXPORT:
+                scanIdentifierArgument(arguments);
+                scanSpace();
+                arguments.setPath(scanPath());
+                return Command.EXPORT;
+            case SAVE:
+                scanSpace();
+                arguments.setPath(scanPath());
+                return Command.SAVE;
+            case RESTORE:
+                scanSpace();
+                arguments.setPath(scanPath());
+                return Command.RESTORE;
+            case STATS:
+                return Command.STATS;
             case QUIT:
-                if (inputUser.matches(QUIT)) {
-                    return QUIT;
-                }
-                throw new SyntaxException(Errors.SYNTAX_ERROR);
+                return Command.QUIT;
             default:
                 throw new SyntaxException(Errors.COMMAND_DOES_NOT_EXIST);
         }
     }
+
+    /**
+     * Scans the arguments of an add Command. Two or more sections add a network, a single section is added to an
+     * existent network. The first semantic error of the sections is kept in the arguments.
+     * @param arguments the arguments which are filled
+     * @return the add network or the add section Command
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private Command scanAdd(CommandArguments arguments) throws SyntaxException {
+        scanIdentifierArgument(arguments);
+        scanSpace();
+        List<Edge> edges = new ArrayList<>();
+        int firstErrorSection = NO_ERROR;
+        do {
+            String semanticError = scanSection(edges);
+            if (semanticError != null && firstErrorSection == NO_ERROR) {
+                firstErrorSection = edges.size() - 1;
+                arguments.setSemanticError(semanticError);
+            }
+        } while (accept(SECTION_SPLITTER));
+        arguments.setEdges(edges);
+        if (edges.size() == 1) {
+            return Command.ADD_SECTION;
+        }
+        checkDuplicates(edges, firstErrorSection == NO_ERROR ? edges.size() : firstErrorSection, arguments);
+        return Command.ADD_NETWORK;
+    }
+
+    /**
+     * Checks if a section of a new network exists twice, before the first section with another semantic error
+     * @param edges the sections
+     * @param numberOfCheckedSections the number of sections which are checked
+     * @param arguments the arguments which get the error
+     */
+    private static void checkDuplicates(List<Edge> edges, int numberOfCheckedSections, CommandArguments arguments) {
+        Set<Edge> uniqueEdges = new HashSet<>(edges.size() * 2);
+        for (int i = 0; i < numberOfCheckedSections; i++) {
+            if (!uniqueEdges.add(edges.get(i))) {
+                arguments.setSemanticError(Errors.CANT_ADD_EDGE_WHICH_EXIST);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scans a section, which is an origin, a capacity and a destination, and adds it as Edge
+     * @param edges the list of sections
+     * @return the semantic error of the section, or null if it is valid
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private String scanSection(List<Edge> edges) throws SyntaxException {
+        Vertex origin = scanVertex();
+        long capacity = 0;
+        boolean isNotZero = false;
+        int start = position;
+        while (position < input.length() && isDigit(input.charAt(position))) {
+            int digit = input.charAt(position++) - '0';
+            isNotZero |= digit != 0;
+            if (capacity <= Integer.MAX_VALUE) capacity = capacity * 10 + digit;
+        }
+        if (position == start || !isNotZero) throw new SyntaxException(Errors.SYNTAX_ERROR);
+        Vertex destination = scanVertex();
+        edges.add(new Edge(origin, destination, (int) Math.min(capacity, Integer.MAX_VALUE)));
+        if (origin.equals(destination)) return Errors.LOOPS_NOT_ALLOWED;
+        if (capacity > Integer.MAX_VALUE) return Errors.CAPACITY_IS_NOT_A_INT;
+        return null;
+    }
+
+    /**
+     * Scans the pairs of start and end point of a flows Command, which are separated by semicolons
+     * @return the pairs in the order of the input
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private List<Pair<Vertex, Vertex>> scanPointPairs() throws SyntaxException {
+        List<Pair<Vertex, Vertex>> points = new ArrayList<>();
+        do {
+            Vertex start = scanVertex();
+            if (!accept(POINT_SPLITTER)) throw new SyntaxException(Errors.SYNTAX_ERROR);
+            points.add(new Pair<>(start, scanVertex()));
+        } while (accept(SECTION_SPLITTER));
+        return points;
+    }
+
+    /**
+     * Scans the points of an evacuate Command, which are separated by semicolons, or a star for every valid point
+     * @return the points in the order of the input, or null for every valid point
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private List<Vertex> scanPointSet() throws SyntaxException {
+        if (accept(ALL_POINTS)) return null;
+        List<Vertex> points = new ArrayList<>();
+        do {
+            points.add(scanVertex());
+        } while (accept(SECTION_SPLITTER));
+        return points;
+    }
+
+    /**
+     * Scans the first word of the input
+     * @return the first word
+     */
+    private String scanCommandName() {
+        int end = input.indexOf(SPACE_CHAR);
+        position = end < 0 ? input.length() : end;
+        return input.substring(0, position);
+    }
+
+    /**
+     * Scans a space followed by the identifier of an escape network, which consists of one to six upper case
+     * letters
+     * @param arguments the arguments which get the identifier
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private void scanIdentifierArgument(CommandArguments arguments) throws SyntaxException {
+        scanSpace();
+        int start = position;
+        while (position < input.length() && position - start < MAXIMUM_NAME_LENGTH
+                && isUpperCase(input.charAt(position))) {
+            position++;
+        }
+        if (position == start) throw new SyntaxException(Errors.SYNTAX_ERROR);
+        arguments.setIdentifier(input.substring(start, position));
+    }
+
+    /**
+     * Scans the name of a Vertex, which consists of one to six lower case letters
+     * @return the Vertex
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private Vertex scanVertex() throws SyntaxException {
+        int start = position;
+        while (position < input.length() && position - start < MAXIMUM_NAME_LENGTH
+                && isLowerCase(input.charAt(position))) {
+            position++;
+        }
+        if (position == start) throw new SyntaxException(Errors.SYNTAX_ERROR);
+        return new Vertex(input.substring(start, position));
+    }
+
+    /**
+     * Scans the path of a file, which is the rest of the input
+     * @return the path
+     * @throws SyntaxException if the path is empty
+     */
+    private String scanPath() throws SyntaxException {
+        if (position == input.length()) throw new SyntaxException(Errors.SYNTAX_ERROR);
+        String path = input.substring(position);
+        position = input.length();
+        return path;
+    }
+
+    /**
+     * Scans a space followed by the name of a solver, if the input is not finished
+     * @param arguments the arguments which get the name of the solver
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private void scanOptionalSolverName(CommandArguments arguments) throws SyntaxException {
+        if (position == input.length()) return;
+        scanSpace();
+        arguments.setSolverName(scanSolverName());
+    }
+
+    /**
+     * Scans the name of a solver, which starts with a lower case letter followed by any letters
+     * @return the name of the solver
+     * @throws SyntaxException if the syntax is wrong
+     */
+    private String scanSolverName() throws SyntaxException {
+        int start = position;
+        if (position == input.length() || !isLowerCase(input.charAt(position))) {
+            throw new SyntaxException(Errors.SYNTAX_ERROR);
+        }
+        position++;
+        while (position < input.length()
+                && (isLowerCase(input.charAt(position)) || isUpperCase(input.charAt(position)))) {
+            position++;
+        }
+        return input.substring(start, position);
+    }
+
+    /**
+     * Scans a single space
+     * @throws SyntaxException if the next character is not a space
+     */
+    private void scanSpace() throws SyntaxException {
+        if (!accept(SPACE_CHAR)) throw new SyntaxException(Errors.SYNTAX_ERROR);
+    }
+
+    /**
+     * Skips the next character, if it is the expected one
+     * @param expected the expected character
+     * @return true, if the character was skipped; false, if not
+     */
+    private boolean accept(char expected) {
+        if (position < input.length() && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a character is a lower case letter of the alphabet
+     * @param character the character
+     * @return true, if it is between a and z; false, if not
+     */
+    private static boolean isLowerCase(char character) {
+        return character >= 'a' && character <= 'z';
+    }
+
+    /**
+     * Checks if a character is an upper case letter of the alphabet
+     * @param character the character
+     * @return true, if it is between A and Z; false, if not
+     */
+    private static boolean isUpperCase(char character) {
+        return character >= 'A' && character <= 'Z';
+    }
+
+    /**
+     * Checks if a character is a digit
+     * @param character the character
+     * @return true, if it is between 0 and 9; false, if not
+     */
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
 }
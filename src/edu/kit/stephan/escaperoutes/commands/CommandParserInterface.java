@@ -4,11 +4,9 @@ package edu.kit.stephan.escaperoutes.commands;
 import edu.kit.stephan.escaperoutes.errors.SyntaxException;
 import edu.kit.stephan.escaperoutes.utilities.Pair;
 
-import java.util.List;
-
 /**
  * This interface describes a parser for commands.
- * The parser parses a string into a command name and a List of parameters.
+ * The parser parses a string into a command and its typed arguments.
  *
  * @author Lucas Alber
  * @author Johannes Stephan
@@ -16,12 +14,12 @@ import java.util.List;
  */
 public interface CommandParserInterface {
     /**
-     * Parses the given string into a {@link Pair} of command name and a List of parameters.
+     * Parses the given string into a {@link Pair} of command and arguments.
      *
      * @param input the input string
-     * @return a {@link Pair} of command name and a List of parameters as string representation.
+     * @return a {@link Pair} of command and its typed arguments.
      * Returns the parsed String
      * @throws SyntaxException if the String could not be parsed
      */
-    Pair<String, List<String>> parseCommand(String input) throws SyntaxException;
+    Pair<Command, CommandArguments> parseCommand(String input) throws SyntaxException;
 }
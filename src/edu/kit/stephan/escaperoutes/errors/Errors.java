@@ -74,6 +74,71 @@ public final class Errors {
      */
     public static final String LOOPS_NOT_ALLOWED = "Loops are not allowed";
 
+    /**
+     * Gets thrown when two Vertices of loaded sections have the same name
+     */
+    public static final String VERTEX_NAME_EXISTS = "Two vertices have the same name";
+
+    /**
+     * Gets thrown when the requested solver does not exist
+     */
+    public static final String SOLVER_DOES_NOT_EXIST = "The solver does not exist";
+
+    /**
+     * Gets thrown when the file of a batch session can't be read
+     */
+    public static final String FILE_NOT_READABLE = "The command file can't be read";
+
+    /**
+     * Gets printed when a stage of the batch execution failed and the remaining commands were not executed
+     */
+    public static final String BATCH_ABORTED = "The batch was aborted, the remaining commands were not executed";
+
+    /**
+     * Gets thrown when the file of a loaded network can't be read
+     */
+    public static final String NETWORK_FILE_NOT_READABLE = "The network file can't be read";
+
+    /**
+     * Gets thrown when the file of an exported network can't be written
+     */
+    public static final String NETWORK_FILE_NOT_WRITABLE = "The network file can't be written";
+
+    /**
+     * Gets thrown when the file of a loaded network has an invalid format
+     */
+    public static final String NETWORK_FILE_INVALID = "The network file has an invalid format";
+
+    /**
+     * Gets thrown when a snapshot of the database can't be read
+     */
+    public static final String SNAPSHOT_NOT_READABLE = "The snapshot can't be read";
+
+    /**
+     * Gets thrown when a snapshot of the database can't be written
+     */
+    public static final String SNAPSHOT_NOT_WRITABLE = "The snapshot can't be written";
+
+    /**
+     * Gets thrown when a snapshot has an invalid format or another version
+     */
+    public static final String SNAPSHOT_INVALID = "The snapshot has an invalid format or version";
+
+    /**
+     * Gets thrown when the journal of the database can't be read or replayed
+     */
+    public static final String JOURNAL_NOT_READABLE = "The journal can't be read";
+
+    /**
+     * Gets thrown when a change can't be appended to the journal of the database
+     */
+    public static final String JOURNAL_NOT_WRITABLE = "The journal can't be written";
+
+    /**
+     * Gets printed when the number of threads of the parallel option is not a positive integer
+     */
+    public static final String NUMBER_OF_THREADS_INVALID = "The number of threads has to be a positive integer";
+
     /**
      * Error-Message if something was not implemented, but should
      */
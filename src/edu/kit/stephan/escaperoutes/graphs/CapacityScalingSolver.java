@@ -0,0 +1,138 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+import edu.kit.stephan.escaperoutes.statistics.RecorderEvent;
+
+import java.util.Arrays;
+
+/**
+ * This class calculates the maximum flow with capacity scaling. Each phase augments along shortest paths which
+ * only use arcs with a residual capacity of at least the threshold, then the threshold is halved. A phase augments
+ * at most twice per section, so the number of augmenting paths is bounded by O(E * log(U)) no matter how small and
+ * large capacities are mixed.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see MaxFlowSolver
+ */
+public class CapacityScalingSolver implements MaxFlowSolver {
+    private static final int NOT_VISITED = -1;
+
+    /**
+     * Calculates the maximum flow between two Vertices
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated by the calculation
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return the value of the maximum flow
+     */
+    @Override
+    public long calculateMaxFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+        int[] parentArcs = new int[residualNetwork.getNumberOfVertices()];
+        int[] vertexQueue = new int[residualNetwork.getNumberOfVertices()];
+        long output = 0;
+        long paths = 0;
+
+        for (int threshold = findHighestThreshold(residualNetwork, residualCapacities, source); threshold > 0;
+             threshold >>>= 1) {
+            while (breadthFirstSearch(residualNetwork, residualCapacities, parentArcs, vertexQueue, source, sink,
+                    threshold)) {
+                output += augment(residualNetwork, residualCapacities, parentArcs, source, sink);
+                paths++;
+            }
+        }
+        Counter.AUGMENTING_PATHS.add(paths);
+        RecorderEvent.addAugmentations(paths);
+        return output;
+    }
+
+    /**
+     * Finds the first threshold, the highest power of two which is not above the residual capacity of an arc
+     * leaving the start point
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param source             the index of the start Vertex
+     * @return the threshold, or zero if no arc leaving the start point has residual capacity
+     */
+    private int findHighestThreshold(ResidualNetwork residualNetwork, int[] residualCapacities, int source) {
+        int[] offsets = residualNetwork.getOffsets();
+        int highestCapacity = 0;
+        for (int arc = offsets[source]; arc < offsets[source + 1]; arc++) {
+            highestCapacity = Math.max(highestCapacity, residualCapacities[arc]);
+        }
+        return Integer.highestOneBit(highestCapacity);
+    }
+
+    /**
+     * Finds a shortest path between two Points which only uses arcs with a residual capacity of at least the
+     * threshold, and stores it as the arcs leading to each Vertex
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param parentArcs         the array in which the arc leading to each reached Vertex is stored
+     * @param vertexQueue        the array which is used as queue of the search
+     * @param source             the start point
+     * @param sink               the end point
+     * @param threshold          the lowest residual capacity of a used arc
+     * @return true, if the end point was reached; false, if not
+     */
+    private boolean breadthFirstSearch(ResidualNetwork residualNetwork, int[] residualCapacities, int[] parentArcs,
+                                       int[] vertexQueue, int source, int sink, int threshold) {
+        int[] offsets = residualNetwork.getOffsets();
+        int[] targets = residualNetwork.getTargets();
+        Arrays.fill(parentArcs, NOT_VISITED);
+        int head = 0;
+        int tail = 0;
+        long edgesScanned = 0;
+        vertexQueue[tail++] = source;
+        parentArcs[source] = offsets[source];
+        Counter.BFS_RUNS.increment();
+
+        while (head < tail) {
+            int current = vertexQueue[head++];
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                int target = targets[arc];
+                if (parentArcs[target] == NOT_VISITED && residualCapacities[arc] >= threshold) {
+                    parentArcs[target] = arc;
+                    if (target == sink) {
+                        Counter.VERTICES_SCANNED.add(head);
+                        Counter.EDGES_SCANNED.add(edgesScanned + arc - offsets[current] + 1);
+                        return true;
+                    }
+                    vertexQueue[tail++] = target;
+                }
+            }
+            edgesScanned += offsets[current + 1] - offsets[current];
+        }
+        Counter.VERTICES_SCANNED.add(head);
+        Counter.EDGES_SCANNED.add(edgesScanned);
+        return false;
+    }
+
+    /**
+     * Sends the bottleneck capacity along the found path
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param parentArcs         the arcs of the found path
+     * @param source             the start Point
+     * @param sink               the end Point
+     * @return the flow which was sent
+     */
+    private int augment(ResidualNetwork residualNetwork, int[] residualCapacities, int[] parentArcs,
+                        int source, int sink) {
+        int[] targets = residualNetwork.getTargets();
+        int[] reverseArcs = residualNetwork.getReverseArcs();
+        int flow = Integer.MAX_VALUE;
+        for (int current = sink; current != source; current = targets[reverseArcs[parentArcs[current]]]) {
+            flow = Math.min(flow, residualCapacities[parentArcs[current]]);
+        }
+        for (int current = sink; current != source; current = targets[reverseArcs[parentArcs[current]]]) {
+            residualCapacities[parentArcs[current]] -= flow;
+            residualCapacities[reverseArcs[parentArcs[current]]] += flow;
+        }
+        return flow;
+    }
+}
@@ -0,0 +1,514 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.errors.Errors;
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class saves all EscapeNetworks of a database into a binary snapshot and restores them. The snapshot starts
+ * with a header, followed by the table of all Vertex names, a directory with a fixed size entry per network and the
+ * bodies of the networks. A body holds the indices of its Vertices in the table, the sections as origin,
+ * destination and capacity, and the calculated Flows. All numbers are big endian.
+ * A restored snapshot is memory mapped and only the header, the table and the directory are read, the body of a
+ * network is decoded when the network is used for the first time.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see EscapeNetworkDatabase
+ */
+final class DatabaseSnapshot {
+    private static final int MAGIC_NUMBER = 0x45534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int NAME_RECORD_SIZE = 8;
+    private static final int DIRECTORY_RECORD_SIZE = NAME_RECORD_SIZE + 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int SECTION_SIZE = 3 * Integer.BYTES;
+    private static final int FLOW_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final int MAXIMUM_NAME_LENGTH = 6;
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Utility class constructor
+     */
+    private DatabaseSnapshot() {
+        throw new IllegalStateException("Utility-class constructor.");
+    }
+
+    /**
+     * Saves EscapeNetworks into a snapshot. The file is written next to the path first and then moved onto it, so
+     * an older snapshot at the path stays intact until the new one is complete, even if it is still mapped.
+     * Restored networks which were not used yet are copied without decoding them.
+     *
+     * @param escapeNetworks   the used EscapeNetworks
+     * @param restoredNetworks the restored EscapeNetworks which were not used yet
+     * @param path             the file
+     * @throws SemanticsException if the file can't be written
+     */
+    static void save(List<EscapeNetwork> escapeNetworks, List<RestoredNetwork> restoredNetworks, Path path)
+            throws SemanticsException {
+        Map<Vertex, Integer> vertexIndices = new HashMap<>();
+        List<Vertex> vertices = new ArrayList<>();
+        List<SavedNetwork> savedNetworks = new ArrayList<>();
+        for (EscapeNetwork escapeNetwork : escapeNetworks) {
+            escapeNetwork.getLock().readLock().lock();
+            try {
+                savedNetworks.add(new SavedNetwork(escapeNetwork, vertexIndices, vertices));
+            } finally {
+                escapeNetwork.getLock().readLock().unlock();
+            }
+        }
+        for (RestoredNetwork restoredNetwork : restoredNetworks) {
+            savedNetworks.add(new SavedNetwork(restoredNetwork, vertexIndices, vertices));
+        }
+
+        Path fileName = path.getFileName();
+        if (fileName == null) throw new SemanticsException(Errors.SNAPSHOT_NOT_WRITABLE);
+        Path temporaryPath = path.resolveSibling(fileName + TEMPORARY_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                        Channels.newOutputStream(channel), COPY_BUFFER_SIZE));
+                write(output, vertices, savedNetworks);
+                output.flush();
+                channel.force(true);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Path directory = path.toAbsolutePath().getParent();
+            if (directory != null) Journal.syncDirectory(directory);
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.SNAPSHOT_NOT_WRITABLE);
+        } finally {
+            deleteTemporaryFile(temporaryPath);
+        }
+    }
+
+    /**
+     * Deletes the temporary file of a failed save, after a successful save it was already moved
+     *
+     * @param temporaryPath the temporary file
+     */
+    private static void deleteTemporaryFile(Path temporaryPath) {
+        try {
+            Files.deleteIfExists(temporaryPath);
+        } catch (IOException e) {
+            // the file is overwritten by the next save
+        }
+    }
+
+    /**
+     * Writes the snapshot
+     *
+     * @param output        the file
+     * @param vertices      the Vertices by their index in the table
+     * @param savedNetworks the networks
+     * @throws IOException if the file can't be written
+     */
+    private static void write(DataOutputStream output, List<Vertex> vertices, List<SavedNetwork> savedNetworks)
+            throws IOException {
+        output.writeInt(MAGIC_NUMBER);
+        output.writeInt(VERSION);
+        output.writeInt(vertices.size());
+        output.writeInt(savedNetworks.size());
+        for (Vertex vertex : vertices) {
+            writeName(output, vertex.toString());
+        }
+        long offset = HEADER_SIZE + (long) vertices.size() * NAME_RECORD_SIZE
+                + (long) savedNetworks.size() * DIRECTORY_RECORD_SIZE;
+        for (SavedNetwork savedNetwork : savedNetworks) {
+            writeName(output, savedNetwork.uniqueIdentifier);
+            output.writeInt(savedNetwork.numberOfVertices);
+            output.writeInt(savedNetwork.solverType.ordinal());
+            output.writeLong(offset);
+            output.writeLong(savedNetwork.getBodySize());
+            offset += savedNetwork.getBodySize();
+        }
+        for (SavedNetwork savedNetwork : savedNetworks) {
+            savedNetwork.writeBody(output);
+        }
+    }
+
+    /**
+     * Writes a name of at most six characters into a record of fixed size
+     *
+     * @param output the file
+     * @param name   the name
+     * @throws IOException if the file can't be written
+     */
+    private static void writeName(DataOutputStream output, String name) throws IOException {
+        output.writeByte(name.length());
+        output.writeBytes(name);
+        for (int i = name.length() + 1; i < NAME_RECORD_SIZE; i++) {
+            output.writeByte(0);
+        }
+    }
+
+    /**
+     * Restores the EscapeNetworks of a snapshot. Only the header, the table of the Vertices and the directory are
+     * read, every body is mapped but not decoded.
+     *
+     * @param path the file
+     * @return the restored networks, which are decoded on their first use
+     * @throws SemanticsException if the file can't be read or is not a snapshot of this version
+     */
+    static List<RestoredNetwork> restore(Path path) throws SemanticsException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC_NUMBER || header.getInt() != VERSION) {
+                throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+            }
+            int numberOfVertices = header.getInt();
+            int numberOfNetworks = header.getInt();
+            long tableSize = (long) numberOfVertices * NAME_RECORD_SIZE;
+            long directorySize = (long) numberOfNetworks * DIRECTORY_RECORD_SIZE;
+            if (numberOfVertices < 0 || numberOfNetworks < 0 || tableSize > Integer.MAX_VALUE
+                    || directorySize > Integer.MAX_VALUE || HEADER_SIZE + tableSize + directorySize > size) {
+                throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+            }
+            VertexTable vertexTable
+                    = new VertexTable(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, tableSize));
+            ByteBuffer directory
+                    = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + tableSize, directorySize);
+
+            List<RestoredNetwork> restoredNetworks = new ArrayList<>();
+            Set<String> uniqueIdentifiers = new HashSet<>();
+            for (int i = 0; i < numberOfNetworks; i++) {
+                String uniqueIdentifier = readName(directory, i * DIRECTORY_RECORD_SIZE, 'A', 'Z');
+                directory.position(i * DIRECTORY_RECORD_SIZE + NAME_RECORD_SIZE);
+                int numberOfNetworkVertices = directory.getInt();
+                int solverIndex = directory.getInt();
+                long offset = directory.getLong();
+                long bodySize = directory.getLong();
+                if (uniqueIdentifier == null || !uniqueIdentifiers.add(uniqueIdentifier)
+                        || solverIndex < 0 || solverIndex >= SolverType.values().length
+                        || offset < 0 || bodySize < 0 || bodySize > Integer.MAX_VALUE || offset + bodySize > size) {
+                    throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+                }
+                restoredNetworks.add(new RestoredNetwork(uniqueIdentifier, numberOfNetworkVertices,
+                        SolverType.values()[solverIndex], vertexTable,
+                        channel.map(FileChannel.MapMode.READ_ONLY, offset, bodySize)));
+            }
+            return restoredNetworks;
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.SNAPSHOT_NOT_READABLE);
+        }
+    }
+
+    /**
+     * Reads a name out of a record of fixed size
+     *
+     * @param buffer       the mapped file
+     * @param position     the position of the record
+     * @param firstLetter  the first allowed letter
+     * @param lastLetter   the last allowed letter
+     * @return the name, or null if it is not a valid name
+     */
+    private static String readName(ByteBuffer buffer, int position, char firstLetter, char lastLetter) {
+        int length = buffer.get(position);
+        if (length < 1 || length > MAXIMUM_NAME_LENGTH) return null;
+        byte[] name = new byte[length];
+        for (int i = 0; i < length; i++) {
+            name[i] = buffer.get(position + 1 + i);
+            if (name[i] < firstLetter || name[i] > lastLetter) return null;
+        }
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * This class describes a network while it is saved
+     */
+    private static final class SavedNetwork {
+        private final String uniqueIdentifier;
+        private final int numberOfVertices;
+        private final SolverType solverType;
+        private final int[] vertexIndices;
+        private final ResidualNetwork residualNetwork;
+        private final List<Flow> flows;
+        private final ByteBuffer restoredSectionsAndFlows;
+
+        /**
+         * Constructor of a used network, whose read lock is held
+         *
+         * @param escapeNetwork the network
+         * @param indices       the indices of the Vertices in the table
+         * @param vertices      the Vertices by their index in the table
+         */
+        private SavedNetwork(EscapeNetwork escapeNetwork, Map<Vertex, Integer> indices, List<Vertex> vertices) {
+            this.uniqueIdentifier = escapeNetwork.getUniqueIdentifier();
+            this.solverType = escapeNetwork.getSolverType();
+            this.residualNetwork = escapeNetwork.getResidualNetwork();
+            this.flows = escapeNetwork.getFlows();
+            this.numberOfVertices = residualNetwork.getNumberOfVertices();
+            this.vertexIndices = new int[numberOfVertices];
+            for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+                vertexIndices[vertex] = intern(residualNetwork.getVertex(vertex), indices, vertices);
+            }
+            this.restoredSectionsAndFlows = null;
+        }
+
+        /**
+         * Constructor of a restored network, which was not used yet
+         *
+         * @param restoredNetwork the network
+         * @param indices         the indices of the Vertices in the table
+         * @param vertices        the Vertices by their index in the table
+         * @throws SemanticsException if the body of the network is invalid
+         */
+        private SavedNetwork(RestoredNetwork restoredNetwork, Map<Vertex, Integer> indices, List<Vertex> vertices)
+                throws SemanticsException {
+            this.uniqueIdentifier = restoredNetwork.getUniqueIdentifier();
+            this.numberOfVertices = restoredNetwork.getNumberOfVertices();
+            this.solverType = restoredNetwork.solverType;
+            this.residualNetwork = null;
+            this.flows = null;
+            ByteBuffer body = restoredNetwork.body.duplicate();
+            try {
+                this.vertexIndices = new int[body.getInt()];
+                for (int vertex = 0; vertex < vertexIndices.length; vertex++) {
+                    vertexIndices[vertex]
+                            = intern(restoredNetwork.vertexTable.getVertex(body.getInt()), indices, vertices);
+                }
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+            }
+            this.restoredSectionsAndFlows = body.slice();
+        }
+
+        /**
+         * Gets the index of a Vertex in the table, a new Vertex is added to the table
+         *
+         * @param vertex   the Vertex
+         * @param indices  the indices of the Vertices in the table
+         * @param vertices the Vertices by their index in the table
+         * @return the index
+         */
+        private static int intern(Vertex vertex, Map<Vertex, Integer> indices, List<Vertex> vertices) {
+            Integer index = indices.get(vertex);
+            if (index == null) {
+                index = vertices.size();
+                indices.put(vertex, index);
+                vertices.add(vertex);
+            }
+            return index;
+        }
+
+        /**
+         * Getter-Method
+         *
+         * @return the size of the body in bytes
+         */
+        private long getBodySize() {
+            long size = Integer.BYTES + (long) vertexIndices.length * Integer.BYTES;
+            if (restoredSectionsAndFlows != null) return size + restoredSectionsAndFlows.capacity();
+            return size + Integer.BYTES + (long) residualNetwork.getNumberOfSections() * SECTION_SIZE
+                    + Integer.BYTES + (long) flows.size() * FLOW_SIZE;
+        }
+
+        /**
+         * Writes the body
+         *
+         * @param output the file
+         * @throws IOException if the file can't be written
+         */
+        private void writeBody(DataOutputStream output) throws IOException {
+            output.writeInt(vertexIndices.length);
+            for (int vertexIndex : vertexIndices) {
+                output.writeInt(vertexIndex);
+            }
+            if (restoredSectionsAndFlows != null) {
+                ByteBuffer sectionsAndFlows = restoredSectionsAndFlows.duplicate();
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                while (sectionsAndFlows.hasRemaining()) {
+                    int length = Math.min(buffer.length, sectionsAndFlows.remaining());
+                    sectionsAndFlows.get(buffer, 0, length);
+                    output.write(buffer, 0, length);
+                }
+                return;
+            }
+            int[] targets = residualNetwork.getTargets();
+            int[] reverseArcs = residualNetwork.getReverseArcs();
+            output.writeInt(residualNetwork.getNumberOfSections());
+            for (int section = 0; section < residualNetwork.getNumberOfSections(); section++) {
+                int arc = residualNetwork.getSectionArc(section);
+                output.writeInt(targets[reverseArcs[arc]]);
+                output.writeInt(targets[arc]);
+                output.writeInt(residualNetwork.getCapacity(arc));
+            }
+            output.writeInt(flows.size());
+            for (Flow flow : flows) {
+                output.writeInt(residualNetwork.getIndex(flow.getStartVertex()));
+                output.writeInt(residualNetwork.getIndex(flow.getEndVertex()));
+                output.writeLong(flow.getFlowValue());
+            }
+        }
+    }
+
+    /**
+     * This class describes the mapped table of all Vertex names of a snapshot. Every Vertex is created once and
+     * shared by all networks of the snapshot.
+     */
+    private static final class VertexTable {
+        private final ByteBuffer names;
+        private final Vertex[] vertices;
+
+        /**
+         * Constructor
+         *
+         * @param names the mapped table
+         */
+        private VertexTable(ByteBuffer names) {
+            this.names = names;
+            this.vertices = new Vertex[names.capacity() / NAME_RECORD_SIZE];
+        }
+
+        /**
+         * Gets a Vertex of the table. Two threads may create the same Vertex, which does not matter because Vertices
+         * are immutable and compared by their name.
+         *
+         * @param index the index of the Vertex
+         * @return the Vertex
+         * @throws SemanticsException if the index or the name is invalid
+         */
+        private Vertex getVertex(int index) throws SemanticsException {
+            if (index < 0 || index >= vertices.length) throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+            Vertex vertex = vertices[index];
+            if (vertex == null) {
+                String name = readName(names, index * NAME_RECORD_SIZE, 'a', 'z');
+                if (name == null) throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+                vertex = new Vertex(name);
+                vertices[index] = vertex;
+            }
+            return vertex;
+        }
+    }
+
+    /**
+     * This class describes a restored EscapeNetwork, whose body is decoded out of the mapped snapshot when it is
+     * used for the first time
+     */
+    static final class RestoredNetwork {
+        private final String uniqueIdentifier;
+        private final int numberOfVertices;
+        private final SolverType solverType;
+        private final VertexTable vertexTable;
+        private final ByteBuffer body;
+        private EscapeNetwork escapeNetwork;
+
+        /**
+         * Constructor
+         *
+         * @param uniqueIdentifier the name of the network
+         * @param numberOfVertices the number of Vertices of the network
+         * @param solverType       the algorithm of the network
+         * @param vertexTable      the table of all Vertex names
+         * @param body             the mapped body of the network
+         */
+        private RestoredNetwork(String uniqueIdentifier, int numberOfVertices, SolverType solverType,
+                                VertexTable vertexTable, ByteBuffer body) {
+            this.uniqueIdentifier = uniqueIdentifier;
+            this.numberOfVertices = numberOfVertices;
+            this.solverType = solverType;
+            this.vertexTable = vertexTable;
+            this.body = body;
+        }
+
+        /**
+         * Getter-Method
+         *
+         * @return the name of the network
+         */
+        String getUniqueIdentifier() {
+            return uniqueIdentifier;
+        }
+
+        /**
+         * Getter-Method
+         *
+         * @return the number of Vertices of the network
+         */
+        int getNumberOfVertices() {
+            return numberOfVertices;
+        }
+
+        /**
+         * Decodes the network, if it was not decoded yet
+         *
+         * @param residualFlowCache the cache which limits the memory of the residual states of the network
+         * @return the decoded EscapeNetwork
+         * @throws SemanticsException if the body of the network is invalid
+         */
+        synchronized EscapeNetwork getEscapeNetwork(ResidualFlowCache residualFlowCache) throws SemanticsException {
+            if (escapeNetwork == null) {
+                try {
+                    escapeNetwork = decode();
+                } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+                    throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+                }
+                escapeNetwork.setResidualFlowCache(residualFlowCache);
+            }
+            return escapeNetwork;
+        }
+
+        /**
+         * Decodes the body of the network
+         *
+         * @return the EscapeNetwork
+         * @throws SemanticsException if the body of the network is invalid
+         */
+        private EscapeNetwork decode() throws SemanticsException {
+            ByteBuffer buffer = body.duplicate();
+            Vertex[] vertices = new Vertex[buffer.getInt()];
+            for (int vertex = 0; vertex < vertices.length; vertex++) {
+                vertices[vertex] = vertexTable.getVertex(buffer.getInt());
+            }
+            int numberOfSections = buffer.getInt();
+            int[] origins = new int[numberOfSections];
+            int[] destinations = new int[numberOfSections];
+            int[] capacities = new int[numberOfSections];
+            for (int section = 0; section < numberOfSections; section++) {
+                origins[section] = buffer.getInt();
+                destinations[section] = buffer.getInt();
+                capacities[section] = buffer.getInt();
+                if (capacities[section] <= 0) throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+            }
+            EscapeNetwork restoredNetwork = new EscapeNetwork(uniqueIdentifier);
+            restoredNetwork.setSolverType(solverType);
+            restoredNetwork.addSections(vertices, origins, destinations, capacities, numberOfSections);
+            restoredNetwork.checkGraph();
+            if (restoredNetwork.getNumberOfVertices() != numberOfVertices) {
+                throw new SemanticsException(Errors.SNAPSHOT_INVALID);
+            }
+
+            int numberOfFlows = buffer.getInt();
+            List<Flow> flows = new ArrayList<>(Math.max(0, numberOfFlows));
+            for (int i = 0; i < numberOfFlows; i++) {
+                Vertex start = vertices[buffer.getInt()];
+                Vertex end = vertices[buffer.getInt()];
+                flows.add(new Flow(buffer.getLong(), start, end));
+            }
+            restoredNetwork.restoreFlows(flows);
+            return restoredNetwork;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+import edu.kit.stephan.escaperoutes.statistics.RecorderEvent;
+
+import java.util.Arrays;
+
+/**
+ * This class calculates the maximum flow with Dinic's Algorithm. Each phase builds a level graph with a breadth
+ * first search and saturates it with a blocking flow, which is found with current arc pointers.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see MaxFlowSolver
+ */
+public class DinicSolver implements MaxFlowSolver {
+    private static final int NO_LEVEL = -1;
+
+    /**
+     * Calculates the maximum flow between two Vertices
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated by the calculation
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return the value of the maximum flow
+     */
+    @Override
+    public long calculateMaxFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+        int numberOfVertices = residualNetwork.getNumberOfVertices();
+        int[] levels = new int[numberOfVertices];
+        int[] vertexQueue = new int[numberOfVertices];
+        int[] currentArcs = new int[numberOfVertices];
+        int[] pathArcs = new int[numberOfVertices];
+        long output = 0;
+
+        while (buildLevelGraph(residualNetwork, residualCapacities, levels, vertexQueue, source, sink)) {
+            System.arraycopy(residualNetwork.getOffsets(), 0, currentArcs, 0, numberOfVertices);
+            output += findBlockingFlow(residualNetwork, residualCapacities, levels, currentArcs, pathArcs,
+                    source, sink);
+        }
+        return output;
+    }
+
+    /**
+     * Assigns every Vertex its distance from the start point in the residual graph
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param levels             the array in which the distances are stored
+     * @param vertexQueue        the array which is used as queue of the search
+     * @param source             the start point
+     * @param sink               the end point
+     * @return true, if the end point is reachable; false, if not
+     */
+    private boolean buildLevelGraph(ResidualNetwork residualNetwork, int[] residualCapacities, int[] levels,
+                                    int[] vertexQueue, int source, int sink) {
+        int[] offsets = residualNetwork.getOffsets();
+        int[] targets = residualNetwork.getTargets();
+        Arrays.fill(levels, NO_LEVEL);
+        int head = 0;
+        int tail = 0;
+        vertexQueue[tail++] = source;
+        long edgesScanned = 0;
+        levels[source] = 0;
+        Counter.BFS_RUNS.increment();
+
+        while (head < tail) {
+            int current = vertexQueue[head++];
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                int target = targets[arc];
+                if (levels[target] == NO_LEVEL && residualCapacities[arc] > 0) {
+                    levels[target] = levels[current] + 1;
+                    vertexQueue[tail++] = target;
+                }
+            }
+            edgesScanned += offsets[current + 1] - offsets[current];
+        }
+        Counter.VERTICES_SCANNED.add(head);
+        Counter.EDGES_SCANNED.add(edgesScanned);
+        return levels[sink] != NO_LEVEL;
+    }
+
+    /**
+     * Saturates the level graph. The search walks forward along admissible arcs, augments when it reaches the
+     * end point and retreats to the first saturated arc. Vertices without an admissible arc are removed from the
+     * level graph, and the current arc pointers make sure no arc is inspected twice in the same phase.
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param levels             the distances of the level graph
+     * @param currentArcs        the next arc to be inspected for every Vertex
+     * @param pathArcs           the array in which the current path is stored
+     * @param source             the start point
+     * @param sink               the end point
+     * @return the value of the blocking flow
+     */
+    private long findBlockingFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int[] levels,
+                                  int[] currentArcs, int[] pathArcs, int source, int sink) {
+        int[] offsets = residualNetwork.getOffsets();
+        int[] targets = residualNetwork.getTargets();
+        int[] reverseArcs = residualNetwork.getReverseArcs();
+        long output = 0;
+        long paths = 0;
+        long edgesScanned = 0;
+        int current = source;
+        int depth = 0;
+
+        while (true) {
+            if (current == sink) {
+                int flow = Integer.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    flow = Math.min(flow, residualCapacities[pathArcs[i]]);
+                }
+                int firstSaturated = depth;
+                for (int i = depth - 1; i >= 0; i--) {
+                    residualCapacities[pathArcs[i]] -= flow;
+                    residualCapacities[reverseArcs[pathArcs[i]]] += flow;
+                    if (residualCapacities[pathArcs[i]] == 0) firstSaturated = i;
+                }
+                output += flow;
+                paths++;
+                depth = firstSaturated;
+                current = targets[reverseArcs[pathArcs[depth]]];
+                continue;
+            }
+            int arc = currentArcs[current];
+            while (arc < offsets[current + 1]
+                    && (residualCapacities[arc] == 0 || levels[targets[arc]] != levels[current] + 1)) {
+                arc++;
+            }
+            edgesScanned += arc - currentArcs[current];
+            currentArcs[current] = arc;
+            if (arc < offsets[current + 1]) {
+                pathArcs[depth++] = arc;
+                current = targets[arc];
+                continue;
+            }
+            /*
+            Dead end: remove the Vertex from the level graph and retreat
+             */
+            levels[current] = NO_LEVEL;
+            if (current == source) {
+                Counter.AUGMENTING_PATHS.add(paths);
+                RecorderEvent.addAugmentations(paths);
+                Counter.EDGES_SCANNED.add(edgesScanned);
+                return output;
+            }
+            current = targets[reverseArcs[pathArcs[--depth]]];
+            currentArcs[current]++;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * This class finds shortest paths with residual capacity on large networks. The visited Vertices are stored as a
+ * bitset over the indices of the Vertices. A level is expanded top-down from a queue of the frontier while the
+ * frontier is small, and bottom-up, where every unvisited Vertex looks for a parent in a bitset of the frontier,
+ * while the frontier grows and has more arcs than the unvisited Vertices. Large bottom-up levels are split into
+ * ranges of bitset words, which are expanded in parallel on the common fork-join pool. Every word is only written
+ * by its own range, so the bitsets need no atomic operations, which would slow down the sequential levels.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see EdmondsKarpSolver
+ */
+final class DirectionOptimizingSearch {
+    private static final String MINIMUM_VERTICES_PROPERTY = "escaperoutes.bfs.directionOptimizingVertices";
+    private static final String PARALLEL_ARCS_PROPERTY = "escaperoutes.bfs.parallelArcs";
+    private static final int DEFAULT_MINIMUM_VERTICES = Integer.MAX_VALUE;
+    private static final int DEFAULT_PARALLEL_ARCS = 1 << 15;
+    /**
+     * The number of Vertices from which the search is used instead of a plain breadth first search. The search is
+     * off by default, because it was slower than the plain search on every generated network shape.
+     */
+    static final int MINIMUM_VERTICES = Integer.getInteger(MINIMUM_VERTICES_PROPERTY, DEFAULT_MINIMUM_VERTICES);
+    private static final int PARALLEL_ARCS = Integer.getInteger(PARALLEL_ARCS_PROPERTY, DEFAULT_PARALLEL_ARCS);
+    private static final int TOP_DOWN_FACTOR = 14;
+    private static final int BOTTOM_UP_FACTOR = 24;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int WORD_SHIFT = 6;
+    private static final long ALL_BITS = -1L;
+    private static final long ALL_ARCS = 0xFFFFFFFFL;
+    private final int numberOfVertices;
+    private final int numberOfWords;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] reverseArcs;
+    private final long[] visited;
+    private final long[] frontierBits;
+    private final long[] nextBits;
+    private int[] frontier;
+    private int[] next;
+    private int[] residualCapacities;
+    private int[] parentArcs;
+
+    /**
+     * Constructor
+     *
+     * @param residualNetwork the compiled network
+     */
+    DirectionOptimizingSearch(ResidualNetwork residualNetwork) {
+        this.numberOfVertices = residualNetwork.getNumberOfVertices();
+        this.numberOfWords = (numberOfVertices + Long.SIZE - 1) >>> WORD_SHIFT;
+        this.offsets = residualNetwork.getOffsets();
+        this.targets = residualNetwork.getTargets();
+        this.reverseArcs = residualNetwork.getReverseArcs();
+        this.visited = new long[numberOfWords];
+        this.frontierBits = new long[numberOfWords];
+        this.nextBits = new long[numberOfWords];
+        this.frontier = new int[numberOfVertices];
+        this.next = new int[numberOfVertices];
+    }
+
+    /**
+     * Finds a shortest path between two Points and stores it as the arcs leading to each Vertex. Only the entries
+     * of the reached Vertices are written.
+     *
+     * @param residualCapacities the residual capacity of each arc
+     * @param parentArcs         the array in which the arc leading to each reached Vertex is stored
+     * @param source             the start point
+     * @param sink               the end point
+     * @return true, if the end point was reached; false, if not
+     */
+    boolean search(int[] residualCapacities, int[] parentArcs, int source, int sink) {
+        this.residualCapacities = residualCapacities;
+        this.parentArcs = parentArcs;
+        Arrays.fill(visited, 0);
+        visited[source >>> WORD_SHIFT] = 1L << source;
+        parentArcs[source] = offsets[source];
+        frontier[0] = source;
+        Counter.BFS_RUNS.increment();
+
+        int frontierSize = 1;
+        long frontierArcs = getDegree(source);
+        long unvisitedArcs = offsets[numberOfVertices] - frontierArcs;
+        boolean bottomUp = false;
+        boolean growing = true;
+        while (frontierSize > 0) {
+            if (!bottomUp && growing && frontierArcs > unvisitedArcs / TOP_DOWN_FACTOR) {
+                bottomUp = true;
+                toBitset(frontierSize);
+            } else if (bottomUp && !growing && frontierSize < numberOfVertices / BOTTOM_UP_FACTOR) {
+                bottomUp = false;
+                toQueue();
+            }
+            long nextArcs;
+            int newFrontierSize;
+            if (bottomUp) {
+                nextArcs = expandBottomUp(unvisitedArcs);
+                if (isVisited(sink)) return true;
+                newFrontierSize = swapBitsets();
+            } else {
+                long nextSizeAndArcs = expandTopDown(frontierSize, sink);
+                if (isVisited(sink)) return true;
+                newFrontierSize = (int) (nextSizeAndArcs >>> Integer.SIZE);
+                nextArcs = nextSizeAndArcs & ALL_ARCS;
+                swapQueues();
+            }
+            growing = newFrontierSize > frontierSize;
+            frontierSize = newFrontierSize;
+            unvisitedArcs -= nextArcs;
+            frontierArcs = nextArcs;
+        }
+        return false;
+    }
+
+    /**
+     * Visits every unvisited child of the frontier queue
+     *
+     * @param frontierSize the number of Vertices in the frontier queue
+     * @param sink         the end point, the level stops when it is reached
+     * @return the number of Vertices of the next frontier in the high half, and their arcs in the low half
+     */
+    private long expandTopDown(int frontierSize, int sink) {
+        int[] frontier = this.frontier;
+        int[] next = this.next;
+        long[] visited = this.visited;
+        long nextArcs = 0;
+        long edgesScanned = 0;
+        int nextSize = 0;
+        int position = 0;
+        while (position < frontierSize) {
+            int vertex = frontier[position++];
+            edgesScanned += getDegree(vertex);
+            for (int arc = offsets[vertex]; arc < offsets[vertex + 1]; arc++) {
+                int target = targets[arc];
+                long bit = 1L << target;
+                if ((visited[target >>> WORD_SHIFT] & bit) == 0 && residualCapacities[arc] > 0) {
+                    visited[target >>> WORD_SHIFT] |= bit;
+                    parentArcs[target] = arc;
+                    next[nextSize++] = target;
+                    nextArcs += getDegree(target);
+                    if (target == sink) {
+                        position = frontierSize;
+                        break;
+                    }
+                }
+            }
+        }
+        Counter.VERTICES_SCANNED.add(position);
+        Counter.EDGES_SCANNED.add(edgesScanned);
+        return ((long) nextSize << Integer.SIZE) | nextArcs;
+    }
+
+    /**
+     * Lets every unvisited Vertex look for a parent in the frontier, in parallel if the level is large
+     *
+     * @param unvisitedArcs the number of arcs of the unvisited Vertices
+     * @return the number of arcs of the next frontier
+     */
+    private long expandBottomUp(long unvisitedArcs) {
+        if (unvisitedArcs < PARALLEL_ARCS || numberOfWords < 2) return expandBottomUp(0, numberOfWords);
+        int numberOfRanges = Math.min(numberOfWords, ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_THREAD);
+        return IntStream.range(0, numberOfRanges).parallel().mapToLong(range -> expandBottomUp(
+                (int) ((long) numberOfWords * range / numberOfRanges),
+                (int) ((long) numberOfWords * (range + 1) / numberOfRanges))).sum();
+    }
+
+    /**
+     * Lets every unvisited Vertex in a range of words look for a parent in the frontier. Every word is only
+     * written by the range which contains it, so no Vertex has to be claimed atomically.
+     *
+     * @param fromWord the first word of the range
+     * @param toWord   the word after the range
+     * @return the number of arcs of the visited Vertices
+     */
+    private long expandBottomUp(int fromWord, int toWord) {
+        long nextArcs = 0;
+        long verticesScanned = 0;
+        long edgesScanned = 0;
+        for (int word = fromWord; word < toWord; word++) {
+            long visitedBits = visited[word];
+            long foundBits = 0;
+            for (long bits = ~visitedBits & getValidBits(word); bits != 0; bits &= bits - 1) {
+                int vertex = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+                verticesScanned++;
+                for (int arc = offsets[vertex]; arc < offsets[vertex + 1]; arc++) {
+                    edgesScanned++;
+                    int parent = targets[arc];
+                    if ((frontierBits[parent >>> WORD_SHIFT] & (1L << parent)) != 0
+                            && residualCapacities[reverseArcs[arc]] > 0) {
+                        parentArcs[vertex] = reverseArcs[arc];
+                        foundBits |= 1L << vertex;
+                        nextArcs += getDegree(vertex);
+                        break;
+                    }
+                }
+            }
+            nextBits[word] = foundBits;
+            visited[word] = visitedBits | foundBits;
+        }
+        Counter.VERTICES_SCANNED.add(verticesScanned);
+        Counter.EDGES_SCANNED.add(edgesScanned);
+        return nextArcs;
+    }
+
+    /**
+     * Stores the frontier queue as frontier bitset
+     *
+     * @param frontierSize the number of Vertices in the frontier queue
+     */
+    private void toBitset(int frontierSize) {
+        Arrays.fill(frontierBits, 0);
+        for (int position = 0; position < frontierSize; position++) {
+            frontierBits[frontier[position] >>> WORD_SHIFT] |= 1L << frontier[position];
+        }
+    }
+
+    /**
+     * Stores the frontier bitset as frontier queue
+     */
+    private void toQueue() {
+        int size = 0;
+        for (int word = 0; word < numberOfWords; word++) {
+            for (long bits = frontierBits[word]; bits != 0; bits &= bits - 1) {
+                frontier[size++] = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+    }
+
+    /**
+     * Makes the next queue the frontier queue
+     */
+    private void swapQueues() {
+        int[] oldFrontier = frontier;
+        frontier = next;
+        next = oldFrontier;
+    }
+
+    /**
+     * Makes the next bitset the frontier bitset
+     *
+     * @return the size of the new frontier
+     */
+    private int swapBitsets() {
+        int size = 0;
+        for (int word = 0; word < numberOfWords; word++) {
+            frontierBits[word] = nextBits[word];
+            size += Long.bitCount(nextBits[word]);
+        }
+        return size;
+    }
+
+    /**
+     * Checks if a Vertex was visited
+     *
+     * @param vertex the index of the Vertex
+     * @return true, if the Vertex was visited; false, if not
+     */
+    private boolean isVisited(int vertex) {
+        return (visited[vertex >>> WORD_SHIFT] & (1L << vertex)) != 0;
+    }
+
+    /**
+     * Gets the bits of a word which belong to a Vertex
+     *
+     * @param word the index of the word
+     * @return the bits, all bits except in the last word
+     */
+    private long getValidBits(int word) {
+        int remainingVertices = numberOfVertices - (word << WORD_SHIFT);
+        return remainingVertices >= Long.SIZE ? ALL_BITS : (1L << remainingVertices) - 1;
+    }
+
+    /**
+     * Gets the number of arcs of a Vertex
+     *
+     * @param vertex the index of the Vertex
+     * @return the number of arcs
+     */
+    private int getDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+}
@@ -0,0 +1,493 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+import edu.kit.stephan.escaperoutes.statistics.RecordedEvent;
+import edu.kit.stephan.escaperoutes.statistics.RecorderEvent;
+import edu.kit.stephan.escaperoutes.statistics.Statistics;
+import edu.kit.stephan.escaperoutes.utilities.Pair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * This class extends a Graph with the calculation of flows and stores the calculated Flows. The residual state of
+ * every calculated Flow is kept, so after a section was added the Flow is repaired instead of recalculated, and
+ * only the Flows whose value could have changed are invalidated. The Flows between sets of start and end points
+ * are calculated once through a virtual super source and super sink, which are never added to the Graph, and are
+ * kept until the Graph is changed. The Flows may be calculated by several threads at once, as long as the Graph
+ * itself is not changed during the calculation.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see Graph
+ * @see ResidualNetwork
+ * @see MaxFlowSolver
+ */
+public class EdmondsKarpExtension extends Graph {
+    private static final int INDEX_JUMP = 1;
+    private static final int NOT_SYNCHRONIZED = -1;
+    private static final String EMPTY_FLOW_LIST = "EMPTY";
+    private static final String POINT_SEPARATOR = ";";
+
+    private final String networkIdentifier;
+    private final Map<Long, Flow> flowMap;
+    private final Set<Flow> sortedFlows;
+    private final Map<Long, ResidualFlow> residualFlows;
+    private final Map<Pair<List<Vertex>, List<Vertex>>, Long> multiFlows;
+    private ResidualFlowCache residualFlowCache;
+    private ResidualNetwork residualNetwork;
+    private int synchronizedModificationCount;
+
+    /**
+     * Constructor of the EdmondsKarpExtension
+     *
+     * @param networkIdentifier the name of the network, which is shown in the events of the flight recorder
+     */
+    public EdmondsKarpExtension(String networkIdentifier) {
+        super();
+        this.networkIdentifier = networkIdentifier;
+        flowMap = new HashMap<>();
+        sortedFlows = new TreeSet<>();
+        residualFlows = new HashMap<>();
+        multiFlows = new HashMap<>();
+        residualFlowCache = new ResidualFlowCache();
+        synchronizedModificationCount = NOT_SYNCHRONIZED;
+    }
+
+    /**
+     * Setter-Method
+     *
+     * @param residualFlowCache the cache which limits the memory of the residual states
+     */
+    synchronized void setResidualFlowCache(ResidualFlowCache residualFlowCache) {
+        for (ResidualFlow residualFlow : residualFlows.values()) {
+            this.residualFlowCache.remove(residualFlow);
+            residualFlowCache.store(residualFlow);
+        }
+        this.residualFlowCache = residualFlowCache;
+    }
+
+    /**
+     * Compiles the network again, if the Graph was changed since the last compilation, and removes every calculated
+     * Flow whose value could have changed. A Flow is kept if its points are still valid and its residual state,
+     * moved onto the new network, neither had to be repaired nor contains an augmenting path. The Flows between
+     * sets of points keep no residual state, so they are all removed.
+     */
+    private void synchronizeWithGraph() {
+        if (synchronizedModificationCount == getModificationCount()) return;
+        residualNetwork = compileResidualNetwork();
+        synchronizedModificationCount = getModificationCount();
+        multiFlows.clear();
+        Iterator<Map.Entry<Long, Flow>> iterator = flowMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Flow> entry = iterator.next();
+            if (!isStillMaximal(entry.getKey(), entry.getValue())) {
+                sortedFlows.remove(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks if a calculated Flow is still the maximum flow of the changed Graph
+     *
+     * @param key  the key of the Flow
+     * @param flow the calculated Flow
+     * @return true, if the Flow is still valid; false, if it could have changed
+     */
+    private boolean isStillMaximal(long key, Flow flow) {
+        if (!isStartAndEndPointAllowed(flow.getStartVertex(), flow.getEndVertex())) return false;
+        ResidualFlow residualFlow = getResidualFlow(key);
+        if (residualFlow == null) return false;
+        int source = residualNetwork.getIndex(flow.getStartVertex());
+        int sink = residualNetwork.getIndex(flow.getEndVertex());
+        boolean stillMaximal;
+        synchronized (residualFlow) {
+            if (residualFlow.isEvicted()) return false;
+            if (residualFlow.getResidualNetwork() != residualNetwork) {
+                residualFlow.transferTo(residualNetwork, source, sink);
+            }
+            stillMaximal = residualFlow.getFlowValue() == flow.getFlowValue()
+                    && !residualFlow.hasAugmentingPath(source, sink);
+        }
+        residualFlowCache.store(residualFlow);
+        return stillMaximal;
+    }
+
+    /**
+     * Gets the flow between two Vertices, if the flow has to be calculated it executes the method
+     * calculateMaxFlowBetweenTwoPoints, if not it uses the stored value
+     *
+     * @param start      the start Vertex
+     * @param end        the end Vertex
+     * @param solverType the algorithm which is used if the flow has to be calculated
+     * @return the Flow Value
+     * @throws SemanticsException if start or end point are invalid
+     */
+    public long getMaxFlowBetweenTwoPoints(Vertex start, Vertex end, SolverType solverType)
+            throws SemanticsException {
+        synchronized (this) {
+            synchronizeWithGraph();
+            checkIfStartAndEndPointIsAllowed(start, end);
+        }
+        return getValidatedMaxFlow(start, end, solverType);
+    }
+
+    /**
+     * Gets the flows between many pairs of Vertices. All pairs are validated before any flow is calculated, then
+     * the missing flows are calculated in parallel on the common fork-join pool against the same compiled network.
+     * Every calculated Flow is stored like a single flow.
+     *
+     * @param points     the pairs of start and end Vertex
+     * @param solverType the algorithm which is used if a flow has to be calculated
+     * @return the Flow Values in the order of the pairs
+     * @throws SemanticsException if a start or end point is invalid
+     */
+    public long[] getMaxFlowsBetweenPoints(List<Pair<Vertex, Vertex>> points, SolverType solverType)
+            throws SemanticsException {
+        Map<Long, Integer> firstOccurrences = new HashMap<>();
+        int[] occurrences = new int[points.size()];
+        synchronized (this) {
+            synchronizeWithGraph();
+            for (int i = 0; i < points.size(); i++) {
+                Pair<Vertex, Vertex> pair = points.get(i);
+                checkIfStartAndEndPointIsAllowed(pair.getFirstElement(), pair.getSecondElement());
+                Integer firstOccurrence
+                        = firstOccurrences.putIfAbsent(getFlowKey(pair.getFirstElement(), pair.getSecondElement()), i);
+                occurrences[i] = firstOccurrence == null ? i : firstOccurrence;
+            }
+        }
+        long[] flowValues = new long[points.size()];
+        firstOccurrences.values().parallelStream().forEach(i -> flowValues[i]
+                = getValidatedMaxFlow(points.get(i).getFirstElement(), points.get(i).getSecondElement(), solverType));
+        for (int i = 0; i < points.size(); i++) {
+            flowValues[i] = flowValues[occurrences[i]];
+        }
+        return flowValues;
+    }
+
+    /**
+     * Gets the flow between a set of start points and a set of end points. The flow is calculated once on a copy of
+     * the compiled network, which has a virtual super source feeding every start point and a virtual super sink fed
+     * by every end point, instead of adding up the flows of the single pairs.
+     *
+     * @param starts     the start Vertices, or null if every valid start point is used
+     * @param ends       the end Vertices, or null if every valid end point is used
+     * @param solverType the algorithm which is used if the flow has to be calculated
+     * @return the Flow Value
+     * @throws SemanticsException if a start or end point is invalid
+     */
+    public long getMaxFlowBetweenPointSets(Collection<Vertex> starts, Collection<Vertex> ends, SolverType solverType)
+            throws SemanticsException {
+        Pair<List<Vertex>, List<Vertex>> key;
+        ResidualNetwork network;
+        synchronized (this) {
+            synchronizeWithGraph();
+            List<Vertex> startList = starts == null ? getStartPoints() : new ArrayList<>(new TreeSet<>(starts));
+            List<Vertex> endList = ends == null ? getEndPoints() : new ArrayList<>(new TreeSet<>(ends));
+            checkIfStartAndEndPointsAreAllowed(startList, endList);
+            key = new Pair<>(startList, endList);
+            Long flowValue = multiFlows.get(key);
+            if (flowValue != null) {
+                Counter.CACHE_HITS.increment();
+                return flowValue;
+            }
+            network = residualNetwork;
+        }
+        long flowValue = calculateMaxFlowBetweenPointSets(network, key.getFirstElement(), key.getSecondElement(),
+                solverType);
+        synchronized (this) {
+            if (network == residualNetwork) multiFlows.putIfAbsent(key, flowValue);
+        }
+        return flowValue;
+    }
+
+    /**
+     * Calculates the flow between a set of start points and a set of end points through virtual super points and
+     * records its statistics
+     *
+     * @param network    the compiled network of the Graph
+     * @param starts     the valid start Vertices
+     * @param ends       the valid end Vertices
+     * @param solverType the algorithm which calculates the flow
+     * @return the Flow Value
+     */
+    private long calculateMaxFlowBetweenPointSets(ResidualNetwork network, List<Vertex> starts, List<Vertex> ends,
+                                                  SolverType solverType) {
+        Counter.CACHE_MISSES.increment();
+        RecordedEvent event = RecorderEvent.FLOW_CALCULATION.begin();
+        RecorderEvent.takeAugmentations();
+        long calculationStart = System.nanoTime();
+        int[] sources = new int[starts.size()];
+        int[] sinks = new int[ends.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = network.getIndex(starts.get(i));
+        }
+        for (int i = 0; i < sinks.length; i++) {
+            sinks[i] = network.getIndex(ends.get(i));
+        }
+        ResidualNetwork superNetwork = network.withSuperPoints(sources, sinks);
+        SolverType resolvedSolverType = solverType.resolve(superNetwork);
+        long flowValue = resolvedSolverType.getSolver().calculateMaxFlow(superNetwork,
+                superNetwork.createResidualCapacities(), network.getNumberOfVertices(),
+                network.getNumberOfVertices() + INDEX_JUMP);
+        Statistics.FLOW_CALCULATION.record(System.nanoTime() - calculationStart);
+        if (event != null) {
+            event.commit(networkIdentifier, joinPoints(starts), joinPoints(ends), resolvedSolverType.getSolverName(),
+                    network.getNumberOfVertices(), network.getNumberOfSections(), RecorderEvent.takeAugmentations(),
+                    flowValue, false);
+        }
+        return flowValue;
+    }
+
+    /**
+     * Joins the names of Vertices to a String
+     *
+     * @param points the Vertices
+     * @return the names, separated by semicolons
+     */
+    private static String joinPoints(List<Vertex> points) {
+        StringJoiner output = new StringJoiner(POINT_SEPARATOR);
+        for (Vertex point : points) {
+            output.add(point.toString());
+        }
+        return output.toString();
+    }
+
+    /**
+     * Gets the flow between two valid Vertices. The stored Flows are locked only while they are read or changed,
+     * so several flows of the unchanged Graph can be calculated at the same time.
+     *
+     * @param start      the start Vertex
+     * @param end        the end Vertex
+     * @param solverType the algorithm which is used if the flow has to be calculated
+     * @return the Flow Value
+     */
+    private long getValidatedMaxFlow(Vertex start, Vertex end, SolverType solverType) {
+        long key;
+        ResidualNetwork network;
+        ResidualFlow residualFlow;
+        synchronized (this) {
+            synchronizeWithGraph();
+            key = getFlowKey(start, end);
+            Flow flow = flowMap.get(key);
+            if (flow != null) {
+                Counter.CACHE_HITS.increment();
+                return flow.getFlowValue();
+            }
+            network = residualNetwork;
+            residualFlow = getResidualFlow(key);
+        }
+        residualFlow = calculateResidualFlow(network, start, end, residualFlow, solverType);
+        return storeResidualFlow(key, start, end, residualFlow);
+    }
+
+    /**
+     * Gets the minimum cut between two Vertices out of the residual state of their stored Flow. If the Flow or its
+     * residual state is not stored, the Flow is calculated once and stored like a calculated Flow.
+     *
+     * @param start      the start Vertex
+     * @param end        the end Vertex
+     * @param solverType the algorithm which is used if the flow has to be calculated
+     * @return the saturated sections of the cut in the order of the Graph
+     * @throws SemanticsException if start or end point are invalid
+     */
+    public List<Edge> getMinimumCut(Vertex start, Vertex end, SolverType solverType) throws SemanticsException {
+        long key;
+        ResidualNetwork network;
+        ResidualFlow residualFlow;
+        synchronized (this) {
+            synchronizeWithGraph();
+            checkIfStartAndEndPointIsAllowed(start, end);
+            key = getFlowKey(start, end);
+            network = residualNetwork;
+            residualFlow = getResidualFlow(key);
+            if (residualFlow != null && flowMap.containsKey(key)) {
+                synchronized (residualFlow) {
+                    if (!residualFlow.isEvicted() && residualFlow.getResidualNetwork() == network) {
+                        Counter.CACHE_HITS.increment();
+                        return residualFlow.findMinimumCut(network.getIndex(start));
+                    }
+                }
+            }
+        }
+        residualFlow = calculateResidualFlow(network, start, end, residualFlow, solverType);
+        List<Edge> cut = null;
+        synchronized (residualFlow) {
+            if (!residualFlow.isEvicted()) cut = residualFlow.findMinimumCut(network.getIndex(start));
+        }
+        if (cut == null) {
+            /*
+            The repaired state was evicted by another calculation in the meantime, so it is calculated from zero
+             */
+            residualFlow = calculateMaxFlowBetweenTwoPoints(network, start, end, null, solverType);
+            cut = residualFlow.findMinimumCut(network.getIndex(start));
+        }
+        storeResidualFlow(key, start, end, residualFlow);
+        return cut;
+    }
+
+    /**
+     * Calculates a Flow which is not stored and records its statistics
+     *
+     * @param network      the compiled network of the Graph
+     * @param start        the start Vertex
+     * @param end          the end Vertex
+     * @param residualFlow the residual state of the old Flow, or null if there is none
+     * @param solverType   the algorithm which calculates the flow
+     * @return the residual state of the calculated Flow
+     */
+    private ResidualFlow calculateResidualFlow(ResidualNetwork network, Vertex start, Vertex end,
+                                               ResidualFlow residualFlow, SolverType solverType) {
+        Counter.CACHE_MISSES.increment();
+        RecordedEvent event = RecorderEvent.FLOW_CALCULATION.begin();
+        RecorderEvent.takeAugmentations();
+        boolean repaired = residualFlow != null;
+        long calculationStart = System.nanoTime();
+        SolverType resolvedSolverType = solverType.resolve(network);
+        residualFlow = calculateMaxFlowBetweenTwoPoints(network, start, end, residualFlow, resolvedSolverType);
+        Statistics.FLOW_CALCULATION.record(System.nanoTime() - calculationStart);
+        if (event != null) {
+            event.commit(networkIdentifier, start.toString(), end.toString(), resolvedSolverType.getSolverName(),
+                    network.getNumberOfVertices(), network.getNumberOfSections(), RecorderEvent.takeAugmentations(),
+                    residualFlow.getFlowValue(), repaired);
+        }
+        return residualFlow;
+    }
+
+    /**
+     * Stores a calculated Flow and its residual state. If the Flow was stored in the meantime, only a missing
+     * residual state is stored.
+     *
+     * @param key          the key of the Flow
+     * @param start        the start Vertex
+     * @param end          the end Vertex
+     * @param residualFlow the residual state of the calculated Flow
+     * @return the value of the stored Flow
+     */
+    private long storeResidualFlow(long key, Vertex start, Vertex end, ResidualFlow residualFlow) {
+        long estimatedOutput = residualFlow.getFlowValue();
+        synchronized (this) {
+            Flow flow = flowMap.get(key);
+            if (flow != null) {
+                ResidualFlow storedResidualFlow = getResidualFlow(key);
+                if (storedResidualFlow != null && storedResidualFlow != residualFlow) return flow.getFlowValue();
+                estimatedOutput = flow.getFlowValue();
+            } else {
+                flow = new Flow(estimatedOutput, start, end);
+                flowMap.put(key, flow);
+                sortedFlows.add(flow);
+            }
+            residualFlows.put(key, residualFlow);
+        }
+        residualFlowCache.store(residualFlow);
+        return estimatedOutput;
+    }
+
+    /**
+     * Calculates the Max Flow between to given Vertices on a compiled network. If the Flow was calculated before
+     * the Graph was changed and its residual state was not evicted, the old Flow is repaired and augmented.
+     *
+     * @param network      the compiled network of the Graph
+     * @param start        the start Vertex
+     * @param end          the end Vertex
+     * @param residualFlow the residual state of the old Flow, or null if there is none
+     * @param solverType   the algorithm which calculates the flow
+     * @return the residual state of the calculated Flow
+     */
+    private static ResidualFlow calculateMaxFlowBetweenTwoPoints(ResidualNetwork network, Vertex start, Vertex end,
+                                                                 ResidualFlow residualFlow, SolverType solverType) {
+        int source = network.getIndex(start);
+        int sink = network.getIndex(end);
+
+        if (residualFlow != null) {
+            synchronized (residualFlow) {
+                if (!residualFlow.isEvicted()) {
+                    if (residualFlow.getResidualNetwork() != network) residualFlow.transferTo(network, source, sink);
+                    residualFlow.augment(solverType.getSolver(), source, sink);
+                    Counter.REPAIRED_FLOWS.increment();
+                    return residualFlow;
+                }
+            }
+        }
+        int[] residualCapacities = network.createResidualCapacities();
+        long flowValue = solverType.getSolver().calculateMaxFlow(network, residualCapacities, source, sink);
+        return new ResidualFlow(network, residualCapacities, flowValue);
+    }
+
+    /**
+     * Gets the residual state of a Flow and forgets it, if it was evicted by the cache. A state can be evicted
+     * after it was stored again, so it is also removed from the cache.
+     *
+     * @param key the key of the Flow
+     * @return the residual state, or null if there is none
+     */
+    private ResidualFlow getResidualFlow(long key) {
+        ResidualFlow residualFlow = residualFlows.get(key);
+        if (residualFlow != null && residualFlow.isEvicted()) {
+            residualFlows.remove(key);
+            residualFlowCache.remove(residualFlow);
+            return null;
+        }
+        return residualFlow;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the compilation of the current Graph
+     */
+    synchronized ResidualNetwork getResidualNetwork() {
+        synchronizeWithGraph();
+        return residualNetwork;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the calculated Flows which are still valid, in the order of the Flow List
+     */
+    synchronized List<Flow> getFlows() {
+        synchronizeWithGraph();
+        return new ArrayList<>(sortedFlows);
+    }
+
+    /**
+     * Stores Flows which were calculated on the same Graph before it was saved. The Flows have no residual state,
+     * so they are invalidated by the next change of the Graph.
+     *
+     * @param flows the Flows
+     */
+    synchronized void restoreFlows(List<Flow> flows) {
+        synchronizeWithGraph();
+        for (Flow flow : flows) {
+            long key = getFlowKey(flow.getStartVertex(), flow.getEndVertex());
+            if (flowMap.putIfAbsent(key, flow) == null) sortedFlows.add(flow);
+        }
+    }
+
+    /**
+     * Getter Method of the calculated Flow List
+     *
+     * @return The calculated Paths, if no exist: it returns "EMPTY"
+     */
+    public synchronized String getFlowList() {
+        synchronizeWithGraph();
+        if (sortedFlows.isEmpty()) {
+            return EMPTY_FLOW_LIST;
+        }
+        StringBuilder output = new StringBuilder();
+        for (Flow flow : sortedFlows) {
+            output.append(flow.toString()).append(System.lineSeparator());
+        }
+        return output.deleteCharAt(output.length() - INDEX_JUMP).toString();
+    }
+}
@@ -0,0 +1,194 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+import edu.kit.stephan.escaperoutes.statistics.RecorderEvent;
+
+import java.util.Arrays;
+
+/**
+ * This class calculates the maximum flow with the EdmondsKarp Algorithm, which augments along a shortest path
+ * found by a breadth first search until no path is left. From the number of Vertices set by the property
+ * escaperoutes.bfs.directionOptimizingVertices the path is found by a direction optimizing search instead.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see MaxFlowSolver
+ */
+public class EdmondsKarpSolver implements MaxFlowSolver {
+    private static final int NOT_VISITED = -1;
+
+    /**
+     * Calculates the maximum flow between two Vertices
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated by the calculation
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return the value of the maximum flow
+     */
+    @Override
+    public long calculateMaxFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+        return augment(residualNetwork, residualCapacities, source, sink, Long.MAX_VALUE);
+    }
+
+    /**
+     * Augments along shortest paths between two Vertices until no path is left or the limit is reached
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @param limit              the maximum amount of flow which should be sent
+     * @return the amount of flow which was sent, the limit if start and end are equal
+     */
+    long augment(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink, long limit) {
+        if (source == sink) return limit;
+        int[] parentArcs = new int[residualNetwork.getNumberOfVertices()];
+        DirectionOptimizingSearch search = createSearch(residualNetwork);
+        int[] vertexQueue = search == null ? new int[residualNetwork.getNumberOfVertices()] : null;
+        long output = 0;
+        long paths = 0;
+
+        while (output < limit
+                && findPath(search, residualNetwork, residualCapacities, parentArcs, vertexQueue, source, sink)) {
+            int flow = (int) Math.min(findFlow(residualNetwork, residualCapacities, parentArcs, source, sink),
+                    limit - output);
+            output += flow;
+            updateFlowGraph(residualNetwork, residualCapacities, parentArcs, source, sink, flow);
+            paths++;
+        }
+        Counter.AUGMENTING_PATHS.add(paths);
+        RecorderEvent.addAugmentations(paths);
+        return output;
+    }
+
+    /**
+     * Checks if there is a path with residual capacity between two Vertices
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return true, if there is a path; false, if not
+     */
+    boolean hasPath(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+        int[] parentArcs = new int[residualNetwork.getNumberOfVertices()];
+        DirectionOptimizingSearch search = createSearch(residualNetwork);
+        int[] vertexQueue = search == null ? new int[residualNetwork.getNumberOfVertices()] : null;
+        return findPath(search, residualNetwork, residualCapacities, parentArcs, vertexQueue, source, sink);
+    }
+
+    /**
+     * Creates the search of a large network
+     *
+     * @param residualNetwork the compiled network
+     * @return the direction optimizing search, or null if the network is small enough for a breadth first search
+     */
+    private static DirectionOptimizingSearch createSearch(ResidualNetwork residualNetwork) {
+        return residualNetwork.getNumberOfVertices() >= DirectionOptimizingSearch.MINIMUM_VERTICES
+                ? new DirectionOptimizingSearch(residualNetwork) : null;
+    }
+
+    /**
+     * Finds a shortest path between two Points and stores it as the arcs leading to each Vertex
+     *
+     * @param search             the direction optimizing search, or null if a breadth first search is used
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param parentArcs         the array in which the arc leading to each reached Vertex is stored
+     * @param vertexQueue        the queue of the breadth first search, or null if the other search is used
+     * @param source             the start point
+     * @param sink               the end point
+     * @return true, if the end point was reached; false, if not
+     */
+    private boolean findPath(DirectionOptimizingSearch search, ResidualNetwork residualNetwork,
+                             int[] residualCapacities, int[] parentArcs, int[] vertexQueue, int source, int sink) {
+        if (search != null) return search.search(residualCapacities, parentArcs, source, sink);
+        return breadthFirstSearch(residualNetwork, residualCapacities, parentArcs, vertexQueue, source, sink);
+    }
+
+    /**
+     * Finds a shortest path between two Points and stores it as the arcs leading to each Vertex
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param parentArcs         the array in which the arc leading to each reached Vertex is stored
+     * @param vertexQueue        the array which is used as queue of the search
+     * @param source             the start point
+     * @param sink               the end point
+     * @return true, if the end point was reached; false, if not
+     */
+    private boolean breadthFirstSearch(ResidualNetwork residualNetwork, int[] residualCapacities, int[] parentArcs,
+                                       int[] vertexQueue, int source, int sink) {
+        int[] offsets = residualNetwork.getOffsets();
+        int[] targets = residualNetwork.getTargets();
+        Arrays.fill(parentArcs, NOT_VISITED);
+        int head = 0;
+        int tail = 0;
+        long edgesScanned = 0;
+        vertexQueue[tail++] = source;
+        parentArcs[source] = offsets[source];
+        Counter.BFS_RUNS.increment();
+
+        while (head < tail) {
+            int current = vertexQueue[head++];
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                int target = targets[arc];
+                if (parentArcs[target] == NOT_VISITED && residualCapacities[arc] > 0) {
+                    parentArcs[target] = arc;
+                    if (target == sink) {
+                        Counter.VERTICES_SCANNED.add(head);
+                        Counter.EDGES_SCANNED.add(edgesScanned + arc - offsets[current] + 1);
+                        return true;
+                    }
+                    vertexQueue[tail++] = target;
+                }
+            }
+            edgesScanned += offsets[current + 1] - offsets[current];
+        }
+        Counter.VERTICES_SCANNED.add(head);
+        Counter.EDGES_SCANNED.add(edgesScanned);
+        return false;
+    }
+
+    /**
+     * Method to find the Flow Value on the found path from Start to End
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param parentArcs         the arcs of the found path
+     * @param source             the start Point
+     * @param sink               the end Point
+     * @return the flow on the given Path
+     */
+    private int findFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int[] parentArcs,
+                         int source, int sink) {
+        int[] targets = residualNetwork.getTargets();
+        int[] reverseArcs = residualNetwork.getReverseArcs();
+        int bottleNeckCapacity = Integer.MAX_VALUE;
+        for (int current = sink; current != source; current = targets[reverseArcs[parentArcs[current]]]) {
+            bottleNeckCapacity = Math.min(bottleNeckCapacity, residualCapacities[parentArcs[current]]);
+        }
+        return bottleNeckCapacity;
+    }
+
+    /**
+     * This Method is responsible to update the residual capacities after a flow was found
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc
+     * @param parentArcs         the arcs of the found path
+     * @param source             the start Point
+     * @param sink               the end Point
+     * @param flow               the flow which was found
+     */
+    private void updateFlowGraph(ResidualNetwork residualNetwork, int[] residualCapacities, int[] parentArcs,
+                                 int source, int sink, int flow) {
+        int[] targets = residualNetwork.getTargets();
+        int[] reverseArcs = residualNetwork.getReverseArcs();
+        for (int current = sink; current != source; current = targets[reverseArcs[parentArcs[current]]]) {
+            residualCapacities[parentArcs[current]] -= flow;
+            residualCapacities[reverseArcs[parentArcs[current]]] += flow;
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package edu.kit.stephan.escaperoutes.graphs;
 
 import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+import edu.kit.stephan.escaperoutes.statistics.RecordedEvent;
+import edu.kit.stephan.escaperoutes.statistics.RecorderEvent;
+import edu.kit.stephan.escaperoutes.utilities.Pair;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * This class describes an EscapeNetwork and contains the Method to handle the Graph
+ * This class describes an EscapeNetwork and contains the Method to handle the Graph. The Graph is guarded by a
+ * read/write lock, so sections are added exclusively while flows and prints of the same network run concurrently.
  * @author Johannes Stephan
  * @version 1.0
  * @see Graph
@@ -14,8 +21,12 @@ import java.util.Objects;
 public class EscapeNetwork implements Comparable<EscapeNetwork> {
     private static final String VALID_LIST_OUTPUT = "%s %s";
     private static final boolean INITIALIZATION = true;
+    private static final String EXPLAIN_OUTPUT = "%s%n%s";
+    private static final String SOLVER_COMMAND_REASON = "set by the solver command";
     private final Graph graph;
     private final String uniqueIdentifier;
+    private final ReadWriteLock lock;
+    private volatile SolverType solverType;
 
     /**
      * Constructor
@@ -24,11 +35,25 @@ public class EscapeNetwork implements Comparable<EscapeNetwork> {
      * @throws SemanticsException throws an Error if the Creation of the Network has failed
      */
     public EscapeNetwork(String uniqueIdentifier, List<Edge> edges) throws SemanticsException {
-        this.graph = new EdmondsKarpExtension();
+        this.graph = new EdmondsKarpExtension(uniqueIdentifier);
         this.uniqueIdentifier = uniqueIdentifier;
+        this.lock = new ReentrantReadWriteLock();
+        this.solverType = SolverType.AUTOMATIC;
         this.createGraph(edges);
     }
 
+    /**
+     * Constructor of an EscapeNetwork without sections, which are loaded afterwards
+     * @param uniqueIdentifier the name of the Network
+     * @see NetworkFile
+     */
+    EscapeNetwork(String uniqueIdentifier) {
+        this.graph = new EdmondsKarpExtension(uniqueIdentifier);
+        this.uniqueIdentifier = uniqueIdentifier;
+        this.lock = new ReentrantReadWriteLock();
+        this.solverType = SolverType.AUTOMATIC;
+    }
+
     /**
      * Method to create the Graph using Edges
      * @param edges Edges which are needed to create the Graph
@@ -43,28 +68,295 @@ public class EscapeNetwork implements Comparable<EscapeNetwork> {
     }
 
     /**
-     * Method to create an Edge in the Graph
+     * Method to create an Edge in the Graph. An Edge inserted in an existent Graph is applied tentatively and
+     * rolled back if the Graph becomes invalid.
      * @param edge the edge which should be added
      * @param initialization true if the graph is created, false if an Edge is inserted in an existent Graph
      * @throws SemanticsException if the creation of an Graph is not allowed
      */
     public void addEdge(Edge edge, boolean initialization) throws SemanticsException {
-        Graph deepCopyOfGraph = new Graph(graph.copyGraph());
-        deepCopyOfGraph.addEdge(edge.getFromVertex(), edge.getToVertex(), edge.getCapacityFlow());
-        if (!initialization) deepCopyOfGraph.checkIfGraphIsValid();
-        graph.addEdge(edge.getFromVertex(), edge.getToVertex(), edge.getCapacityFlow());
+        if (initialization) {
+            graph.addEdge(edge.getFromVertex(), edge.getToVertex(), edge.getCapacityFlow());
+            return;
+        }
+        addEdge(edge, null);
+    }
+
+    /**
+     * Method to insert an Edge in the existent Graph. The Edge is applied tentatively, and it is committed only if
+     * the Graph stays valid and the Edge was appended to the journal.
+     * @param edge the edge which should be added
+     * @param journal the journal of the database, or null if there is none
+     * @throws SemanticsException if the Graph becomes invalid or the journal can't be written
+     */
+    void addEdge(Edge edge, Journal journal) throws SemanticsException {
+        lock.writeLock().lock();
+        try {
+            RecordedEvent event = RecorderEvent.SECTION_ADDED.begin();
+            graph.beginChange();
+            try {
+                graph.addEdge(edge.getFromVertex(), edge.getToVertex(), edge.getCapacityFlow());
+                graph.checkIfGraphIsValid();
+                if (journal != null) journal.appendAddSection(uniqueIdentifier, edge);
+            } catch (SemanticsException e) {
+                if (event != null) commitSectionAdded(event, edge, false);
+                graph.rollbackChange();
+                throw e;
+            }
+            if (event != null) commitSectionAdded(event, edge, true);
+            graph.commitChange();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Commits the event of an added section, before the tentative change is committed or rolled back
+     * @param event the begun event
+     * @param edge the added edge
+     * @param valid true, if the Graph stays valid; false, if the change is rolled back
+     */
+    private void commitSectionAdded(RecordedEvent event, Edge edge, boolean valid) {
+        event.commit(uniqueIdentifier, edge.toString(), valid, graph.getNumberOfChanges(),
+                graph.getNumberOfVertices());
+    }
+
+    /**
+     * Adds the loaded sections to the empty Graph, which is validated after the last section
+     * @param vertices the Vertices by their index
+     * @param origins the index of the origin of every section
+     * @param destinations the index of the destination of every section
+     * @param capacities the capacity of every section
+     * @param numberOfSections the number of sections
+     * @throws SemanticsException if a section is a loop, exists already or is opposite to another section
+     */
+    void addSections(Vertex[] vertices, int[] origins, int[] destinations, int[] capacities, int numberOfSections)
+            throws SemanticsException {
+        graph.addSections(vertices, origins, destinations, capacities, numberOfSections);
     }
 
     /**
-     * Method to find the MaxFlow between to Points
+     * Adds a section out of the journal, which was validated before it was journaled
+     * @param fromVertex the origin of the section
+     * @param toVertex the destination of the section
+     * @param capacity the capacity of the section
+     * @throws SemanticsException if the section is opposite to another section
+     */
+    void replaySection(Vertex fromVertex, Vertex toVertex, int capacity) throws SemanticsException {
+        lock.writeLock().lock();
+        try {
+            graph.addEdge(fromVertex, toVertex, capacity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Validates the Graph after the sections were loaded
+     * @throws SemanticsException if the Graph has no start or end points
+     */
+    void checkGraph() throws SemanticsException {
+        graph.checkIfGraphIsValid();
+    }
+
+    /**
+     * Exports the Graph into a file in the DIMACS max-flow format
+     * @param path the file
+     * @throws SemanticsException if the file can't be written
+     */
+    void export(Path path) throws SemanticsException {
+        lock.readLock().lock();
+        try {
+            NetworkFile.export(graph.compileResidualNetwork(), path);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to find the MaxFlow between to Points with the algorithm of the EscapeNetwork
      * @param start the origin of the Flow
      * @param end the destination of the Flow
      * @return a long value which is greater than 0, or 0 if there is no flow between the two Points
      * @throws SemanticsException if the Points are not valid to find a flow
      */
     public long calculateFlow(Vertex start, Vertex end) throws SemanticsException {
+        return calculateFlow(start, end, solverType);
+    }
+
+    /**
+     * Method to find the MaxFlow between to Points with a specific algorithm
+     * @param start the origin of the Flow
+     * @param end the destination of the Flow
+     * @param solverType the algorithm which is used to calculate the flow
+     * @return a long value which is greater than 0, or 0 if there is no flow between the two Points
+     * @throws SemanticsException if the Points are not valid to find a flow
+     */
+    public long calculateFlow(Vertex start, Vertex end, SolverType solverType) throws SemanticsException {
+        EdmondsKarpExtension edmondsKarpExtension = (EdmondsKarpExtension) graph;
+        lock.readLock().lock();
+        try {
+            return edmondsKarpExtension.getMaxFlowBetweenTwoPoints(start, end, solverType);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to find the minimum cut between two Points, the flow is calculated with the algorithm of the
+     * EscapeNetwork if it is not stored
+     * @param start the origin of the Flow
+     * @param end the destination of the Flow
+     * @return the saturated sections of the cut
+     * @throws SemanticsException if the Points are not valid to find a flow
+     */
+    public List<Edge> calculateCut(Vertex start, Vertex end) throws SemanticsException {
+        return calculateCut(start, end, solverType);
+    }
+
+    /**
+     * Method to find the minimum cut between two Points, the flow is calculated with a specific algorithm if it
+     * is not stored
+     * @param start the origin of the Flow
+     * @param end the destination of the Flow
+     * @param solverType the algorithm which is used to calculate the flow
+     * @return the saturated sections of the cut
+     * @throws SemanticsException if the Points are not valid to find a flow
+     */
+    public List<Edge> calculateCut(Vertex start, Vertex end, SolverType solverType) throws SemanticsException {
+        EdmondsKarpExtension edmondsKarpExtension = (EdmondsKarpExtension) graph;
+        lock.readLock().lock();
+        try {
+            return edmondsKarpExtension.getMinimumCut(start, end, solverType);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to find the MaxFlow between a set of start points and a set of end points with the algorithm of the
+     * EscapeNetwork
+     * @param starts the origins of the Flow, or null if every valid start point is used
+     * @param ends the destinations of the Flow, or null if every valid end point is used
+     * @return the flow value between the sets
+     * @throws SemanticsException if one of the Points is not valid to find a flow
+     */
+    public long calculateEvacuationFlow(List<Vertex> starts, List<Vertex> ends) throws SemanticsException {
+        return calculateEvacuationFlow(starts, ends, solverType);
+    }
+
+    /**
+     * Method to find the MaxFlow between a set of start points and a set of end points with a specific algorithm
+     * @param starts the origins of the Flow, or null if every valid start point is used
+     * @param ends the destinations of the Flow, or null if every valid end point is used
+     * @param solverType the algorithm which is used to calculate the flow
+     * @return the flow value between the sets
+     * @throws SemanticsException if one of the Points is not valid to find a flow
+     */
+    public long calculateEvacuationFlow(List<Vertex> starts, List<Vertex> ends, SolverType solverType)
+            throws SemanticsException {
+        EdmondsKarpExtension edmondsKarpExtension = (EdmondsKarpExtension) graph;
+        lock.readLock().lock();
+        try {
+            return edmondsKarpExtension.getMaxFlowBetweenPointSets(starts, ends, solverType);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to find the MaxFlows between many pairs of Points with the algorithm of the EscapeNetwork
+     * @param points the pairs of origin and destination
+     * @return the flow values in the order of the pairs
+     * @throws SemanticsException if one of the pairs is not valid to find a flow
+     */
+    public long[] calculateFlows(List<Pair<Vertex, Vertex>> points) throws SemanticsException {
+        return calculateFlows(points, solverType);
+    }
+
+    /**
+     * Method to find the MaxFlows between many pairs of Points with a specific algorithm. The flows are calculated
+     * in parallel while the Graph is locked for reading.
+     * @param points the pairs of origin and destination
+     * @param solverType the algorithm which is used to calculate the flows
+     * @return the flow values in the order of the pairs
+     * @throws SemanticsException if one of the pairs is not valid to find a flow
+     */
+    public long[] calculateFlows(List<Pair<Vertex, Vertex>> points, SolverType solverType) throws SemanticsException {
         EdmondsKarpExtension edmondsKarpExtension = (EdmondsKarpExtension) graph;
-        return edmondsKarpExtension.getMaxFlowBetweenTwoPoints(start, end);
+        lock.readLock().lock();
+        try {
+            return edmondsKarpExtension.getMaxFlowsBetweenPoints(points, solverType);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Setter-Method
+     * @param solverType the algorithm which is used to calculate the flows of this EscapeNetwork
+     */
+    public void setSolverType(SolverType solverType) {
+        this.solverType = solverType;
+    }
+
+    /**
+     * Getter-Method
+     * @return the algorithm which is used to calculate the flows of this EscapeNetwork
+     */
+    SolverType getSolverType() {
+        return solverType;
+    }
+
+    /**
+     * Explains how the flows of the EscapeNetwork are calculated, the automatic selection is planned for the
+     * current Graph
+     * @return the statistics of the compiled Graph followed by the plan of the calculation
+     */
+    String explain() {
+        lock.readLock().lock();
+        try {
+            NetworkStatistics statistics = getResidualNetwork().getStatistics();
+            SolverType currentSolverType = solverType;
+            SolverPlan plan = currentSolverType == SolverType.AUTOMATIC ? SolverPlanner.plan(statistics)
+                    : new SolverPlan(currentSolverType, statistics, SOLVER_COMMAND_REASON);
+            return String.format(EXPLAIN_OUTPUT, statistics, plan);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Getter-Method, the caller has to hold the read lock
+     * @return the compilation of the Graph
+     */
+    ResidualNetwork getResidualNetwork() {
+        return ((EdmondsKarpExtension) graph).getResidualNetwork();
+    }
+
+    /**
+     * Getter-Method, the caller has to hold the read lock
+     * @return the calculated Flows in the order of the Flow List
+     */
+    List<Flow> getFlows() {
+        return ((EdmondsKarpExtension) graph).getFlows();
+    }
+
+    /**
+     * Stores the Flows of a restored EscapeNetwork
+     * @param flows the Flows which were calculated before the EscapeNetwork was saved
+     * @see DatabaseSnapshot
+     */
+    void restoreFlows(List<Flow> flows) {
+        ((EdmondsKarpExtension) graph).restoreFlows(flows);
+    }
+
+    /**
+     * Setter-Method
+     * @param residualFlowCache the cache which limits the memory of the residual states of the calculated Flows
+     */
+    public void setResidualFlowCache(ResidualFlowCache residualFlowCache) {
+        ((EdmondsKarpExtension) graph).setResidualFlowCache(residualFlowCache);
     }
 
     /**
@@ -73,7 +365,12 @@ public class EscapeNetwork implements Comparable<EscapeNetwork> {
      */
     public String getFlowList() {
         EdmondsKarpExtension edmondsKarpExtension = (EdmondsKarpExtension) graph;
-        return edmondsKarpExtension.getFlowList();
+        lock.readLock().lock();
+        try {
+            return edmondsKarpExtension.getFlowList();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -81,7 +378,20 @@ public class EscapeNetwork implements Comparable<EscapeNetwork> {
      * @return the number of Vertices of the Graph
      */
     public int getNumberOfVertices() {
-        return graph.getNumberOfVertices();
+        lock.readLock().lock();
+        try {
+            return graph.getNumberOfVertices();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Getter-Method, the lock is reentrant, so a holder of the write lock can still use every Method
+     * @return the read/write lock which guards the Graph
+     */
+    ReadWriteLock getLock() {
+        return lock;
     }
 
     /**
@@ -97,7 +407,12 @@ public class EscapeNetwork implements Comparable<EscapeNetwork> {
      * @return the Graph represented as String
      */
     public String getGraphAsString() {
-        return graph.toString();
+        lock.readLock().lock();
+        try {
+            return graph.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -106,7 +421,7 @@ public class EscapeNetwork implements Comparable<EscapeNetwork> {
      */
     @Override
     public String toString() {
-        return String.format(VALID_LIST_OUTPUT, uniqueIdentifier, graph.getNumberOfVertices());
+        return String.format(VALID_LIST_OUTPUT, uniqueIdentifier, getNumberOfVertices());
     }
 
     /**
@@ -116,10 +431,11 @@ public class EscapeNetwork implements Comparable<EscapeNetwork> {
      */
     @Override
     public int compareTo(EscapeNetwork escapeNetwork) {
-        if (this.graph.getNumberOfVertices() == escapeNetwork.getNumberOfVertices()) {
+        int numberOfVertices = getNumberOfVertices();
+        if (numberOfVertices == escapeNetwork.getNumberOfVertices()) {
             return this.uniqueIdentifier.compareTo(escapeNetwork.getUniqueIdentifier());
         }
-        return Integer.compare(escapeNetwork.getNumberOfVertices(), this.graph.getNumberOfVertices());
+        return Integer.compare(escapeNetwork.getNumberOfVertices(), numberOfVertices);
     }
 
     /**
@@ -4,11 +4,35 @@ package edu.kit.stephan.escaperoutes.graphs;
 import edu.kit.stephan.escaperoutes.errors.Errors;
 import edu.kit.stephan.escaperoutes.errors.SemanticsException;
 
+import edu.kit.stephan.escaperoutes.statistics.Statistics;
+import edu.kit.stephan.escaperoutes.utilities.Pair;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * This class manages all EscapeNetworks and executes the Methods
+ * This class manages all EscapeNetworks and executes the Methods. The database can be used by several threads:
+ * every EscapeNetwork guards itself with a read/write lock, and the list of all networks is a separately locked
+ * view which stores the number of Vertices of each network at its last change.
+ * If a journal is opened, every change is appended to it before it is applied. The journal is compacted into a
+ * snapshot when it grows too large: the files of a generation are the snapshot of all earlier changes and the
+ * journal of the later ones.
  * @author Johannes Stephan
  * @version 1.0
  * @see EscapeNetwork
@@ -16,16 +40,109 @@ import java.util.TreeSet;
 public class EscapeNetworkDatabase {
     private static final String ADD_WAS_VALID = "Added new escape network with identifier %s.";
     private static final String ADD_SECTION_WAS_VALID = "Added new section %s to escape network %s.";
+    private static final String EXPORT_WAS_VALID = "Exported escape network %s to %s.";
+    private static final String SAVE_WAS_VALID = "Saved %d escape networks to %s.";
+    private static final String RESTORE_WAS_VALID = "Restored %d escape networks from %s.";
+    private static final String SOLVER_WAS_SET = "Set solver %s for escape network %s.";
     private static final String FLOW_NETWORK_EMPTY = "EMPTY";
+    private static final String VALID_LIST_OUTPUT = "%s %s";
+    private static final String CACHE_STATISTICS = "%s%ncachedStates=%d%ncachedBytes=%d";
+    private static final Comparator<Pair<Integer, String>> LIST_ORDER
+            = Comparator.comparing((Pair<Integer, String> entry) -> entry.getFirstElement()).reversed()
+            .thenComparing(Pair::getSecondElement);
     private static final int INDEX_JUMP = 1;
-    private static final boolean INITIALIZATION = false;
-    private final Set<EscapeNetwork> escapeNetworkSet;
+    private static final String MAXIMUM_CACHED_STATES_PROPERTY = "escaperoutes.flowCache.maxEntries";
+    private static final String MAXIMUM_CACHED_BYTES_PROPERTY = "escaperoutes.flowCache.maxBytes";
+    private static final int DEFAULT_MAXIMUM_CACHED_STATES = 100_000;
+    private static final long DEFAULT_MAXIMUM_CACHED_BYTES = 512L * 1024 * 1024;
+    private static final String SYNC_POLICY_PROPERTY = "escaperoutes.journal.sync";
+    private static final String SYNC_INTERVAL_PROPERTY = "escaperoutes.journal.syncIntervalMillis";
+    private static final String COMPACTION_BYTES_PROPERTY = "escaperoutes.journal.compactionBytes";
+    private static final String DEFAULT_SYNC_POLICY = "interval";
+    private static final long DEFAULT_SYNC_INTERVAL = 10;
+    private static final long DEFAULT_COMPACTION_BYTES = 64L * 1024 * 1024;
+    private static final String SNAPSHOT_FILE_PREFIX = "snapshot.";
+    private static final String JOURNAL_FILE_PREFIX = "journal.";
+    private final Map<String, EscapeNetwork> escapeNetworkMap;
+    private final Map<String, DatabaseSnapshot.RestoredNetwork> restoredNetworkMap;
+    private final Set<Pair<Integer, String>> escapeNetworkSet;
+    private final ResidualFlowCache residualFlowCache;
+    private final ReadWriteLock journalLock;
+    private volatile Journal journal;
+    private Path journalDirectory;
+    private long journalGeneration;
+    private Journal.SyncPolicy syncPolicy;
+    private long syncIntervalMillis;
+    private long compactionBytes;
 
     /**
-     * Constructor of the Database, which stores the EscapeNetwork
+     * Constructor of the Database, which stores the EscapeNetwork. The networks are found by their identifier
+     * through a concurrent hash index, the sorted set is only used to list them. The memory of the stored residual
+     * states is limited by the system properties escaperoutes.flowCache.maxEntries and escaperoutes.flowCache.maxBytes.
      */
     public EscapeNetworkDatabase() {
-        this.escapeNetworkSet = new TreeSet<>();
+        this(new ResidualFlowCache(Integer.getInteger(MAXIMUM_CACHED_STATES_PROPERTY, DEFAULT_MAXIMUM_CACHED_STATES),
+                Long.getLong(MAXIMUM_CACHED_BYTES_PROPERTY, DEFAULT_MAXIMUM_CACHED_BYTES)));
+    }
+
+    /**
+     * Constructor of the Database with a specific cache
+     * @param residualFlowCache the cache which limits the memory of the residual states of all calculated Flows
+     */
+    public EscapeNetworkDatabase(ResidualFlowCache residualFlowCache) {
+        this.escapeNetworkMap = new ConcurrentHashMap<>();
+        this.restoredNetworkMap = new ConcurrentHashMap<>();
+        this.escapeNetworkSet = new TreeSet<>(LIST_ORDER);
+        this.residualFlowCache = residualFlowCache;
+        this.journalLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Opens the journal in a directory and recovers the database out of the snapshot and the journal of the latest
+     * generation, the files of other generations are deleted. The EscapeNetworks of the snapshot are decoded when
+     * they are used for the first time. The policy of the journal is configured by the system properties
+     * escaperoutes.journal.sync (always, interval or never), escaperoutes.journal.syncIntervalMillis and
+     * escaperoutes.journal.compactionBytes. It has to be called before any other Method.
+     * @param directory the directory of the journal, which is created if it does not exist
+     * @throws SemanticsException if the snapshot or the journal can't be read
+     */
+    public void openJournal(String directory) throws SemanticsException {
+        try {
+            syncPolicy = Journal.SyncPolicy.valueOf(System.getProperty(SYNC_POLICY_PROPERTY, DEFAULT_SYNC_POLICY)
+                    .toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_READABLE);
+        }
+        syncIntervalMillis = Math.max(1, Long.getLong(SYNC_INTERVAL_PROPERTY, DEFAULT_SYNC_INTERVAL));
+        compactionBytes = Long.getLong(COMPACTION_BYTES_PROPERTY, DEFAULT_COMPACTION_BYTES);
+        try {
+            journalDirectory = Paths.get(directory);
+            Files.createDirectories(journalDirectory);
+            journalGeneration = findLatestGeneration();
+            Path snapshot = journalDirectory.resolve(SNAPSHOT_FILE_PREFIX + journalGeneration);
+            if (Files.exists(snapshot)) addRestoredNetworks(DatabaseSnapshot.restore(snapshot));
+            journal = Journal.open(journalDirectory.resolve(JOURNAL_FILE_PREFIX + journalGeneration), syncPolicy,
+                    syncIntervalMillis, this);
+            deleteOtherGenerations();
+        } catch (IOException | InvalidPathException e) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_READABLE);
+        }
+    }
+
+    /**
+     * Writes the pending changes of the journal and closes it
+     * @throws SemanticsException if the journal can't be written
+     */
+    public void closeJournal() throws SemanticsException {
+        journalLock.writeLock().lock();
+        try {
+            if (journal != null) journal.close();
+            journal = null;
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_WRITABLE);
+        } finally {
+            journalLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -38,6 +155,25 @@ public class EscapeNetworkDatabase {
         return searchEscapeNetwork(uniqueIdentifier).getGraphAsString();
     }
 
+    /**
+     * This Method gets the String to explain how the flows of an EscapeNetwork are calculated
+     * @param uniqueIdentifier the identifier of the EscapeNetwork
+     * @return the statistics of the EscapeNetwork followed by the plan of its calculations
+     * @throws SemanticsException if the EscapeNetwork does not exist
+     */
+    public String explainEscapeNetwork(String uniqueIdentifier) throws SemanticsException {
+        return searchEscapeNetwork(uniqueIdentifier).explain();
+    }
+
+    /**
+     * This Method gets the String to print the statistics, which are followed by the size of the flow cache
+     * @return the String which should be printed
+     */
+    public String printStatistics() {
+        return String.format(CACHE_STATISTICS, Statistics.getReport(), residualFlowCache.getNumberOfStates(),
+                residualFlowCache.getUsedBytes());
+    }
+
     /**
      * Adds a totally new EscapeNetwork
      * @param escapeNetwork the escapeNetwork which should be added
@@ -45,23 +181,158 @@ public class EscapeNetworkDatabase {
      * @throws SemanticsException if the UniqueIdentifier already exist
      */
     public String addNewEscapeNetwork(EscapeNetwork escapeNetwork) throws SemanticsException {
-        boolean networkExist = escapeNetworkSet.stream()
-                .anyMatch(escapeNetworkInSet -> escapeNetworkInSet.getUniqueIdentifier()
-                        .equals(escapeNetwork.getUniqueIdentifier()));
-        if (networkExist) throw new SemanticsException(Errors.GRAPH_ALREADY_EXIST);
-        escapeNetworkSet.add(escapeNetwork);
+        escapeNetwork.setResidualFlowCache(residualFlowCache);
+        journalLock.readLock().lock();
+        try {
+            if (exists(escapeNetwork.getUniqueIdentifier())) throw new SemanticsException(Errors.GRAPH_ALREADY_EXIST);
+            if (journal != null) journal.appendAddNetwork(escapeNetwork);
+            if (escapeNetworkMap.putIfAbsent(escapeNetwork.getUniqueIdentifier(), escapeNetwork) != null) {
+                throw new SemanticsException(Errors.GRAPH_ALREADY_EXIST);
+            }
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        synchronized (escapeNetworkSet) {
+            escapeNetworkSet.add(new Pair<>(escapeNetwork.getNumberOfVertices(), escapeNetwork.getUniqueIdentifier()));
+        }
+        compactJournalIfNeeded();
         return String.format(ADD_WAS_VALID, escapeNetwork.getUniqueIdentifier());
     }
 
     /**
-     * Adds a new Section to an existent EscapeNetwork
+     * Loads a new EscapeNetwork out of a file in the DIMACS max-flow format or in the format of the add command
+     * @param uniqueIdentifier the identifier of the new EscapeNetwork
+     * @param path the path of the file
+     * @return a String which states that the EscapeNetwork was added
+     * @throws SemanticsException if the UniqueIdentifier already exist or the file is not a valid network
+     */
+    public String loadEscapeNetwork(String uniqueIdentifier, String path) throws SemanticsException {
+        if (exists(uniqueIdentifier)) throw new SemanticsException(Errors.GRAPH_ALREADY_EXIST);
+        try {
+            return addNewEscapeNetwork(NetworkFile.load(uniqueIdentifier, Paths.get(path)));
+        } catch (InvalidPathException e) {
+            throw new SemanticsException(Errors.NETWORK_FILE_NOT_READABLE);
+        }
+    }
+
+    /**
+     * Exports an EscapeNetwork into a file in the DIMACS max-flow format
+     * @param uniqueIdentifier the identifier of the EscapeNetwork
+     * @param path the path of the file
+     * @return a String which states that the EscapeNetwork was exported
+     * @throws SemanticsException if the EscapeNetwork does not exist or the file can't be written
+     */
+    public String exportEscapeNetwork(String uniqueIdentifier, String path) throws SemanticsException {
+        EscapeNetwork escapeNetwork = searchEscapeNetwork(uniqueIdentifier);
+        try {
+            escapeNetwork.export(Paths.get(path));
+        } catch (InvalidPathException e) {
+            throw new SemanticsException(Errors.NETWORK_FILE_NOT_WRITABLE);
+        }
+        return String.format(EXPORT_WAS_VALID, uniqueIdentifier, path);
+    }
+
+    /**
+     * Saves all EscapeNetworks with their calculated Flows into a binary snapshot. The Commands which change the
+     * database must not run at the same time.
+     * @param path the path of the snapshot
+     * @return a String which states how many EscapeNetworks were saved
+     * @throws SemanticsException if the snapshot can't be written
+     */
+    public String saveDatabase(String path) throws SemanticsException {
+        try {
+            return String.format(SAVE_WAS_VALID, saveSnapshot(Paths.get(path)), path);
+        } catch (InvalidPathException e) {
+            throw new SemanticsException(Errors.SNAPSHOT_NOT_WRITABLE);
+        }
+    }
+
+    /**
+     * Saves all EscapeNetworks into a snapshot, the restored EscapeNetworks which were not used yet are copied
+     * @param path the path of the snapshot
+     * @return the number of saved EscapeNetworks
+     * @throws SemanticsException if the snapshot can't be written
+     */
+    private int saveSnapshot(Path path) throws SemanticsException {
+        List<EscapeNetwork> escapeNetworks = new ArrayList<>(escapeNetworkMap.values());
+        List<DatabaseSnapshot.RestoredNetwork> restoredNetworks = new ArrayList<>();
+        for (DatabaseSnapshot.RestoredNetwork restoredNetwork : restoredNetworkMap.values()) {
+            if (!escapeNetworkMap.containsKey(restoredNetwork.getUniqueIdentifier())) {
+                restoredNetworks.add(restoredNetwork);
+            }
+        }
+        DatabaseSnapshot.save(escapeNetworks, restoredNetworks, path);
+        return escapeNetworks.size() + restoredNetworks.size();
+    }
+
+    /**
+     * Restores the EscapeNetworks of a binary snapshot. Only the directory of the snapshot is read, every
+     * EscapeNetwork is decoded when it is used for the first time. The Commands which use the database must not
+     * run at the same time.
+     * @param path the path of the snapshot
+     * @return a String which states how many EscapeNetworks were restored
+     * @throws SemanticsException if the snapshot can't be read or an EscapeNetwork of it exists already
+     */
+    public String restoreDatabase(String path) throws SemanticsException {
+        List<DatabaseSnapshot.RestoredNetwork> restoredNetworks;
+        try {
+            restoredNetworks = DatabaseSnapshot.restore(Paths.get(path));
+        } catch (InvalidPathException e) {
+            throw new SemanticsException(Errors.SNAPSHOT_NOT_READABLE);
+        }
+        for (DatabaseSnapshot.RestoredNetwork restoredNetwork : restoredNetworks) {
+            if (exists(restoredNetwork.getUniqueIdentifier())) {
+                throw new SemanticsException(Errors.GRAPH_ALREADY_EXIST);
+            }
+        }
+        addRestoredNetworks(restoredNetworks);
+        if (journal != null) {
+            journalLock.writeLock().lock();
+            try {
+                compactJournal();
+            } finally {
+                journalLock.writeLock().unlock();
+            }
+        }
+        return String.format(RESTORE_WAS_VALID, restoredNetworks.size(), path);
+    }
+
+    /**
+     * Adds the EscapeNetworks of a snapshot, which are decoded when they are used for the first time
+     * @param restoredNetworks the restored EscapeNetworks
+     */
+    private void addRestoredNetworks(List<DatabaseSnapshot.RestoredNetwork> restoredNetworks) {
+        for (DatabaseSnapshot.RestoredNetwork restoredNetwork : restoredNetworks) {
+            restoredNetworkMap.put(restoredNetwork.getUniqueIdentifier(), restoredNetwork);
+            synchronized (escapeNetworkSet) {
+                escapeNetworkSet.add(new Pair<>(restoredNetwork.getNumberOfVertices(),
+                        restoredNetwork.getUniqueIdentifier()));
+            }
+        }
+    }
+
+    /**
+     * Adds a new Section to an existent EscapeNetwork. The write lock of the EscapeNetwork is held until its entry
+     * in the sorted set is moved, because its number of Vertices decides its position.
      * @param uniqueIdentifier the identifier of the EscapeNetwork
      * @param edge the Edge which should be added
      * @return a String which states that the section add was valid
      * @throws SemanticsException if the add was not successful
      */
     public String addNewSection(String uniqueIdentifier, Edge edge) throws SemanticsException {
-        searchEscapeNetwork(uniqueIdentifier).addEdge(edge, INITIALIZATION);
+        EscapeNetwork escapeNetwork = searchEscapeNetwork(uniqueIdentifier);
+        journalLock.readLock().lock();
+        Lock writeLock = escapeNetwork.getLock().writeLock();
+        writeLock.lock();
+        try {
+            int oldNumberOfVertices = escapeNetwork.getNumberOfVertices();
+            escapeNetwork.addEdge(edge, journal);
+            updateListEntry(uniqueIdentifier, oldNumberOfVertices, escapeNetwork.getNumberOfVertices());
+        } finally {
+            writeLock.unlock();
+            journalLock.readLock().unlock();
+        }
+        compactJournalIfNeeded();
         return String.format(ADD_SECTION_WAS_VALID, edge.toString(), uniqueIdentifier);
     }
 
@@ -71,15 +342,32 @@ public class EscapeNetworkDatabase {
      */
     public String listNetworks() {
         StringBuilder output = new StringBuilder();
-        if (escapeNetworkSet.isEmpty()) {
-            return FLOW_NETWORK_EMPTY;
-        }
-        for (EscapeNetwork escapeNetwork : escapeNetworkSet) {
-            output.append(escapeNetwork.toString()).append(System.lineSeparator());
+        synchronized (escapeNetworkSet) {
+            if (escapeNetworkSet.isEmpty()) {
+                return FLOW_NETWORK_EMPTY;
+            }
+            for (Pair<Integer, String> entry : escapeNetworkSet) {
+                output.append(String.format(VALID_LIST_OUTPUT, entry.getSecondElement(), entry.getFirstElement()))
+                        .append(System.lineSeparator());
+            }
         }
         return output.deleteCharAt(output.length() - INDEX_JUMP).toString();
     }
 
+    /**
+     * Joins sections to a String
+     * @param cut the sections
+     * @return the sections, one per line, or EMPTY if there is no section
+     */
+    private static String joinSections(List<Edge> cut) {
+        if (cut.isEmpty()) return FLOW_NETWORK_EMPTY;
+        StringJoiner output = new StringJoiner(System.lineSeparator());
+        for (Edge section : cut) {
+            output.add(section.toString());
+        }
+        return output.toString();
+    }
+
     /**
      * Lists the calculated flow on the specific EscapeNetwork
      * @param uniqueIdentifier the identifier of the listed EscapeNetwork
@@ -103,15 +391,306 @@ public class EscapeNetworkDatabase {
     }
 
     /**
-     * Searches an EscapeNetwork in the stored Set
+     * This Method gets the Flow between two Points, or if necessary calculates them with a specific algorithm.
+     * @param uniqueIdentifier the Graph on which the Calculation is executed
+     * @param start the start Vertex
+     * @param end the end Vertex
+     * @param solverType the algorithm which is used for the Calculation
+     * @return the calculated flow Value
+     * @throws SemanticsException if an error occurred during the Calculation
+     */
+    public String calculateOrGetFlow(String uniqueIdentifier, Vertex start, Vertex end, SolverType solverType)
+            throws SemanticsException {
+        return String.valueOf(searchEscapeNetwork(uniqueIdentifier).calculateFlow(start, end, solverType));
+    }
+
+    /**
+     * This Method gets the minimum cut between two Points out of the stored Flow, or if necessary calculates the
+     * Flow once.
+     * @param uniqueIdentifier the Graph on which the Calculation is executed
+     * @param start the start Vertex
+     * @param end the end Vertex
+     * @return the saturated sections of the cut, one per line
+     * @throws SemanticsException if an error occurred during the Calculation
+     */
+    public String calculateCut(String uniqueIdentifier, Vertex start, Vertex end) throws SemanticsException {
+        return joinSections(searchEscapeNetwork(uniqueIdentifier).calculateCut(start, end));
+    }
+
+    /**
+     * This Method gets the minimum cut between two Points out of the stored Flow, or if necessary calculates the
+     * Flow once with a specific algorithm.
+     * @param uniqueIdentifier the Graph on which the Calculation is executed
+     * @param start the start Vertex
+     * @param end the end Vertex
+     * @param solverType the algorithm which is used for the Calculation
+     * @return the saturated sections of the cut, one per line
+     * @throws SemanticsException if an error occurred during the Calculation
+     */
+    public String calculateCut(String uniqueIdentifier, Vertex start, Vertex end, SolverType solverType)
+            throws SemanticsException {
+        return joinSections(searchEscapeNetwork(uniqueIdentifier).calculateCut(start, end, solverType));
+    }
+
+    /**
+     * This Method gets the Flows between many pairs of Points, or if necessary calculates them.
+     * @param uniqueIdentifier the Graph on which the Calculation is executed
+     * @param points the pairs of start and end Vertex
+     * @return the flow values in the order of the pairs, one per line
+     * @throws SemanticsException if one of the pairs is not valid
+     */
+    public String calculateOrGetFlows(String uniqueIdentifier, List<Pair<Vertex, Vertex>> points)
+            throws SemanticsException {
+        return joinFlowValues(searchEscapeNetwork(uniqueIdentifier).calculateFlows(points));
+    }
+
+    /**
+     * This Method gets the Flows between many pairs of Points, or if necessary calculates them with a specific
+     * algorithm.
+     * @param uniqueIdentifier the Graph on which the Calculation is executed
+     * @param points the pairs of start and end Vertex
+     * @param solverType the algorithm which is used for the Calculation
+     * @return the flow values in the order of the pairs, one per line
+     * @throws SemanticsException if one of the pairs is not valid
+     */
+    public String calculateOrGetFlows(String uniqueIdentifier, List<Pair<Vertex, Vertex>> points,
+                                      SolverType solverType) throws SemanticsException {
+        return joinFlowValues(searchEscapeNetwork(uniqueIdentifier).calculateFlows(points, solverType));
+    }
+
+    /**
+     * This Method gets the Flow between a set of start points and a set of end points, or if necessary calculates
+     * it once through virtual super points.
+     * @param uniqueIdentifier the Graph on which the Calculation is executed
+     * @param starts the start Vertices, or null if every valid start point is used
+     * @param ends the end Vertices, or null if every valid end point is used
+     * @return the calculated flow Value
+     * @throws SemanticsException if an error occurred during the Calculation
+     */
+    public String calculateOrGetEvacuationFlow(String uniqueIdentifier, List<Vertex> starts, List<Vertex> ends)
+            throws SemanticsException {
+        return String.valueOf(searchEscapeNetwork(uniqueIdentifier).calculateEvacuationFlow(starts, ends));
+    }
+
+    /**
+     * This Method gets the Flow between a set of start points and a set of end points, or if necessary calculates
+     * it once through virtual super points with a specific algorithm.
+     * @param uniqueIdentifier the Graph on which the Calculation is executed
+     * @param starts the start Vertices, or null if every valid start point is used
+     * @param ends the end Vertices, or null if every valid end point is used
+     * @param solverType the algorithm which is used for the Calculation
+     * @return the calculated flow Value
+     * @throws SemanticsException if an error occurred during the Calculation
+     */
+    public String calculateOrGetEvacuationFlow(String uniqueIdentifier, List<Vertex> starts, List<Vertex> ends,
+                                               SolverType solverType) throws SemanticsException {
+        return String.valueOf(searchEscapeNetwork(uniqueIdentifier).calculateEvacuationFlow(starts, ends,
+                solverType));
+    }
+
+    /**
+     * Sets the algorithm which is used to calculate the flows of an EscapeNetwork
+     * @param uniqueIdentifier the identifier of the EscapeNetwork
+     * @param solverType the algorithm
+     * @return a String which states that the algorithm was set
+     * @throws SemanticsException if the EscapeNetwork does not exist
+     */
+    public String setSolverOfNetwork(String uniqueIdentifier, SolverType solverType) throws SemanticsException {
+        EscapeNetwork escapeNetwork = searchEscapeNetwork(uniqueIdentifier);
+        journalLock.readLock().lock();
+        try {
+            if (journal != null) journal.appendSetSolver(uniqueIdentifier, solverType);
+            escapeNetwork.setSolverType(solverType);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        compactJournalIfNeeded();
+        return String.format(SOLVER_WAS_SET, solverType.getSolverName(), uniqueIdentifier);
+    }
+
+    /**
+     * Adds an EscapeNetwork out of the journal, which was validated before it was journaled. An EscapeNetwork
+     * whose identifier exists already was rejected after it was journaled, so it is skipped again.
+     * @param escapeNetwork the EscapeNetwork
+     */
+    void replayEscapeNetwork(EscapeNetwork escapeNetwork) {
+        if (exists(escapeNetwork.getUniqueIdentifier())) return;
+        escapeNetwork.setResidualFlowCache(residualFlowCache);
+        escapeNetworkMap.put(escapeNetwork.getUniqueIdentifier(), escapeNetwork);
+        synchronized (escapeNetworkSet) {
+            escapeNetworkSet.add(new Pair<>(escapeNetwork.getNumberOfVertices(), escapeNetwork.getUniqueIdentifier()));
+        }
+    }
+
+    /**
+     * Adds a section out of the journal, which was validated before it was journaled
+     * @param uniqueIdentifier the identifier of the EscapeNetwork
+     * @param fromVertex the origin of the section
+     * @param toVertex the destination of the section
+     * @param capacity the capacity of the section
+     * @throws SemanticsException if the EscapeNetwork does not exist
+     */
+    void replaySection(String uniqueIdentifier, Vertex fromVertex, Vertex toVertex, int capacity)
+            throws SemanticsException {
+        EscapeNetwork escapeNetwork = searchEscapeNetwork(uniqueIdentifier);
+        int oldNumberOfVertices = escapeNetwork.getNumberOfVertices();
+        escapeNetwork.replaySection(fromVertex, toVertex, capacity);
+        updateListEntry(uniqueIdentifier, oldNumberOfVertices, escapeNetwork.getNumberOfVertices());
+    }
+
+    /**
+     * Sets the algorithm of an EscapeNetwork out of the journal
+     * @param uniqueIdentifier the identifier of the EscapeNetwork
+     * @param solverType the algorithm
+     * @throws SemanticsException if the EscapeNetwork does not exist
+     */
+    void replaySolver(String uniqueIdentifier, SolverType solverType) throws SemanticsException {
+        searchEscapeNetwork(uniqueIdentifier).setSolverType(solverType);
+    }
+
+    /**
+     * Moves the entry of an EscapeNetwork in the sorted set, if its number of Vertices changed
+     * @param uniqueIdentifier the identifier of the EscapeNetwork
+     * @param oldNumberOfVertices the number of Vertices before the change
+     * @param newNumberOfVertices the number of Vertices after the change
+     */
+    private void updateListEntry(String uniqueIdentifier, int oldNumberOfVertices, int newNumberOfVertices) {
+        if (oldNumberOfVertices == newNumberOfVertices) return;
+        synchronized (escapeNetworkSet) {
+            escapeNetworkSet.remove(new Pair<>(oldNumberOfVertices, uniqueIdentifier));
+            escapeNetworkSet.add(new Pair<>(newNumberOfVertices, uniqueIdentifier));
+        }
+    }
+
+    /**
+     * Compacts the journal, if it grew larger than the configured size. A failed compaction is tried again after
+     * the next change, the journal is still complete.
+     */
+    private void compactJournalIfNeeded() {
+        Journal currentJournal = journal;
+        if (currentJournal == null || currentJournal.getSize() < compactionBytes) return;
+        journalLock.writeLock().lock();
+        try {
+            if (journal != null && journal.getSize() >= compactionBytes) compactJournal();
+        } catch (SemanticsException e) {
+            // the changes are still in the old journal
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts the next generation: all EscapeNetworks are saved into its snapshot, then its empty journal replaces
+     * the old one and the files of the old generation are deleted. The write lock of the journal has to be held,
+     * so no change runs meanwhile.
+     * @throws SemanticsException if the files of the next generation can't be written
+     */
+    private void compactJournal() throws SemanticsException {
+        long nextGeneration = journalGeneration + 1;
+        saveSnapshot(journalDirectory.resolve(SNAPSHOT_FILE_PREFIX + nextGeneration));
+        try {
+            Journal nextJournal = Journal.open(journalDirectory.resolve(JOURNAL_FILE_PREFIX + nextGeneration),
+                    syncPolicy, syncIntervalMillis, this);
+            Journal.syncDirectory(journalDirectory);
+            Journal oldJournal = journal;
+            journal = nextJournal;
+            journalGeneration = nextGeneration;
+            oldJournal.close();
+            deleteOtherGenerations();
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_WRITABLE);
+        }
+    }
+
+    /**
+     * Finds the latest generation, which is the one of the latest complete snapshot
+     * @return the generation, or zero if there is no snapshot
+     * @throws IOException if the directory can't be read
+     */
+    private long findLatestGeneration() throws IOException {
+        long latestGeneration = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDirectory, SNAPSHOT_FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                latestGeneration = Math.max(latestGeneration, getGeneration(file, SNAPSHOT_FILE_PREFIX));
+            }
+        }
+        return latestGeneration;
+    }
+
+    /**
+     * Deletes the snapshots and journals of every generation except the current one
+     * @throws IOException if a file can't be deleted
+     */
+    private void deleteOtherGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDirectory)) {
+            for (Path file : files) {
+                long generation = Math.max(getGeneration(file, SNAPSHOT_FILE_PREFIX),
+                        getGeneration(file, JOURNAL_FILE_PREFIX));
+                if (generation >= 0 && generation != journalGeneration) Files.delete(file);
+            }
+        }
+        Journal.syncDirectory(journalDirectory);
+    }
+
+    /**
+     * Reads the generation out of the name of a snapshot or journal
+     * @param file the file
+     * @param prefix the prefix of the name
+     * @return the generation, or -1 if the file does not belong to a generation
+     */
+    private static long getGeneration(Path file, String prefix) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(prefix)) return -1;
+        try {
+            return Long.parseLong(name.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Joins flow values to the output of a command
+     * @param flowValues the flow values
+     * @return the flow values, one per line
+     */
+    private static String joinFlowValues(long[] flowValues) {
+        StringBuilder output = new StringBuilder();
+        for (long flowValue : flowValues) {
+            output.append(flowValue).append(System.lineSeparator());
+        }
+        return output.deleteCharAt(output.length() - INDEX_JUMP).toString();
+    }
+
+    /**
+     * Searches an EscapeNetwork in the stored Map
      * @param uniqueIdentifier the identifier of a specific EscapeNetwork
      * @return the EscapeNetwork which corresponds to the identifier
      * @throws SemanticsException if the EscapeNetwork which corresponds to the identifier does not exist.
      */
     private EscapeNetwork searchEscapeNetwork(String uniqueIdentifier) throws SemanticsException {
-        return escapeNetworkSet.stream()
-                .filter(escapeNetwork -> escapeNetwork.getUniqueIdentifier().equals(uniqueIdentifier))
-                .findFirst()
-                .orElseThrow(() -> new SemanticsException(Errors.GRAPH_DOES_NOT_EXIST));
+        EscapeNetwork escapeNetwork = escapeNetworkMap.get(uniqueIdentifier);
+        if (escapeNetwork != null) return escapeNetwork;
+        DatabaseSnapshot.RestoredNetwork restoredNetwork = restoredNetworkMap.get(uniqueIdentifier);
+        if (restoredNetwork == null) {
+            /*
+            Another Command may have decoded the network in the meantime, it is stored before it is removed
+             */
+            escapeNetwork = escapeNetworkMap.get(uniqueIdentifier);
+            if (escapeNetwork == null) throw new SemanticsException(Errors.GRAPH_DOES_NOT_EXIST);
+            return escapeNetwork;
+        }
+        escapeNetwork = restoredNetwork.getEscapeNetwork(residualFlowCache);
+        EscapeNetwork storedEscapeNetwork = escapeNetworkMap.putIfAbsent(uniqueIdentifier, escapeNetwork);
+        restoredNetworkMap.remove(uniqueIdentifier, restoredNetwork);
+        return storedEscapeNetwork == null ? escapeNetwork : storedEscapeNetwork;
+    }
+
+    /**
+     * Checks if an EscapeNetwork exists, either used or restored
+     * @param uniqueIdentifier the identifier of the EscapeNetwork
+     * @return true, if the EscapeNetwork exists; false, if not
+     */
+    private boolean exists(String uniqueIdentifier) {
+        return escapeNetworkMap.containsKey(uniqueIdentifier) || restoredNetworkMap.containsKey(uniqueIdentifier);
     }
 }
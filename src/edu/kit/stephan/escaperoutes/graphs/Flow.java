@@ -26,19 +26,19 @@ public class Flow implements Comparable<Flow> {
     }
 
     /**
-     * Returns a Copy of the Start Vertex
-     * @return the copied start Vertex
+     * Returns the Start Vertex, which is immutable
+     * @return the start Vertex
      */
     public Vertex getStartVertex() {
-        return new Vertex(startVertex.toString());
+        return startVertex;
     }
 
     /**
-     * Returns a Copy of the EndVertex
-     * @return the copied start Vertex
+     * Returns the EndVertex, which is immutable
+     * @return the end Vertex
      */
     public Vertex getEndVertex() {
-        return new Vertex(endVertex.toString());
+        return endVertex;
     }
 
     /**
@@ -67,10 +67,8 @@ public class Flow implements Comparable<Flow> {
     @Override
     public int compareTo(Flow flow) {
         if (this.flowValue != flow.getFlowValue()) return Long.compare(this.flowValue, flow.getFlowValue());
-        if (!startVertex.toString().equals(flow.startVertex.toString())) {
-            return startVertex.toString().compareTo(flow.getStartVertex().toString());
-        }
-        return endVertex.toString().compareTo(flow.getEndVertex().toString());
+        if (!startVertex.equals(flow.getStartVertex())) return startVertex.compareTo(flow.getStartVertex());
+        return endVertex.compareTo(flow.getEndVertex());
     }
 
     /**
@@ -83,8 +81,8 @@ public class Flow implements Comparable<Flow> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Flow flow1 = (Flow) o;
-        return flowValue == flow1.flowValue && startVertex.toString().equals(((Flow) o).getStartVertex().toString())
-                && endVertex.toString().equals(((Flow) o).getEndVertex().toString());
+        return flowValue == flow1.flowValue && startVertex.equals(flow1.getStartVertex())
+                && endVertex.equals(flow1.getEndVertex());
     }
 
     /**
@@ -3,7 +3,16 @@ package edu.kit.stephan.escaperoutes.graphs;
 import edu.kit.stephan.escaperoutes.errors.Errors;
 import edu.kit.stephan.escaperoutes.errors.SemanticsException;
 import edu.kit.stephan.escaperoutes.utilities.Pair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -20,31 +29,131 @@ import java.util.TreeSet;
 public class Graph {
     private static final int INDEX_JUMP = 1;
 
-    private final Map<Vertex, Set<Pair<Vertex, Integer>>> graphMap;
+    private final Map<Vertex, NavigableSet<Pair<Vertex, Integer>>> graphMap;
+    private final Map<Vertex, Integer> inDegrees;
+    private final Map<Vertex, Integer> vertexIds;
+    private final Set<Vertex> startPoints;
+    private final Set<Vertex> endPoints;
+    private Deque<Runnable> undoLog;
+    private int modificationCount;
+    private int modificationCountBeforeChange;
+    private int nextVertexId;
 
     /**
      * Constructor of the Graph
      */
     public Graph() {
         graphMap = new TreeMap<>();
+        inDegrees = new HashMap<>();
+        vertexIds = new HashMap<>();
+        startPoints = new HashSet<>();
+        endPoints = new HashSet<>();
+    }
+
+    /**
+     * Starts a tentative change. Every following mutation is recorded until the change is committed or rolled back.
+     */
+    public void beginChange() {
+        undoLog = new ArrayDeque<>();
+        modificationCountBeforeChange = modificationCount;
+    }
+
+    /**
+     * Keeps the mutations of the tentative change
+     */
+    public void commitChange() {
+        undoLog = null;
+    }
+
+    /**
+     * Reverts every mutation of the tentative change, the Graph is exactly the same as before the change
+     */
+    public void rollbackChange() {
+        while (!undoLog.isEmpty()) {
+            undoLog.pop().run();
+        }
+        modificationCount = modificationCountBeforeChange;
+        undoLog = null;
     }
 
     /**
-     * Constructor of Graph with pre set Graph Map
+     * Records how a mutation is reverted, if a tentative change is running
      *
-     * @param graphMap the map which should be preset
+     * @param undoAction the action which reverts the mutation
      */
-    public Graph(Map<Vertex, Set<Pair<Vertex, Integer>>> graphMap) {
-        this.graphMap = graphMap;
+    private void recordUndo(Runnable undoAction) {
+        if (undoLog != null) undoLog.push(undoAction);
+    }
+
+    /**
+     * Getter Method
+     *
+     * @return the number of mutations of the running tentative change, zero if no change is running
+     */
+    int getNumberOfChanges() {
+        return undoLog == null ? 0 : undoLog.size();
+    }
+
+    /**
+     * Getter Method, the count changes with every mutation of the Graph
+     *
+     * @return the number of mutations
+     */
+    int getModificationCount() {
+        return modificationCount;
     }
 
     /**
      * This Method adds a Vertex to a Graph
      *
      * @param vertex to be added
+     * @return the empty sections of the Vertex
+     */
+    private NavigableSet<Pair<Vertex, Integer>> addVertex(Vertex vertex) {
+        NavigableSet<Pair<Vertex, Integer>> sections = new TreeSet<>();
+        graphMap.put(vertex, sections);
+        inDegrees.put(vertex, 0);
+        vertexIds.put(vertex, nextVertexId++);
+        recordUndo(() -> {
+            graphMap.remove(vertex);
+            inDegrees.remove(vertex);
+            vertexIds.remove(vertex);
+        });
+        return sections;
+    }
+
+    /**
+     * Updates the in-degree of a Vertex and refreshes the start and end points of both Vertices of a section
+     *
+     * @param fromVertex the origin of the section
+     * @param toVertex   the destination of the section
+     * @param change     the change of the in-degree of the destination
+     */
+    private void updateDegrees(Vertex fromVertex, Vertex toVertex, int change) {
+        inDegrees.put(toVertex, inDegrees.get(toVertex) + change);
+        refreshStartAndEndPoint(fromVertex);
+        refreshStartAndEndPoint(toVertex);
+    }
+
+    /**
+     * Stores whether a Vertex is a start point, which has outgoing but no incoming sections, or an end point,
+     * which has incoming but no outgoing sections
+     *
+     * @param vertex the Vertex which should be refreshed
      */
-    private void addVertex(Vertex vertex) {
-        graphMap.put(vertex, new TreeSet<>());
+    private void refreshStartAndEndPoint(Vertex vertex) {
+        boolean hasOutgoingSections = !graphMap.get(vertex).isEmpty();
+        boolean hasIncomingSections = inDegrees.get(vertex) > 0;
+        if (hasOutgoingSections && !hasIncomingSections) {
+            startPoints.add(vertex);
+        } else {
+            startPoints.remove(vertex);
+        }
+        if (!hasOutgoingSections && hasIncomingSections) {
+            endPoints.add(vertex);
+        } else {
+            endPoints.remove(vertex);
+        }
     }
 
     /**
@@ -56,36 +165,126 @@ public class Graph {
      * @throws SemanticsException throws an Exception if the Adding is not possible
      */
     public void addEdge(Vertex fromVertex, Vertex toVertex, int capacity) throws SemanticsException {
+        NavigableSet<Pair<Vertex, Integer>> fromSections = graphMap.get(fromVertex);
+        NavigableSet<Pair<Vertex, Integer>> toSections = graphMap.get(toVertex);
 
-        if (graphMap.containsKey(fromVertex) && graphMap.containsKey(toVertex)) {
+        if (fromSections != null && toSections != null) {
             /*
             CHECK OPPOSITE EDGES
              */
-            for (Pair<Vertex, Integer> pair : graphMap.get(toVertex)) {
-                if (pair.getFirstElement().equals(fromVertex)) {
-                    throw new SemanticsException(Errors.CANT_ADD_OPPOSITE_GRAPH_DIRECTION);
-                }
+            if (findSection(toSections, fromVertex) != null) {
+                throw new SemanticsException(Errors.CANT_ADD_OPPOSITE_GRAPH_DIRECTION);
             }
             /*
             UPDATE FLOW
              */
-            for (Pair<Vertex, Integer> pair : graphMap.get(fromVertex)) {
-                if (pair.getFirstElement().equals(toVertex)) {
-                    pair.setSecondElement(capacity);
-
-                    return;
-                }
+            Pair<Vertex, Integer> pair = findSection(fromSections, toVertex);
+            if (pair != null) {
+                int previousCapacity = pair.getSecondElement();
+                pair.setSecondElement(capacity);
+                recordUndo(() -> pair.setSecondElement(previousCapacity));
+                modificationCount++;
+                return;
             }
         }
         /*
         Add Vertices if necessary
          */
-        if (!graphMap.containsKey(fromVertex)) addVertex(fromVertex);
-        if (!graphMap.containsKey(toVertex)) addVertex(toVertex);
+        if (fromSections == null) fromSections = addVertex(fromVertex);
+        if (toSections == null) addVertex(toVertex);
         /*
         Create new Edge
          */
-        graphMap.get(fromVertex).add(new Pair<>(toVertex, capacity));
+        Pair<Vertex, Integer> section = new Pair<>(toVertex, capacity);
+        fromSections.add(section);
+        updateDegrees(fromVertex, toVertex, 1);
+        recordUndo(() -> {
+            graphMap.get(fromVertex).remove(section);
+            updateDegrees(fromVertex, toVertex, -1);
+        });
+        modificationCount++;
+    }
+
+    /**
+     * Finds a section in the sections of its origin, which are sorted by the name of their destination
+     *
+     * @param sections the sections of the origin, or null if the origin does not exist
+     * @param toVertex the destination of the section
+     * @return the destination and capacity of the section, or null if the section does not exist
+     */
+    private static Pair<Vertex, Integer> findSection(NavigableSet<Pair<Vertex, Integer>> sections, Vertex toVertex) {
+        if (sections == null) return null;
+        Pair<Vertex, Integer> section = sections.ceiling(new Pair<>(toVertex, 0));
+        return section != null && section.getFirstElement().equals(toVertex) ? section : null;
+    }
+
+    /**
+     * Adds the sections of a loaded file to the empty Graph. The Vertices are given by their index, so the sections
+     * of a Vertex are found in an array instead of the sorted map, which is filled once per Vertex at the end.
+     * The sections are checked in the given order like added sections.
+     *
+     * @param vertices         the Vertices by their index
+     * @param origins          the index of the origin of every section
+     * @param destinations     the index of the destination of every section
+     * @param capacities       the capacity of every section
+     * @param numberOfSections the number of sections
+     * @throws SemanticsException if two used Vertices have the same name, or a section is a loop, exists already
+     *                            or is opposite to another section
+     */
+    void addSections(Vertex[] vertices, int[] origins, int[] destinations, int[] capacities, int numberOfSections)
+            throws SemanticsException {
+        checkIfVertexNamesAreUnique(vertices, origins, destinations, numberOfSections);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        NavigableSet<Pair<Vertex, Integer>>[] sections = new NavigableSet[vertices.length];
+        int[] sectionInDegrees = new int[vertices.length];
+        for (int i = 0; i < numberOfSections; i++) {
+            int origin = origins[i];
+            int destination = destinations[i];
+            if (origin == destination) throw new SemanticsException(Errors.LOOPS_NOT_ALLOWED);
+            if (sections[origin] == null) sections[origin] = new TreeSet<>();
+            if (findSection(sections[origin], vertices[destination]) != null) {
+                throw new SemanticsException(Errors.CANT_ADD_EDGE_WHICH_EXIST);
+            }
+            if (findSection(sections[destination], vertices[origin]) != null) {
+                throw new SemanticsException(Errors.CANT_ADD_OPPOSITE_GRAPH_DIRECTION);
+            }
+            sections[origin].add(new Pair<>(vertices[destination], capacities[i]));
+            if (sections[destination] == null) sections[destination] = new TreeSet<>();
+            sectionInDegrees[destination]++;
+        }
+        for (int vertex = 0; vertex < vertices.length; vertex++) {
+            if (sections[vertex] == null) continue;
+            graphMap.put(vertices[vertex], sections[vertex]);
+            inDegrees.put(vertices[vertex], sectionInDegrees[vertex]);
+            vertexIds.put(vertices[vertex], nextVertexId++);
+            refreshStartAndEndPoint(vertices[vertex]);
+        }
+        modificationCount++;
+    }
+
+    /**
+     * Checks that no two Vertices which are used by the sections have the same name, otherwise their sections would
+     * be merged into one entry of the sorted map
+     *
+     * @param vertices         the Vertices by their index
+     * @param origins          the index of the origin of every section
+     * @param destinations     the index of the destination of every section
+     * @param numberOfSections the number of sections
+     * @throws SemanticsException if two used Vertices have the same name
+     */
+    private static void checkIfVertexNamesAreUnique(Vertex[] vertices, int[] origins, int[] destinations,
+                                                    int numberOfSections) throws SemanticsException {
+        boolean[] used = new boolean[vertices.length];
+        for (int i = 0; i < numberOfSections; i++) {
+            used[origins[i]] = true;
+            used[destinations[i]] = true;
+        }
+        Set<Vertex> names = new HashSet<>();
+        for (int vertex = 0; vertex < vertices.length; vertex++) {
+            if (used[vertex] && !names.add(vertices[vertex])) {
+                throw new SemanticsException(Errors.VERTEX_NAME_EXISTS);
+            }
+        }
     }
 
     /**
@@ -110,71 +309,81 @@ public class Graph {
         if (!graphMap.containsKey(end)) throw new SemanticsException(Errors.POINT_DOES_NOT_EXIST);
         if (graphMap.get(start).isEmpty()) throw new SemanticsException(Errors.POINTS_ARE_UNREACHABLE);
         if (!graphMap.get(end).isEmpty()) throw new SemanticsException(Errors.POINTS_DONT_MEET_REQUIREMENTS);
-        boolean validEndPoint = false;
-
-        for (Set<Pair<Vertex, Integer>> vertexValues : graphMap.values()) {
-            for (Pair<Vertex, Integer> pair : vertexValues) {
-                if (pair.getFirstElement().equals(start)) {
-                    throw new SemanticsException(Errors.POINTS_DONT_MEET_REQUIREMENTS);
-                }
-                if (pair.getFirstElement().equals(end)) validEndPoint = true;
-            }
-        }
-
-        if (!validEndPoint) throw new SemanticsException(Errors.POINTS_DONT_MEET_REQUIREMENTS);
+        if (!startPoints.contains(start)) throw new SemanticsException(Errors.POINTS_DONT_MEET_REQUIREMENTS);
+        if (!endPoints.contains(end)) throw new SemanticsException(Errors.POINTS_DONT_MEET_REQUIREMENTS);
     }
 
     /**
-     * Method which has to check if the Graph does match the requirements
+     * An Auxiliary method to determine if sets of start and end Vertices are allowed. Every Vertex is checked like
+     * a single start or end Vertex.
      *
-     * @throws SemanticsException throws an Exception if Graph does not meet the requirements
+     * @param starts the start Vertices
+     * @param ends   the end Vertices
+     * @throws SemanticsException throws an Error if Point(s) is(are) not Valid
      */
-    public void checkIfGraphIsValid() throws SemanticsException {
-        boolean validStartPoint = false;
-        boolean validEndPoint = false;
-
-        for (Map.Entry<Vertex, Set<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
-            if (vertexSetEntry.getValue().isEmpty()) {
-                validEndPoint = checkIfEndPointIsValid(vertexSetEntry.getKey(), validEndPoint);
-            }
-            //start vertex
-            if (!vertexSetEntry.getValue().isEmpty() && checkIfStartPointIsValid(vertexSetEntry.getKey())) {
-                validStartPoint = true;
-            }
+    void checkIfStartAndEndPointsAreAllowed(Collection<Vertex> starts, Collection<Vertex> ends)
+            throws SemanticsException {
+        for (Vertex start : starts) {
+            if (!graphMap.containsKey(start)) throw new SemanticsException(Errors.POINT_DOES_NOT_EXIST);
+            if (graphMap.get(start).isEmpty()) throw new SemanticsException(Errors.POINTS_ARE_UNREACHABLE);
+            if (!startPoints.contains(start)) throw new SemanticsException(Errors.POINTS_DONT_MEET_REQUIREMENTS);
         }
-        if (validEndPoint && validStartPoint) {
-            return;
+        for (Vertex end : ends) {
+            if (!graphMap.containsKey(end)) throw new SemanticsException(Errors.POINT_DOES_NOT_EXIST);
+            if (!endPoints.contains(end)) throw new SemanticsException(Errors.POINTS_DONT_MEET_REQUIREMENTS);
         }
-        throw new SemanticsException(Errors.GRAPH_HAS_NO_START_OR_END_POINTS);
     }
 
-    private boolean checkIfStartPointIsValid(Vertex vertex) {
-        boolean checkerValidEndPoint = true;
-        for (Set<Pair<Vertex, Integer>> vertexValues : graphMap.values()) {
-            for (Pair<Vertex, Integer> pair : vertexValues) {
-                if (pair.getFirstElement().equals(vertex)) {
-                    checkerValidEndPoint = false;
-                    break;
-                }
-            }
-        }
-        return checkerValidEndPoint;
+    /**
+     * Getter Method
+     *
+     * @return every valid start point, sorted by name
+     */
+    List<Vertex> getStartPoints() {
+        return new ArrayList<>(new TreeSet<>(startPoints));
     }
 
+    /**
+     * Getter Method
+     *
+     * @return every valid end point, sorted by name
+     */
+    List<Vertex> getEndPoints() {
+        return new ArrayList<>(new TreeSet<>(endPoints));
+    }
 
-    private boolean checkIfEndPointIsValid(Vertex vertex, boolean validEndPoint) {
-        boolean validationOfEndPoint = validEndPoint;
-        if (validationOfEndPoint) return true;
-        for (Map.Entry<Vertex, Set<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
-            for (Pair<Vertex, Integer> pair : vertexSetEntry.getValue()) {
-                if (pair.getFirstElement().equals(vertex)) {
-                    validationOfEndPoint = true;
-                    break;
-                }
-            }
-        }
-        return validationOfEndPoint;
+    /**
+     * An Auxiliary method to determine if start and end Vertices are allowed without an error message
+     *
+     * @param start the start Vertex
+     * @param end   the end Vertex
+     * @return true, if the Points are valid; false, if not
+     */
+    boolean isStartAndEndPointAllowed(Vertex start, Vertex end) {
+        return !start.equals(end) && startPoints.contains(start) && endPoints.contains(end);
+    }
+
+    /**
+     * Creates a compact key out of two existing Vertices. The ids of the Vertices never change, so the key stays
+     * the same while the Graph grows.
+     *
+     * @param start the start Vertex
+     * @param end   the end Vertex
+     * @return the key of the pair of Vertices
+     */
+    long getFlowKey(Vertex start, Vertex end) {
+        return ((long) vertexIds.get(start) << Integer.SIZE) | vertexIds.get(end);
+    }
 
+    /**
+     * Method which has to check if the Graph does match the requirements
+     *
+     * @throws SemanticsException throws an Exception if Graph does not meet the requirements
+     */
+    public void checkIfGraphIsValid() throws SemanticsException {
+        if (startPoints.isEmpty() || endPoints.isEmpty()) {
+            throw new SemanticsException(Errors.GRAPH_HAS_NO_START_OR_END_POINTS);
+        }
     }
 
     /**
@@ -185,7 +394,7 @@ public class Graph {
     @Override
     public String toString() {
         StringBuilder output = new StringBuilder();
-        for (Map.Entry<Vertex, Set<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
+        for (Map.Entry<Vertex, NavigableSet<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
             for (Pair<Vertex, Integer> pair : vertexSetEntry.getValue()) {
                 output.append(vertexSetEntry.getKey().toString()).append(pair.getSecondElement())
                         .append(pair.getFirstElement().toString());
@@ -196,21 +405,11 @@ public class Graph {
     }
 
     /**
-     * Method which is used to create a deepCopy of the GraphMap
+     * Compiles the Graph into an int indexed residual network
      *
-     * @return the deepCopy of the Map
+     * @return the compiled ResidualNetwork
      */
-    public Map<Vertex, Set<Pair<Vertex, Integer>>> copyGraph() {
-        Map<Vertex, Set<Pair<Vertex, Integer>>> output = new TreeMap<>();
-        for (Map.Entry<Vertex, Set<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
-            Vertex vertex1 = new Vertex(vertexSetEntry.getKey().toString());
-            output.put(vertex1, new TreeSet<>());
-            for (Pair<Vertex, Integer> pair : vertexSetEntry.getValue()) {
-                Pair<Vertex, Integer> pair1 = new Pair<>(new Vertex(pair.getFirstElement().toString())
-                        , pair.getSecondElement());
-                output.get(vertex1).add(pair1);
-            }
-        }
-        return output;
+    ResidualNetwork compileResidualNetwork() {
+        return new ResidualNetwork(graphMap);
     }
 }
@@ -0,0 +1,520 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.errors.Errors;
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * This class describes the append-only journal of the changes of a database. A change is appended after it was
+ * validated and before it is applied, so a restarted database replays the journal without validating the changes
+ * again. Every record starts with its length and a checksum, a torn record at the end of the file is cut off.
+ * The records are collected in memory and written by groups: with the policy ALWAYS a change waits until its
+ * record was forced to the disk, and all records which arrive meanwhile are forced together; with INTERVAL the
+ * records are forced in the background after a fixed delay; with NEVER they are only written.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see EscapeNetworkDatabase
+ */
+final class Journal implements Closeable {
+    private static final int MAGIC_NUMBER = 0x45534A4C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAXIMUM_PENDING_BYTES = 1 << 20;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final byte ADD_NETWORK = 1;
+    private static final byte ADD_SECTION = 2;
+    private static final byte SET_SOLVER = 3;
+    private static final String FLUSHER_NAME = "journal-flusher";
+
+    private final FileChannel channel;
+    private final SyncPolicy syncPolicy;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock lock;
+    private final Condition written;
+    private final ByteArrayOutputStream pendingRecords;
+    private long size;
+    private long appendedRecords;
+    private long syncedRecords;
+    private boolean isWriting;
+    private IOException failure;
+
+    /**
+     * Constructor
+     *
+     * @param channel            the file, positioned at its end
+     * @param size               the size of the file
+     * @param syncPolicy         when the records are forced to the disk
+     * @param syncIntervalMillis the delay between two writes in the background
+     */
+    private Journal(FileChannel channel, long size, SyncPolicy syncPolicy, long syncIntervalMillis) {
+        this.channel = channel;
+        this.size = size;
+        this.syncPolicy = syncPolicy;
+        this.lock = new ReentrantLock();
+        this.written = lock.newCondition();
+        this.pendingRecords = new ByteArrayOutputStream();
+        if (syncPolicy == SyncPolicy.ALWAYS) {
+            this.flusher = null;
+        } else {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, FLUSHER_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::writeInBackground, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Opens a journal and replays its records into a database. A torn record at the end is cut off.
+     *
+     * @param path                  the file, which is created if it does not exist
+     * @param syncPolicy            when the records are forced to the disk
+     * @param syncIntervalMillis    the delay between two writes in the background
+     * @param escapeNetworkDatabase the database which gets the changes
+     * @return the journal, which appends after the last complete record
+     * @throws IOException        if the file can't be read or written
+     * @throws SemanticsException if the file is not a journal or a change can't be replayed
+     */
+    static Journal open(Path path, SyncPolicy syncPolicy, long syncIntervalMillis,
+                        EscapeNetworkDatabase escapeNetworkDatabase) throws IOException, SemanticsException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long size = channel.size() < HEADER_SIZE ? writeHeader(channel) : replay(channel, escapeNetworkDatabase);
+            channel.truncate(size);
+            channel.position(size);
+            channel.force(true);
+            return new Journal(channel, size, syncPolicy, syncIntervalMillis);
+        } catch (IOException | SemanticsException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the header into an empty file
+     *
+     * @param channel the file
+     * @return the size of the file
+     * @throws IOException if the file can't be written
+     */
+    private static long writeHeader(FileChannel channel) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC_NUMBER).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        return HEADER_SIZE;
+    }
+
+    /**
+     * Replays the records of a file until its end or the first torn record
+     *
+     * @param channel               the file
+     * @param escapeNetworkDatabase the database which gets the changes
+     * @return the size of the complete records and the header
+     * @throws IOException        if the file can't be read
+     * @throws SemanticsException if the file is not a journal or a change can't be replayed
+     */
+    private static long replay(FileChannel channel, EscapeNetworkDatabase escapeNetworkDatabase)
+            throws IOException, SemanticsException {
+        long fileSize = channel.size();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), READ_BUFFER_SIZE));
+        if (input.readInt() != MAGIC_NUMBER || input.readInt() != VERSION) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_READABLE);
+        }
+        long validSize = HEADER_SIZE;
+        CRC32 checksum = new CRC32();
+        while (fileSize - validSize >= RECORD_HEADER_SIZE) {
+            int length = input.readInt();
+            int expectedChecksum = input.readInt();
+            if (length <= 0 || length > fileSize - validSize - RECORD_HEADER_SIZE) break;
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+            checksum.reset();
+            checksum.update(payload, 0, length);
+            if ((int) checksum.getValue() != expectedChecksum) break;
+            try {
+                apply(ByteBuffer.wrap(payload), escapeNetworkDatabase);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+                throw new SemanticsException(Errors.JOURNAL_NOT_READABLE);
+            }
+            validSize += RECORD_HEADER_SIZE + length;
+        }
+        return validSize;
+    }
+
+    /**
+     * Applies a record to a database. The changes were validated before they were appended, so a new network
+     * is not checked again and a section is added without a tentative change.
+     *
+     * @param payload               the record without length and checksum
+     * @param escapeNetworkDatabase the database
+     * @throws SemanticsException if the change can't be replayed
+     */
+    private static void apply(ByteBuffer payload, EscapeNetworkDatabase escapeNetworkDatabase)
+            throws SemanticsException {
+        switch (payload.get()) {
+            case ADD_NETWORK:
+                EscapeNetwork escapeNetwork = new EscapeNetwork(readName(payload));
+                Vertex[] vertices = new Vertex[payload.getInt()];
+                for (int vertex = 0; vertex < vertices.length; vertex++) {
+                    vertices[vertex] = new Vertex(readName(payload));
+                }
+                int numberOfSections = payload.getInt();
+                int[] origins = new int[numberOfSections];
+                int[] destinations = new int[numberOfSections];
+                int[] capacities = new int[numberOfSections];
+                for (int section = 0; section < numberOfSections; section++) {
+                    origins[section] = payload.getInt();
+                    destinations[section] = payload.getInt();
+                    capacities[section] = payload.getInt();
+                }
+                escapeNetwork.addSections(vertices, origins, destinations, capacities, numberOfSections);
+                escapeNetworkDatabase.replayEscapeNetwork(escapeNetwork);
+                break;
+            case ADD_SECTION:
+                escapeNetworkDatabase.replaySection(readName(payload), new Vertex(readName(payload)),
+                        new Vertex(readName(payload)), payload.getInt());
+                break;
+            case SET_SOLVER:
+                String uniqueIdentifier = readName(payload);
+                SolverType solverType = SolverType.getSolverType(readName(payload));
+                if (solverType == null) throw new SemanticsException(Errors.JOURNAL_NOT_READABLE);
+                escapeNetworkDatabase.replaySolver(uniqueIdentifier, solverType);
+                break;
+            default:
+                throw new SemanticsException(Errors.JOURNAL_NOT_READABLE);
+        }
+    }
+
+    /**
+     * Reads a name, which is stored as its length followed by its characters
+     *
+     * @param payload the record
+     * @return the name
+     */
+    private static String readName(ByteBuffer payload) {
+        byte[] name = new byte[payload.get()];
+        payload.get(name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Appends the creation of a network, whose read lock is held or which is not shared yet
+     *
+     * @param escapeNetwork the validated network
+     * @throws SemanticsException if the record can't be written
+     */
+    void appendAddNetwork(EscapeNetwork escapeNetwork) throws SemanticsException {
+        ResidualNetwork residualNetwork = escapeNetwork.getResidualNetwork();
+        int[] targets = residualNetwork.getTargets();
+        int[] reverseArcs = residualNetwork.getReverseArcs();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream record = startRecord(bytes, ADD_NETWORK);
+            writeName(record, escapeNetwork.getUniqueIdentifier());
+            record.writeInt(residualNetwork.getNumberOfVertices());
+            for (int vertex = 0; vertex < residualNetwork.getNumberOfVertices(); vertex++) {
+                writeName(record, residualNetwork.getVertex(vertex).toString());
+            }
+            record.writeInt(residualNetwork.getNumberOfSections());
+            for (int section = 0; section < residualNetwork.getNumberOfSections(); section++) {
+                int arc = residualNetwork.getSectionArc(section);
+                record.writeInt(targets[reverseArcs[arc]]);
+                record.writeInt(targets[arc]);
+                record.writeInt(residualNetwork.getCapacity(arc));
+            }
+            append(finishRecord(bytes));
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_WRITABLE);
+        }
+    }
+
+    /**
+     * Appends the addition of a section
+     *
+     * @param uniqueIdentifier the name of the network
+     * @param edge             the validated section
+     * @throws SemanticsException if the record can't be written
+     */
+    void appendAddSection(String uniqueIdentifier, Edge edge) throws SemanticsException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream record = startRecord(bytes, ADD_SECTION);
+            writeName(record, uniqueIdentifier);
+            writeName(record, edge.getFromVertex().toString());
+            writeName(record, edge.getToVertex().toString());
+            record.writeInt(edge.getCapacityFlow());
+            append(finishRecord(bytes));
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_WRITABLE);
+        }
+    }
+
+    /**
+     * Appends the change of the algorithm of a network
+     *
+     * @param uniqueIdentifier the name of the network
+     * @param solverType       the algorithm
+     * @throws SemanticsException if the record can't be written
+     */
+    void appendSetSolver(String uniqueIdentifier, SolverType solverType) throws SemanticsException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream record = startRecord(bytes, SET_SOLVER);
+            writeName(record, uniqueIdentifier);
+            writeName(record, solverType.getSolverName());
+            append(finishRecord(bytes));
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.JOURNAL_NOT_WRITABLE);
+        }
+    }
+
+    /**
+     * Starts a record with space for its length and checksum
+     *
+     * @param bytes the buffer of the record
+     * @param type  the type of the change
+     * @return the stream which writes the rest of the record
+     * @throws IOException never, because the record is written into memory
+     */
+    private static DataOutputStream startRecord(ByteArrayOutputStream bytes, byte type) throws IOException {
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeInt(0);
+        record.writeInt(0);
+        record.writeByte(type);
+        return record;
+    }
+
+    /**
+     * Fills in the length and the checksum of a record
+     *
+     * @param bytes the buffer of the record
+     * @return the complete record
+     */
+    private static byte[] finishRecord(ByteArrayOutputStream bytes) {
+        byte[] record = bytes.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(record, RECORD_HEADER_SIZE, record.length - RECORD_HEADER_SIZE);
+        ByteBuffer.wrap(record).putInt(record.length - RECORD_HEADER_SIZE).putInt((int) checksum.getValue());
+        return record;
+    }
+
+    /**
+     * Writes a name as its length followed by its characters
+     *
+     * @param record the record
+     * @param name   the name
+     * @throws IOException never, because the record is written into memory
+     */
+    private static void writeName(DataOutputStream record, String name) throws IOException {
+        record.writeByte(name.length());
+        record.writeBytes(name);
+    }
+
+    /**
+     * Appends a record. With the policy ALWAYS the caller waits until the record was forced to the disk: the
+     * first waiting caller writes every pending record and forces them at once, while the others wait for it.
+     *
+     * @param record the record
+     * @throws SemanticsException if the journal can't be written
+     */
+    private void append(byte[] record) throws SemanticsException {
+        lock.lock();
+        try {
+            checkFailure();
+            pendingRecords.write(record, 0, record.length);
+            long sequence = ++appendedRecords;
+            if (syncPolicy == SyncPolicy.ALWAYS) {
+                while (syncedRecords < sequence) {
+                    if (isWriting) {
+                        written.awaitUninterruptibly();
+                        checkFailure();
+                    } else {
+                        writePendingRecords(true);
+                    }
+                }
+            } else if (pendingRecords.size() >= MAXIMUM_PENDING_BYTES && !isWriting) {
+                writePendingRecords(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending records in the background and forces them with the policy INTERVAL. Only INTERVAL has to
+     * force records which were already written, with NEVER the records are never counted as synced.
+     */
+    private void writeInBackground() {
+        lock.lock();
+        try {
+            boolean force = syncPolicy == SyncPolicy.INTERVAL;
+            if (!isWriting && failure == null
+                    && (pendingRecords.size() > 0 || force && syncedRecords < appendedRecords)) {
+                writePendingRecords(force);
+            }
+        } catch (SemanticsException e) {
+            // the failure is kept and thrown by the next append
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending record. The lock is released while the file is written, so new records are collected
+     * for the next group.
+     *
+     * @param force true, if the records are forced to the disk; false, if not
+     * @throws SemanticsException if the journal can't be written
+     */
+    private void writePendingRecords(boolean force) throws SemanticsException {
+        isWriting = true;
+        ByteBuffer group = ByteBuffer.wrap(pendingRecords.toByteArray());
+        pendingRecords.reset();
+        size += group.capacity();
+        long lastRecord = appendedRecords;
+        IOException exception = null;
+        lock.unlock();
+        try {
+            while (group.hasRemaining()) {
+                channel.write(group);
+            }
+            if (force) channel.force(false);
+        } catch (IOException e) {
+            exception = e;
+        } finally {
+            lock.lock();
+            isWriting = false;
+            written.signalAll();
+        }
+        if (exception != null) failure = exception;
+        checkFailure();
+        if (force) syncedRecords = lastRecord;
+    }
+
+    /**
+     * Throws the failure of an earlier write, a journal which failed once is not written again
+     *
+     * @throws SemanticsException if a write failed
+     */
+    private void checkFailure() throws SemanticsException {
+        if (failure != null) throw new SemanticsException(Errors.JOURNAL_NOT_WRITABLE);
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the size of the journal in bytes, including the pending records
+     */
+    long getSize() {
+        lock.lock();
+        try {
+            return size + pendingRecords.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and forces the pending records and closes the file. The flusher is not interrupted, because an
+     * interrupt during a write would close the file, it finishes its current write instead.
+     *
+     * @throws IOException if the journal can't be written, or an earlier write failed
+     */
+    @Override
+    public void close() throws IOException {
+        boolean interrupted = flusher != null && awaitFlusher();
+        lock.lock();
+        try {
+            while (isWriting) {
+                written.awaitUninterruptibly();
+            }
+            if (failure != null) throw failure;
+            writePendingRecords(true);
+        } catch (SemanticsException e) {
+            throw failure;
+        } finally {
+            lock.unlock();
+            channel.close();
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the flusher after its current write and waits until it terminated. An interrupt of the caller is
+     * deferred, because it would close the file during the last write.
+     *
+     * @return true, if the caller was interrupted while it waited; false, if not
+     */
+    private boolean awaitFlusher() {
+        flusher.shutdown();
+        boolean interrupted = false;
+        while (!flusher.isTerminated()) {
+            try {
+                flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * Forces the entries of a directory to the disk, so a created or moved file survives a crash. Some platforms
+     * can't open a directory, then the entries are left to the file system.
+     *
+     * @param directory the directory
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the directory can't be forced on this platform
+        }
+    }
+
+    /**
+     * Describes when the records are forced to the disk
+     */
+    enum SyncPolicy {
+        /**
+         * Every change waits until its record was forced, concurrent changes share one force
+         */
+        ALWAYS,
+        /**
+         * The records are forced in the background after a fixed delay
+         */
+        INTERVAL,
+        /**
+         * The records are written in the background, the operating system decides when they reach the disk
+         */
+        NEVER
+    }
+}
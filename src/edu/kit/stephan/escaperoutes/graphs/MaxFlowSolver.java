@@ -0,0 +1,24 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+/**
+ * This interface describes an algorithm which calculates the maximum flow on a compiled ResidualNetwork.
+ * The residual capacities are updated in place, so after the calculation they describe the residual graph of the
+ * maximum flow.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see ResidualNetwork
+ * @see SolverType
+ */
+public interface MaxFlowSolver {
+    /**
+     * Calculates the maximum flow between two Vertices
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated by the calculation
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return the value of the maximum flow
+     */
+    long calculateMaxFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink);
+}
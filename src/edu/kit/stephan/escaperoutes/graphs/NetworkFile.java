@@ -0,0 +1,561 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.errors.Errors;
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class loads and exports EscapeNetworks as files. A file is either in the DIMACS max-flow format or a list
+ * of sections like in the add command, which are separated by semicolons or white space. The file is memory mapped,
+ * its Vertices are numbered while it is read, and the Graph gets all sections at once and is validated at the end.
+ * The DIMACS vertices 1, 2, 3, ... are named a, b, c, ..., z, aa, ab, ... unless a comment "c vertex number name"
+ * after the problem line names them. The export writes these comments, so an exported network is loaded with the
+ * same names.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see EscapeNetwork
+ */
+final class NetworkFile {
+    private static final int END_OF_FILE = -1;
+    private static final int ALPHABET_SIZE = 26;
+    private static final int MAXIMUM_NAME_LENGTH = 6;
+    private static final int MAXIMUM_NUMBER_OF_VERTICES = 321_272_406;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final String PROBLEM_TYPE = "max";
+    private static final String VERTEX_COMMENT = "vertex";
+    private static final String SOURCE = "s";
+    private static final String SINK = "t";
+    private static final char SPACE = ' ';
+    private static final char LINE_BREAK = '\n';
+
+    /**
+     * Utility class constructor
+     */
+    private NetworkFile() {
+        throw new IllegalStateException("Utility-class constructor.");
+    }
+
+    /**
+     * Loads an EscapeNetwork out of a file
+     *
+     * @param uniqueIdentifier the identifier of the new EscapeNetwork
+     * @param path             the file
+     * @return the loaded and validated EscapeNetwork
+     * @throws SemanticsException if the file can't be read, has an invalid format or describes an invalid network
+     */
+    static EscapeNetwork load(String uniqueIdentifier, Path path) throws SemanticsException {
+        EscapeNetwork escapeNetwork = new EscapeNetwork(uniqueIdentifier);
+        try (MappedReader reader = new MappedReader(path)) {
+            skipSeparators(reader);
+            if (isWhitespace(reader.peek(1)) && (reader.peek(0) == 'c' || reader.peek(0) == 'p')) {
+                loadDimacs(reader, escapeNetwork);
+            } else {
+                loadSections(reader, escapeNetwork);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new SemanticsException(Errors.NETWORK_FILE_NOT_READABLE);
+        }
+        escapeNetwork.checkGraph();
+        return escapeNetwork;
+    }
+
+    /**
+     * Loads the sections of a file in the format of the add command
+     *
+     * @param reader        the file
+     * @param escapeNetwork the EscapeNetwork which gets the sections
+     * @throws SemanticsException if the format or a section is invalid
+     */
+    private static void loadSections(MappedReader reader, EscapeNetwork escapeNetwork) throws SemanticsException {
+        Map<String, Integer> indices = new HashMap<>();
+        List<Vertex> vertices = new ArrayList<>();
+        SectionBuffer sections = new SectionBuffer();
+        while (reader.peek(0) != END_OF_FILE) {
+            int fromVertex = getIndex(readName(reader), indices, vertices);
+            long capacity = readNumber(reader);
+            int toVertex = getIndex(readName(reader), indices, vertices);
+            if (reader.peek(0) != END_OF_FILE && !isSeparator(reader.peek(0))) {
+                throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+            }
+            sections.add(fromVertex, toVertex, toCapacity(capacity));
+            skipSeparators(reader);
+        }
+        sections.addTo(escapeNetwork, vertices.toArray(new Vertex[0]));
+    }
+
+    /**
+     * Gets the index of a Vertex name, a new name gets the next index
+     *
+     * @param name     the name of the Vertex
+     * @param indices  the indices of the known names
+     * @param vertices the Vertices by their index
+     * @return the index
+     */
+    private static int getIndex(String name, Map<String, Integer> indices, List<Vertex> vertices) {
+        Integer index = indices.get(name);
+        if (index == null) {
+            index = vertices.size();
+            indices.put(name, index);
+            vertices.add(new Vertex(name));
+        }
+        return index;
+    }
+
+    /**
+     * Loads a file in the DIMACS max-flow format. Node lines are only checked, because the start and end points
+     * of an EscapeNetwork are given by its sections.
+     *
+     * @param reader        the file
+     * @param escapeNetwork the EscapeNetwork which gets the sections
+     * @throws SemanticsException if the format or a section is invalid
+     */
+    private static void loadDimacs(MappedReader reader, EscapeNetwork escapeNetwork) throws SemanticsException {
+        Vertex[] vertices = null;
+        Map<String, Integer> usedNames = new HashMap<>();
+        SectionBuffer sections = new SectionBuffer();
+        int lineType = reader.read();
+        while (lineType != END_OF_FILE) {
+            switch (lineType) {
+                case '\n':
+                case '\r':
+                    lineType = reader.read();
+                    continue;
+                case 'c':
+                    if (vertices != null) readVertexComment(reader, vertices, usedNames);
+                    skipLine(reader);
+                    lineType = reader.read();
+                    continue;
+                case 'p':
+                    if (vertices != null) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+                    skipSpaces(reader);
+                    if (!PROBLEM_TYPE.equals(readWord(reader))) {
+                        throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+                    }
+                    long numberOfVertices = readNumber(reader);
+                    readNumber(reader);
+                    if (numberOfVertices > MAXIMUM_NUMBER_OF_VERTICES) {
+                        throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+                    }
+                    vertices = new Vertex[(int) numberOfVertices + 1];
+                    break;
+                case 'n':
+                    readVertexNumber(reader, vertices);
+                    skipSpaces(reader);
+                    String nodeType = readWord(reader);
+                    if (!SOURCE.equals(nodeType) && !SINK.equals(nodeType)) {
+                        throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+                    }
+                    break;
+                case 'a':
+                    int fromVertex = readVertexNumber(reader, vertices);
+                    int toVertex = readVertexNumber(reader, vertices);
+                    nameVertex(vertices, fromVertex, usedNames);
+                    nameVertex(vertices, toVertex, usedNames);
+                    sections.add(fromVertex, toVertex, toCapacity(readNumber(reader)));
+                    break;
+                default:
+                    throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+            }
+            skipSpaces(reader);
+            lineType = reader.read();
+            if (lineType != END_OF_FILE && lineType != '\n' && lineType != '\r') {
+                throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+            }
+        }
+        if (vertices == null) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+        sections.addTo(escapeNetwork, vertices);
+    }
+
+    /**
+     * Reads the name of a DIMACS vertex out of a comment, if the comment has the form "c vertex number name". A
+     * vertex has to be named before it is used by an arc, and no name is given which was already given or
+     * assigned to a used vertex.
+     *
+     * @param reader     the file after the c of the comment
+     * @param vertices   the vertices which were named or used already
+     * @param usedNames  the numbers of the named and the used vertices by their name
+     * @throws SemanticsException if the name is invalid
+     */
+    private static void readVertexComment(MappedReader reader, Vertex[] vertices, Map<String, Integer> usedNames)
+            throws SemanticsException {
+        skipSpaces(reader);
+        if (!VERTEX_COMMENT.equals(readWord(reader))) return;
+        int number = readVertexNumber(reader, vertices);
+        skipSpaces(reader);
+        String name = readWord(reader);
+        if (vertices[number] != null || name.isEmpty() || name.length() > MAXIMUM_NAME_LENGTH
+                || !name.chars().allMatch(character -> character >= 'a' && character <= 'z')
+                || usedNames.putIfAbsent(name, number) != null) {
+            throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+        }
+        vertices[number] = new Vertex(name);
+    }
+
+    /**
+     * Names a used DIMACS vertex after its number, if it has no given name
+     *
+     * @param vertices   the vertices which were named or used already
+     * @param number     the number of the vertex
+     * @param usedNames  the numbers of the named and the used vertices by their name
+     * @throws SemanticsException if the name of the number was given to another vertex
+     */
+    private static void nameVertex(Vertex[] vertices, int number, Map<String, Integer> usedNames)
+            throws SemanticsException {
+        if (vertices[number] == null) {
+            String name = createName(number);
+            if (usedNames.putIfAbsent(name, number) != null) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+            vertices[number] = new Vertex(name);
+        }
+    }
+
+    /**
+     * Creates the name of a vertex number in the bijective base 26, so 1 is a, 26 is z and 27 is aa
+     *
+     * @param number the number of the vertex
+     * @return the name
+     */
+    private static String createName(int number) {
+        char[] name = new char[MAXIMUM_NAME_LENGTH];
+        int start = MAXIMUM_NAME_LENGTH;
+        int rest = number;
+        while (rest > 0) {
+            rest--;
+            name[--start] = (char) ('a' + rest % ALPHABET_SIZE);
+            rest /= ALPHABET_SIZE;
+        }
+        return new String(name, start, MAXIMUM_NAME_LENGTH - start);
+    }
+
+    /**
+     * Reads the number of a DIMACS vertex
+     *
+     * @param reader   the file
+     * @param vertices the vertices of the problem, or null if the problem line is missing
+     * @return the number of the vertex
+     * @throws SemanticsException if the number is not a vertex of the problem
+     */
+    private static int readVertexNumber(MappedReader reader, Vertex[] vertices) throws SemanticsException {
+        if (vertices == null) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+        long number = readNumber(reader);
+        if (number < 1 || number >= vertices.length) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+        return (int) number;
+    }
+
+    /**
+     * Reads the name of a Vertex, which consists of one to six lower case letters
+     *
+     * @param reader the file
+     * @return the name
+     * @throws SemanticsException if there is no valid name
+     */
+    private static String readName(MappedReader reader) throws SemanticsException {
+        char[] name = new char[MAXIMUM_NAME_LENGTH];
+        int length = 0;
+        while (length < MAXIMUM_NAME_LENGTH && reader.peek(0) >= 'a' && reader.peek(0) <= 'z') {
+            name[length++] = (char) reader.read();
+        }
+        if (length == 0) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+        return new String(name, 0, length);
+    }
+
+    /**
+     * Reads a word of letters
+     *
+     * @param reader the file
+     * @return the word, which is empty if there is none
+     */
+    private static String readWord(MappedReader reader) {
+        StringBuilder word = new StringBuilder();
+        while (Character.isLetter(reader.peek(0))) {
+            word.append((char) reader.read());
+        }
+        return word.toString();
+    }
+
+    /**
+     * Reads a positive number after optional spaces. The value is limited, so it never overflows.
+     *
+     * @param reader the file
+     * @return the number, or a value greater than the maximum int if the number is too big
+     * @throws SemanticsException if there is no number
+     */
+    private static long readNumber(MappedReader reader) throws SemanticsException {
+        skipSpaces(reader);
+        long number = 0;
+        boolean hasDigits = false;
+        while (reader.peek(0) >= '0' && reader.peek(0) <= '9') {
+            int digit = reader.read() - '0';
+            if (number <= Integer.MAX_VALUE) number = number * 10 + digit;
+            hasDigits = true;
+        }
+        if (!hasDigits) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+        return number;
+    }
+
+    /**
+     * Converts a read number into the capacity of a section
+     *
+     * @param number the read number
+     * @return the capacity
+     * @throws SemanticsException if the capacity is zero or not an int
+     */
+    private static int toCapacity(long number) throws SemanticsException {
+        if (number == 0) throw new SemanticsException(Errors.NETWORK_FILE_INVALID);
+        if (number > Integer.MAX_VALUE) throw new SemanticsException(Errors.CAPACITY_IS_NOT_A_INT);
+        return (int) number;
+    }
+
+    /**
+     * Skips spaces and tabs
+     *
+     * @param reader the file
+     */
+    private static void skipSpaces(MappedReader reader) {
+        while (reader.peek(0) == ' ' || reader.peek(0) == '\t') {
+            reader.read();
+        }
+    }
+
+    /**
+     * Skips the separators between sections
+     *
+     * @param reader the file
+     */
+    private static void skipSeparators(MappedReader reader) {
+        while (isSeparator(reader.peek(0))) {
+            reader.read();
+        }
+    }
+
+    /**
+     * Skips the rest of the line, but not the line break
+     *
+     * @param reader the file
+     */
+    private static void skipLine(MappedReader reader) {
+        while (reader.peek(0) != END_OF_FILE && reader.peek(0) != '\n' && reader.peek(0) != '\r') {
+            reader.read();
+        }
+    }
+
+    /**
+     * Checks if a character is white space
+     *
+     * @param character the character
+     * @return true, if it is a space, a tab or a line break; false, if not
+     */
+    private static boolean isWhitespace(int character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\r';
+    }
+
+    /**
+     * Checks if a character separates two sections
+     *
+     * @param character the character
+     * @return true, if it is white space or a semicolon; false, if not
+     */
+    private static boolean isSeparator(int character) {
+        return isWhitespace(character) || character == ';';
+    }
+
+    /**
+     * Exports a compiled network in the DIMACS max-flow format. The vertices are numbered in the order of their
+     * names and named by comments, every start point is written as source and every end point as sink.
+     *
+     * @param residualNetwork the compiled network
+     * @param path            the file
+     * @throws SemanticsException if the file can't be written
+     */
+    static void export(ResidualNetwork residualNetwork, Path path) throws SemanticsException {
+        int numberOfVertices = residualNetwork.getNumberOfVertices();
+        int[] targets = residualNetwork.getTargets();
+        int[] reverseArcs = residualNetwork.getReverseArcs();
+        boolean[] hasIncomingSections = new boolean[numberOfVertices];
+        boolean[] hasOutgoingSections = new boolean[numberOfVertices];
+        for (int section = 0; section < residualNetwork.getNumberOfSections(); section++) {
+            int arc = residualNetwork.getSectionArc(section);
+            hasIncomingSections[targets[arc]] = true;
+            hasOutgoingSections[targets[reverseArcs[arc]]] = true;
+        }
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path),
+                StandardCharsets.US_ASCII), WRITE_BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder();
+            writeLine(writer, line.append('p').append(SPACE).append(PROBLEM_TYPE).append(SPACE)
+                    .append(numberOfVertices).append(SPACE).append(residualNetwork.getNumberOfSections()));
+            for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+                writeLine(writer, line.append('c').append(SPACE).append(VERTEX_COMMENT).append(SPACE)
+                        .append(vertex + 1).append(SPACE).append(residualNetwork.getVertex(vertex)));
+            }
+            for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+                if (hasOutgoingSections[vertex] != hasIncomingSections[vertex]) {
+                    writeLine(writer, line.append('n').append(SPACE).append(vertex + 1).append(SPACE)
+                            .append(hasOutgoingSections[vertex] ? SOURCE : SINK));
+                }
+            }
+            for (int section = 0; section < residualNetwork.getNumberOfSections(); section++) {
+                int arc = residualNetwork.getSectionArc(section);
+                writeLine(writer, line.append('a').append(SPACE).append(targets[reverseArcs[arc]] + 1).append(SPACE)
+                        .append(targets[arc] + 1).append(SPACE).append(residualNetwork.getCapacity(arc)));
+            }
+        } catch (IOException e) {
+            throw new SemanticsException(Errors.NETWORK_FILE_NOT_WRITABLE);
+        }
+    }
+
+    /**
+     * Writes a line and clears it for the next one
+     *
+     * @param writer the file
+     * @param line   the line without line break
+     * @throws IOException if the file can't be written
+     */
+    private static void writeLine(Writer writer, StringBuilder line) throws IOException {
+        writer.append(line).append(LINE_BREAK);
+        line.setLength(0);
+    }
+
+    /**
+     * This class collects the read sections by the indices of their Vertices, so the Graph gets all of them at once
+     */
+    private static final class SectionBuffer {
+        private static final int INITIAL_CAPACITY = 1024;
+        private int[] origins;
+        private int[] destinations;
+        private int[] capacities;
+        private int size;
+
+        /**
+         * Constructor
+         */
+        private SectionBuffer() {
+            this.origins = new int[INITIAL_CAPACITY];
+            this.destinations = new int[INITIAL_CAPACITY];
+            this.capacities = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Adds a section
+         *
+         * @param origin      the index of the origin
+         * @param destination the index of the destination
+         * @param capacity    the capacity
+         */
+        private void add(int origin, int destination, int capacity) {
+            if (size == origins.length) {
+                origins = Arrays.copyOf(origins, size * 2);
+                destinations = Arrays.copyOf(destinations, size * 2);
+                capacities = Arrays.copyOf(capacities, size * 2);
+            }
+            origins[size] = origin;
+            destinations[size] = destination;
+            capacities[size] = capacity;
+            size++;
+        }
+
+        /**
+         * Adds the sections to an empty EscapeNetwork
+         *
+         * @param escapeNetwork the EscapeNetwork
+         * @param vertices      the Vertices by their index
+         * @throws SemanticsException if a section is a loop, exists twice or is opposite to another section
+         */
+        private void addTo(EscapeNetwork escapeNetwork, Vertex[] vertices) throws SemanticsException {
+            escapeNetwork.addSections(vertices, origins, destinations, capacities, size);
+        }
+    }
+
+    /**
+     * This class reads a file through memory mapped windows of at most one gigabyte, so files of any size can be
+     * read without copying them into the heap
+     */
+    private static final class MappedReader implements Closeable {
+        private static final long WINDOW_SIZE = 1L << 30;
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        /**
+         * Constructor, which maps the first window
+         *
+         * @param path the file
+         * @throws IOException if the file can't be opened or mapped
+         */
+        private MappedReader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size();
+            map(0);
+        }
+
+        /**
+         * Maps the window which starts at a position of the file
+         *
+         * @param start the position of the file
+         * @throws IOException if the file can't be mapped
+         */
+        private void map(long start) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        }
+
+        /**
+         * Gets a character after the current position without reading it. The next window is mapped when the
+         * character lies behind the current one.
+         *
+         * @param offset the distance to the current position
+         * @return the character, or -1 if the file ends before
+         */
+        private int peek(int offset) {
+            if (window.position() + offset >= window.limit()) {
+                long position = windowStart + window.position();
+                if (position + offset >= size) return END_OF_FILE;
+                try {
+                    map(position);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return window.get(window.position() + offset) & 0xFF;
+        }
+
+        /**
+         * Reads the character at the current position
+         *
+         * @return the character, or -1 if the file ends
+         */
+        private int read() {
+            int character = peek(0);
+            if (character != END_OF_FILE) window.position(window.position() + 1);
+            return character;
+        }
+
+        /**
+         * Closes the file, the mapped windows are released by the garbage collector
+         *
+         * @throws IOException if the file can't be closed
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import java.util.Locale;
+
+/**
+ * This class describes the statistics of a compiled network, which are used to plan the flow calculation. The
+ * statistics are calculated once per compilation, so they are renewed whenever the Graph was changed.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see ResidualNetwork
+ * @see SolverPlanner
+ */
+final class NetworkStatistics {
+    private static final String OUTPUT_TO_STRING = "vertices %d, sections %d, arcs %d, density %.4f%n"
+            + "capacities %d..%d, ratio %d, unit %s%nlayers %d";
+    private static final String YES = "yes";
+    private static final String NO = "no";
+    private static final int NOT_REACHED = -1;
+    private final int numberOfVertices;
+    private final int numberOfSections;
+    private final int numberOfArcs;
+    private final double density;
+    private final int minimumCapacity;
+    private final int maximumCapacity;
+    private final int numberOfLayers;
+
+    /**
+     * Constructor, which calculates the statistics of a compiled network
+     *
+     * @param residualNetwork the compiled network
+     */
+    NetworkStatistics(ResidualNetwork residualNetwork) {
+        this.numberOfVertices = residualNetwork.getNumberOfVertices();
+        this.numberOfSections = residualNetwork.getNumberOfSections();
+        this.numberOfArcs = residualNetwork.getNumberOfArcs();
+        this.density = numberOfVertices < 2
+                ? 0 : numberOfSections / ((double) numberOfVertices * (numberOfVertices - 1));
+        int minimum = numberOfSections == 0 ? 0 : Integer.MAX_VALUE;
+        int maximum = 0;
+        for (int section = 0; section < numberOfSections; section++) {
+            int capacity = residualNetwork.getCapacity(residualNetwork.getSectionArc(section));
+            minimum = Math.min(minimum, capacity);
+            maximum = Math.max(maximum, capacity);
+        }
+        this.minimumCapacity = minimum;
+        this.maximumCapacity = maximum;
+        this.numberOfLayers = countLayers(residualNetwork);
+    }
+
+    /**
+     * Counts the layers of a network with a breadth first search from every start point over the sections. A start
+     * point has sections but is not reached by any section, reverse arcs are the only arcs without capacity.
+     *
+     * @param residualNetwork the compiled network
+     * @return the number of layers, which is the longest distance from the start points plus one
+     */
+    private static int countLayers(ResidualNetwork residualNetwork) {
+        int[] offsets = residualNetwork.getOffsets();
+        int[] targets = residualNetwork.getTargets();
+        int[] layers = new int[residualNetwork.getNumberOfVertices()];
+        int[] vertexQueue = new int[residualNetwork.getNumberOfVertices()];
+        int head = 0;
+        int tail = 0;
+        for (int vertex = 0; vertex < layers.length; vertex++) {
+            boolean isStartPoint = offsets[vertex] < offsets[vertex + 1];
+            for (int arc = offsets[vertex]; arc < offsets[vertex + 1] && isStartPoint; arc++) {
+                isStartPoint = residualNetwork.getCapacity(arc) > 0;
+            }
+            layers[vertex] = isStartPoint ? 0 : NOT_REACHED;
+            if (isStartPoint) vertexQueue[tail++] = vertex;
+        }
+        int deepestLayer = NOT_REACHED;
+        while (head < tail) {
+            int current = vertexQueue[head++];
+            deepestLayer = layers[current];
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (residualNetwork.getCapacity(arc) > 0 && layers[targets[arc]] == NOT_REACHED) {
+                    layers[targets[arc]] = layers[current] + 1;
+                    vertexQueue[tail++] = targets[arc];
+                }
+            }
+        }
+        return deepestLayer + 1;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of Vertices
+     */
+    int getNumberOfVertices() {
+        return numberOfVertices;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of arcs, which is twice the number of sections
+     */
+    int getNumberOfArcs() {
+        return numberOfArcs;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the ratio of the highest and the lowest capacity
+     */
+    long getCapacityRatio() {
+        return minimumCapacity == 0 ? 0 : maximumCapacity / minimumCapacity;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return true, if every section has the capacity one; false, if not
+     */
+    boolean hasUnitCapacities() {
+        return numberOfSections > 0 && maximumCapacity == 1;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of layers reached from the start points
+     */
+    int getNumberOfLayers() {
+        return numberOfLayers;
+    }
+
+    /**
+     * To String Method
+     *
+     * @return the statistics, one group per line
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, OUTPUT_TO_STRING, numberOfVertices, numberOfSections, numberOfArcs,
+                density, minimumCapacity, maximumCapacity, getCapacityRatio(), hasUnitCapacities() ? YES : NO,
+                numberOfLayers);
+    }
+}
@@ -0,0 +1,318 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * This class calculates the maximum flow with a lock-free parallel Push-Relabel Algorithm in the style of Hong.
+ * The active Vertices are discharged in pulses on the common fork-join pool. A Vertex is only discharged by one
+ * thread at a time: it pushes to its lowest residual neighbour if it is higher, and lifts itself above the
+ * neighbour otherwise. Residual capacities and excesses are changed with atomic additions, so several threads may
+ * push into the same Vertex, and the heights are read and written atomically. Between the pulses the heights are
+ * recalculated by a parallel breadth first search from the end point, which claims every Vertex with a single
+ * compare and set. Networks below a threshold are calculated by the sequential Push-Relabel Algorithm.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see MaxFlowSolver
+ * @see PushRelabelSolver
+ */
+public class ParallelPushRelabelSolver implements MaxFlowSolver {
+    private static final String MINIMUM_ARCS_PROPERTY = "escaperoutes.parallelPushRelabel.minimumArcs";
+    private static final int DEFAULT_MINIMUM_ARCS = 1 << 18;
+    /**
+     * The number of arcs from which the calculation runs in parallel
+     */
+    static final int MINIMUM_ARCS = Integer.getInteger(MINIMUM_ARCS_PROPERTY, DEFAULT_MINIMUM_ARCS);
+    private static final MaxFlowSolver SEQUENTIAL_SOLVER = new PushRelabelSolver();
+
+    /**
+     * Calculates the maximum flow between two Vertices
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated by the calculation
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return the value of the maximum flow
+     */
+    @Override
+    public long calculateMaxFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+        if (residualNetwork.getNumberOfArcs() < MINIMUM_ARCS) {
+            return SEQUENTIAL_SOLVER.calculateMaxFlow(residualNetwork, residualCapacities, source, sink);
+        }
+        Calculation calculation = new Calculation(residualNetwork, residualCapacities, source, sink);
+        long output = calculation.calculateMaximumPreflow();
+        long[] excess = calculation.copyResult(residualCapacities);
+        PushRelabelSolver.returnExcessToSource(residualNetwork, residualCapacities, excess, source, sink);
+        return output;
+    }
+
+    /**
+     * This class holds the shared state of a single calculation
+     */
+    private static final class Calculation {
+        private static final int MINIMUM_PARALLEL_VERTICES = 256;
+        private static final int RANGES_PER_THREAD = 8;
+        private final int numberOfVertices;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] reverseArcs;
+        private final AtomicIntegerArray residualCapacities;
+        private final AtomicLongArray excess;
+        private final AtomicIntegerArray heights;
+        private final AtomicIntegerArray queuedPulses;
+        private final AtomicInteger nextSize;
+        private final int[] levelQueue;
+        private final int source;
+        private final int sink;
+        private final int numberOfRanges;
+        private int[] active;
+        private int[] next;
+        private int activeSize;
+        private int pulse;
+
+        /**
+         * Constructor
+         *
+         * @param residualNetwork    the compiled network
+         * @param residualCapacities the residual capacity of each arc, which is copied
+         * @param source             the index of the start Vertex
+         * @param sink               the index of the end Vertex
+         */
+        private Calculation(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+            this.numberOfVertices = residualNetwork.getNumberOfVertices();
+            this.offsets = residualNetwork.getOffsets();
+            this.targets = residualNetwork.getTargets();
+            this.reverseArcs = residualNetwork.getReverseArcs();
+            this.residualCapacities = new AtomicIntegerArray(residualCapacities);
+            this.excess = new AtomicLongArray(numberOfVertices);
+            this.heights = new AtomicIntegerArray(numberOfVertices);
+            this.queuedPulses = new AtomicIntegerArray(numberOfVertices);
+            this.nextSize = new AtomicInteger();
+            this.source = source;
+            this.sink = sink;
+            this.numberOfRanges = ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_THREAD;
+            this.active = new int[numberOfVertices];
+            this.next = new int[numberOfVertices];
+            this.levelQueue = new int[numberOfVertices];
+        }
+
+        /**
+         * Saturates the arcs of the start point and discharges the active Vertices in pulses, until a global
+         * relabeling finds no Vertex with excess which can still reach the end point
+         *
+         * @return the excess of the end point, which is the value of the maximum flow
+         */
+        private long calculateMaximumPreflow() {
+            for (int arc = offsets[source]; arc < offsets[source + 1]; arc++) {
+                int flow = residualCapacities.get(arc);
+                if (flow > 0) {
+                    residualCapacities.set(arc, 0);
+                    residualCapacities.addAndGet(reverseArcs[arc], flow);
+                    excess.addAndGet(targets[arc], flow);
+                    excess.addAndGet(source, -flow);
+                }
+            }
+            long relabelsSinceGlobalRelabel = numberOfVertices;
+            while (true) {
+                if (activeSize == 0 || relabelsSinceGlobalRelabel >= numberOfVertices) {
+                    globalRelabel();
+                    relabelsSinceGlobalRelabel = 0;
+                    if (activeSize == 0) break;
+                }
+                relabelsSinceGlobalRelabel += runPulse();
+            }
+            return excess.get(sink);
+        }
+
+        /**
+         * Discharges every active Vertex once, in parallel if there are enough of them. The Vertices which received
+         * excess form the active Vertices of the next pulse.
+         *
+         * @return the number of relabels of the pulse
+         */
+        private long runPulse() {
+            pulse++;
+            nextSize.set(0);
+            long relabels;
+            if (activeSize < MINIMUM_PARALLEL_VERTICES) {
+                relabels = dischargeRange(0, activeSize);
+            } else {
+                int ranges = Math.min(numberOfRanges, activeSize);
+                relabels = IntStream.range(0, ranges).parallel().mapToLong(range -> dischargeRange(
+                        (int) ((long) activeSize * range / ranges),
+                        (int) ((long) activeSize * (range + 1) / ranges))).sum();
+            }
+            int[] oldActive = active;
+            active = next;
+            next = oldActive;
+            activeSize = nextSize.get();
+            return relabels;
+        }
+
+        /**
+         * Discharges a range of the active Vertices
+         *
+         * @param from the first position in the active Vertices
+         * @param to   the position after the range
+         * @return the number of relabels
+         */
+        private long dischargeRange(int from, int to) {
+            long pushes = 0;
+            long relabels = 0;
+            long edgesScanned = 0;
+            for (int position = from; position < to; position++) {
+                int vertex = active[position];
+                long vertexExcess = excess.get(vertex);
+                int height = heights.get(vertex);
+                while (vertexExcess > 0 && height < numberOfVertices) {
+                    int lowestArc = -1;
+                    int lowestHeight = Integer.MAX_VALUE;
+                    for (int arc = offsets[vertex]; arc < offsets[vertex + 1]; arc++) {
+                        if (residualCapacities.get(arc) > 0) {
+                            int targetHeight = heights.get(targets[arc]);
+                            if (targetHeight < lowestHeight) {
+                                lowestHeight = targetHeight;
+                                lowestArc = arc;
+                            }
+                        }
+                    }
+                    edgesScanned += offsets[vertex + 1] - offsets[vertex];
+                    if (lowestArc < 0) {
+                        height = numberOfVertices;
+                        heights.set(vertex, height);
+                    } else if (height > lowestHeight) {
+                        /*
+                        Only this thread lowers the residual capacity of the arc and the excess of the Vertex,
+                        the other threads can only raise them, so the flow never becomes too large
+                         */
+                        int flow = (int) Math.min(vertexExcess, residualCapacities.get(lowestArc));
+                        int target = targets[lowestArc];
+                        residualCapacities.addAndGet(lowestArc, -flow);
+                        residualCapacities.addAndGet(reverseArcs[lowestArc], flow);
+                        vertexExcess = excess.addAndGet(vertex, -flow);
+                        excess.addAndGet(target, flow);
+                        activate(target);
+                        pushes++;
+                    } else {
+                        height = lowestHeight + 1;
+                        heights.set(vertex, height);
+                        relabels++;
+                    }
+                }
+            }
+            Counter.PUSHES.add(pushes);
+            Counter.RELABELS.add(relabels);
+            Counter.VERTICES_SCANNED.add(to - from);
+            Counter.EDGES_SCANNED.add(edgesScanned);
+            return relabels;
+        }
+
+        /**
+         * Adds a Vertex to the active Vertices of the next pulse, unless it was added already
+         *
+         * @param vertex the Vertex which received excess
+         */
+        private void activate(int vertex) {
+            if (vertex == sink || vertex == source) return;
+            int queuedPulse = queuedPulses.get(vertex);
+            if (queuedPulse != pulse && queuedPulses.compareAndSet(vertex, queuedPulse, pulse)) {
+                next[nextSize.getAndIncrement()] = vertex;
+            }
+        }
+
+        /**
+         * Sets every height to the distance to the end point in the residual graph with a parallel breadth first
+         * search and collects the active Vertices. Vertices which cannot reach the end point get the height of the
+         * start point and keep their excess.
+         */
+        private void globalRelabel() {
+            for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+                heights.set(vertex, numberOfVertices);
+            }
+            heights.set(sink, 0);
+            pulse++;
+            int[] frontier = next;
+            int[] found = levelQueue;
+            frontier[0] = sink;
+            int frontierSize = 1;
+            int verticesFound = 1;
+            AtomicInteger foundSize = new AtomicInteger();
+            AtomicInteger activeCount = new AtomicInteger();
+            for (int level = 1; frontierSize > 0; level++) {
+                foundSize.set(0);
+                int height = level;
+                int[] currentFrontier = frontier;
+                int[] nextFrontier = found;
+                int size = frontierSize;
+                int ranges = size < MINIMUM_PARALLEL_VERTICES ? 1 : Math.min(numberOfRanges, size);
+                IntStream rangeStream = IntStream.range(0, ranges);
+                (ranges > 1 ? rangeStream.parallel() : rangeStream).forEach(range -> expandLevel(currentFrontier,
+                        (int) ((long) size * range / ranges), (int) ((long) size * (range + 1) / ranges), height,
+                        nextFrontier, foundSize, activeCount));
+                frontierSize = foundSize.get();
+                verticesFound += frontierSize;
+                found = frontier;
+                frontier = nextFrontier;
+            }
+            activeSize = activeCount.get();
+            Counter.BFS_RUNS.increment();
+            Counter.VERTICES_SCANNED.add(verticesFound);
+        }
+
+        /**
+         * Claims the unclaimed Vertices which reach a range of the frontier over an arc with residual capacity
+         *
+         * @param frontier       the Vertices of the last level
+         * @param from           the first position in the frontier
+         * @param to             the position after the range
+         * @param height         the height of the claimed Vertices
+         * @param found          the Vertices of the next level
+         * @param foundSize      the number of Vertices of the next level
+         * @param activeCount    the number of claimed Vertices with excess, which are stored as active Vertices
+         */
+        private void expandLevel(int[] frontier, int from, int to, int height, int[] found, AtomicInteger foundSize,
+                                 AtomicInteger activeCount) {
+            long edgesScanned = 0;
+            for (int position = from; position < to; position++) {
+                int current = frontier[position];
+                for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                    int target = targets[arc];
+                    if (target != source && residualCapacities.get(reverseArcs[arc]) > 0
+                            && heights.get(target) == numberOfVertices
+                            && heights.compareAndSet(target, numberOfVertices, height)) {
+                        found[foundSize.getAndIncrement()] = target;
+                        if (excess.get(target) > 0) {
+                            queuedPulses.set(target, pulse);
+                            active[activeCount.getAndIncrement()] = target;
+                        }
+                    }
+                }
+                edgesScanned += offsets[current + 1] - offsets[current];
+            }
+            Counter.EDGES_SCANNED.add(edgesScanned);
+        }
+
+        /**
+         * Copies the residual capacities back into the array of the caller
+         *
+         * @param result the residual capacity array of the caller
+         * @return the excess of each Vertex
+         */
+        private long[] copyResult(int[] result) {
+            for (int arc = 0; arc < result.length; arc++) {
+                result[arc] = residualCapacities.get(arc);
+            }
+            long[] copiedExcess = new long[numberOfVertices];
+            for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+                copiedExcess[vertex] = excess.get(vertex);
+            }
+            return copiedExcess;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+
+import java.util.Arrays;
+
+/**
+ * This class calculates the maximum flow with the highest label Push-Relabel Algorithm. The heights are
+ * periodically recalculated by a reverse breadth first search from the end point, and a gap in the heights lifts
+ * every Vertex above it out of the calculation. Afterwards the remaining excess is returned to the start point, so
+ * the residual capacities describe a valid flow.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see MaxFlowSolver
+ */
+public class PushRelabelSolver implements MaxFlowSolver {
+
+    /**
+     * Calculates the maximum flow between two Vertices
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated by the calculation
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return the value of the maximum flow
+     */
+    @Override
+    public long calculateMaxFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+        Calculation calculation = new Calculation(residualNetwork, residualCapacities,
+                new long[residualNetwork.getNumberOfVertices()], source, sink);
+        long output = calculation.calculateMaximumPreflow();
+        calculation.returnExcessToSource();
+        calculation.addCounters();
+        return output;
+    }
+
+    /**
+     * Returns the excess of a maximum preflow, which could not reach the end point, to the start point, so the
+     * residual capacities describe a valid flow
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc of the preflow, which gets updated
+     * @param excess             the excess of each Vertex, which gets updated
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     */
+    static void returnExcessToSource(ResidualNetwork residualNetwork, int[] residualCapacities, long[] excess,
+                                     int source, int sink) {
+        new Calculation(residualNetwork, residualCapacities, excess, source, sink).returnExcessToSource();
+    }
+
+    /**
+     * This class holds the state of a single calculation
+     */
+    private static final class Calculation {
+        private static final int NONE = -1;
+        private final int numberOfVertices;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] reverseArcs;
+        private final int[] residualCapacities;
+        private final int source;
+        private final int sink;
+        private final long[] excess;
+        private final int[] heights;
+        private final int[] currentArcs;
+        private final int[] activeHeads;
+        private final int[] activeNext;
+        private final int[] bucketHeads;
+        private final int[] bucketNext;
+        private final int[] bucketPrevious;
+        private final int[] vertexQueue;
+        private int highestActive;
+        private int highestBucket;
+        private int relabelsSinceGlobalRelabel;
+        private long pushes;
+        private long relabels;
+        private long globalRelabels;
+        private long verticesScanned;
+        private long edgesScanned;
+
+        /**
+         * Constructor
+         *
+         * @param residualNetwork    the compiled network
+         * @param residualCapacities the residual capacity of each arc
+         * @param excess             the excess of each Vertex
+         * @param source             the index of the start Vertex
+         * @param sink               the index of the end Vertex
+         */
+        private Calculation(ResidualNetwork residualNetwork, int[] residualCapacities, long[] excess, int source,
+                            int sink) {
+            this.numberOfVertices = residualNetwork.getNumberOfVertices();
+            this.offsets = residualNetwork.getOffsets();
+            this.targets = residualNetwork.getTargets();
+            this.reverseArcs = residualNetwork.getReverseArcs();
+            this.residualCapacities = residualCapacities;
+            this.source = source;
+            this.sink = sink;
+            this.excess = excess;
+            this.heights = new int[numberOfVertices];
+            this.currentArcs = new int[numberOfVertices];
+            this.activeHeads = new int[numberOfVertices];
+            this.activeNext = new int[numberOfVertices];
+            this.bucketHeads = new int[numberOfVertices];
+            this.bucketNext = new int[numberOfVertices];
+            this.bucketPrevious = new int[numberOfVertices];
+            this.vertexQueue = new int[numberOfVertices];
+        }
+
+        /**
+         * Saturates the arcs of the start point and discharges the highest active Vertex until no Vertex below
+         * the height of the start point has excess left
+         *
+         * @return the excess of the end point, which is the value of the maximum flow
+         */
+        private long calculateMaximumPreflow() {
+            for (int arc = offsets[source]; arc < offsets[source + 1]; arc++) {
+                int flow = residualCapacities[arc];
+                if (flow > 0) {
+                    residualCapacities[arc] = 0;
+                    residualCapacities[reverseArcs[arc]] += flow;
+                    excess[targets[arc]] += flow;
+                    excess[source] -= flow;
+                }
+            }
+            globalRelabel();
+            while (highestActive >= 0) {
+                int vertex = activeHeads[highestActive];
+                if (vertex == NONE) {
+                    highestActive--;
+                    continue;
+                }
+                activeHeads[highestActive] = activeNext[vertex];
+                discharge(vertex);
+                if (relabelsSinceGlobalRelabel >= numberOfVertices) globalRelabel();
+            }
+            return excess[sink];
+        }
+
+        /**
+         * Sets every height to the distance to the end point in the residual graph and rebuilds the buckets.
+         * Vertices which cannot reach the end point get the height of the start point.
+         */
+        private void globalRelabel() {
+            relabelsSinceGlobalRelabel = 0;
+            Arrays.fill(heights, numberOfVertices);
+            Arrays.fill(activeHeads, NONE);
+            Arrays.fill(bucketHeads, NONE);
+            System.arraycopy(offsets, 0, currentArcs, 0, numberOfVertices);
+            highestActive = NONE;
+            highestBucket = 0;
+            int head = 0;
+            int tail = 0;
+            heights[sink] = 0;
+            vertexQueue[tail++] = sink;
+
+            while (head < tail) {
+                int current = vertexQueue[head++];
+                for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                    int target = targets[arc];
+                    if (heights[target] == numberOfVertices && target != source
+                            && residualCapacities[reverseArcs[arc]] > 0) {
+                        heights[target] = heights[current] + 1;
+                        vertexQueue[tail++] = target;
+                        addToBucket(target);
+                        if (excess[target] > 0) addToActive(target);
+                    }
+                }
+                edgesScanned += offsets[current + 1] - offsets[current];
+            }
+            globalRelabels++;
+            verticesScanned += head;
+        }
+
+        /**
+         * Pushes the excess of a Vertex along admissible arcs and relabels it, until the excess is gone or the
+         * Vertex is lifted to the height of the start point
+         *
+         * @param vertex the Vertex which should be discharged
+         */
+        private void discharge(int vertex) {
+            while (excess[vertex] > 0) {
+                int arc = currentArcs[vertex];
+                if (arc == offsets[vertex + 1]) {
+                    relabel(vertex);
+                    if (heights[vertex] >= numberOfVertices) return;
+                    continue;
+                }
+                int target = targets[arc];
+                if (residualCapacities[arc] > 0 && heights[target] == heights[vertex] - 1) {
+                    int flow = (int) Math.min(excess[vertex], residualCapacities[arc]);
+                    residualCapacities[arc] -= flow;
+                    residualCapacities[reverseArcs[arc]] += flow;
+                    excess[vertex] -= flow;
+                    if (excess[target] == 0 && target != sink) addToActive(target);
+                    excess[target] += flow;
+                    pushes++;
+                } else {
+                    currentArcs[vertex]++;
+                }
+            }
+        }
+
+        /**
+         * Lifts a Vertex above its lowest residual neighbour. If the old height is left empty, every Vertex above
+         * it can no longer reach the end point and is lifted to the height of the start point.
+         *
+         * @param vertex the Vertex which should be relabeled
+         */
+        private void relabel(int vertex) {
+            relabelsSinceGlobalRelabel++;
+            relabels++;
+            int oldHeight = heights[vertex];
+            removeFromBucket(vertex);
+            currentArcs[vertex] = offsets[vertex];
+            if (bucketHeads[oldHeight] == NONE) {
+                removeGap(oldHeight);
+                heights[vertex] = numberOfVertices;
+                return;
+            }
+            int newHeight = numberOfVertices;
+            for (int arc = offsets[vertex]; arc < offsets[vertex + 1]; arc++) {
+                if (residualCapacities[arc] > 0) newHeight = Math.min(newHeight, heights[targets[arc]] + 1);
+            }
+            heights[vertex] = newHeight;
+            if (newHeight < numberOfVertices) addToBucket(vertex);
+        }
+
+        /**
+         * Lifts every Vertex above an empty height to the height of the start point
+         *
+         * @param gapHeight the empty height
+         */
+        private void removeGap(int gapHeight) {
+            for (int height = gapHeight + 1; height <= highestBucket; height++) {
+                for (int vertex = bucketHeads[height]; vertex != NONE; vertex = bucketNext[vertex]) {
+                    heights[vertex] = numberOfVertices;
+                }
+                bucketHeads[height] = NONE;
+                activeHeads[height] = NONE;
+            }
+            highestBucket = gapHeight - 1;
+            highestActive = Math.min(highestActive, highestBucket);
+        }
+
+        /**
+         * Returns the excess which could not reach the end point to the start point. The heights are the distances
+         * to the start point, and the end point is never used again.
+         */
+        private void returnExcessToSource() {
+            boolean[] queued = new boolean[numberOfVertices];
+            int head = 0;
+            int size = 0;
+            Arrays.fill(heights, Integer.MAX_VALUE);
+            heights[source] = 0;
+            vertexQueue[size++] = source;
+            while (head < size) {
+                int current = vertexQueue[head++];
+                for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                    int target = targets[arc];
+                    if (heights[target] == Integer.MAX_VALUE && target != sink
+                            && residualCapacities[reverseArcs[arc]] > 0) {
+                        heights[target] = heights[current] + 1;
+                        vertexQueue[size++] = target;
+                    }
+                }
+            }
+            System.arraycopy(offsets, 0, currentArcs, 0, numberOfVertices);
+            head = 0;
+            size = 0;
+            for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+                if (excess[vertex] > 0 && vertex != source && vertex != sink) {
+                    vertexQueue[(head + size++) % numberOfVertices] = vertex;
+                    queued[vertex] = true;
+                }
+            }
+            while (size > 0) {
+                int vertex = vertexQueue[head];
+                head = (head + 1) % numberOfVertices;
+                size--;
+                queued[vertex] = false;
+                while (excess[vertex] > 0) {
+                    int arc = currentArcs[vertex];
+                    if (arc == offsets[vertex + 1]) {
+                        int newHeight = Integer.MAX_VALUE;
+                        for (int next = offsets[vertex]; next < offsets[vertex + 1]; next++) {
+                            if (residualCapacities[next] > 0 && targets[next] != sink
+                                    && heights[targets[next]] != Integer.MAX_VALUE) {
+                                newHeight = Math.min(newHeight, heights[targets[next]] + 1);
+                            }
+                        }
+                        heights[vertex] = newHeight;
+                        currentArcs[vertex] = offsets[vertex];
+                        continue;
+                    }
+                    int target = targets[arc];
+                    if (residualCapacities[arc] > 0 && target != sink && heights[target] == heights[vertex] - 1) {
+                        int flow = (int) Math.min(excess[vertex], residualCapacities[arc]);
+                        residualCapacities[arc] -= flow;
+                        residualCapacities[reverseArcs[arc]] += flow;
+                        excess[vertex] -= flow;
+                        excess[target] += flow;
+                        if (target != source && !queued[target]) {
+                            vertexQueue[(head + size++) % numberOfVertices] = target;
+                            queued[target] = true;
+                        }
+                    } else {
+                        currentArcs[vertex]++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the counted operations of the calculation to the statistics
+         */
+        private void addCounters() {
+            Counter.PUSHES.add(pushes);
+            Counter.RELABELS.add(relabels);
+            Counter.BFS_RUNS.add(globalRelabels);
+            Counter.VERTICES_SCANNED.add(verticesScanned);
+            Counter.EDGES_SCANNED.add(edgesScanned);
+        }
+
+        /**
+         * Adds a Vertex with excess to the active Vertices of its height
+         *
+         * @param vertex the Vertex
+         */
+        private void addToActive(int vertex) {
+            int height = heights[vertex];
+            activeNext[vertex] = activeHeads[height];
+            activeHeads[height] = vertex;
+            highestActive = Math.max(highestActive, height);
+        }
+
+        /**
+         * Adds a Vertex to the Vertices of its height
+         *
+         * @param vertex the Vertex
+         */
+        private void addToBucket(int vertex) {
+            int height = heights[vertex];
+            bucketPrevious[vertex] = NONE;
+            bucketNext[vertex] = bucketHeads[height];
+            if (bucketHeads[height] != NONE) bucketPrevious[bucketHeads[height]] = vertex;
+            bucketHeads[height] = vertex;
+            highestBucket = Math.max(highestBucket, height);
+        }
+
+        /**
+         * Removes a Vertex from the Vertices of its height
+         *
+         * @param vertex the Vertex
+         */
+        private void removeFromBucket(int vertex) {
+            if (bucketPrevious[vertex] == NONE) {
+                bucketHeads[heights[vertex]] = bucketNext[vertex];
+            } else {
+                bucketNext[bucketPrevious[vertex]] = bucketNext[vertex];
+            }
+            if (bucketNext[vertex] != NONE) bucketPrevious[bucketNext[vertex]] = bucketPrevious[vertex];
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class describes the final residual state of a calculated Flow. After the Graph was changed the state can
+ * be transferred onto the new ResidualNetwork, so the calculation continues from the old flow instead of starting
+ * from zero. The state can be evicted by the cache at any time, so a caller which uses it has to hold its
+ * monitor and check that it was not evicted.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see ResidualNetwork
+ */
+final class ResidualFlow {
+    private static final int NOT_REACHED = -1;
+    private static final EdmondsKarpSolver REPAIR_SOLVER = new EdmondsKarpSolver();
+    private ResidualNetwork residualNetwork;
+    private int[] residualCapacities;
+    private long flowValue;
+
+    /**
+     * Constructor
+     *
+     * @param residualNetwork    the network on which the flow was calculated
+     * @param residualCapacities the residual capacities of the flow
+     * @param flowValue          the value of the flow
+     */
+    ResidualFlow(ResidualNetwork residualNetwork, int[] residualCapacities, long flowValue) {
+        this.residualNetwork = residualNetwork;
+        this.residualCapacities = residualCapacities;
+        this.flowValue = flowValue;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the network on which the flow is stored
+     */
+    synchronized ResidualNetwork getResidualNetwork() {
+        return residualNetwork;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the residual capacities of the flow, which must not be modified
+     */
+    synchronized int[] getResidualCapacities() {
+        return residualCapacities;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the value of the flow
+     */
+    synchronized long getFlowValue() {
+        return flowValue;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the size of the residual capacities in bytes
+     */
+    synchronized long getSizeInBytes() {
+        return residualCapacities == null ? 0 : (long) residualCapacities.length * Integer.BYTES;
+    }
+
+    /**
+     * Releases the residual state, only the value of the flow is kept
+     */
+    synchronized void evict() {
+        residualNetwork = null;
+        residualCapacities = null;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return true, if the residual state was released; false, if not
+     */
+    synchronized boolean isEvicted() {
+        return residualCapacities == null;
+    }
+
+    /**
+     * Checks if the flow can still be augmented
+     *
+     * @param source the index of the start Vertex
+     * @param sink   the index of the end Vertex
+     * @return true, if there is a path with residual capacity between the two Vertices; false, if not
+     */
+    synchronized boolean hasAugmentingPath(int source, int sink) {
+        return REPAIR_SOLVER.hasPath(residualNetwork, residualCapacities, source, sink);
+    }
+
+    /**
+     * Finds the minimum cut of the maximal flow. The Vertices which the start point reaches in the residual graph
+     * form one side of the cut, every section which leaves them is saturated.
+     *
+     * @param source the index of the start Vertex
+     * @return the saturated sections of the cut in the order of the Graph
+     */
+    synchronized List<Edge> findMinimumCut(int source) {
+        int[] offsets = residualNetwork.getOffsets();
+        int[] targets = residualNetwork.getTargets();
+        int[] reverseArcs = residualNetwork.getReverseArcs();
+        int[] vertexQueue = new int[residualNetwork.getNumberOfVertices()];
+        boolean[] reached = new boolean[residualNetwork.getNumberOfVertices()];
+        int head = 0;
+        int tail = 0;
+        vertexQueue[tail++] = source;
+        reached[source] = true;
+        while (head < tail) {
+            int current = vertexQueue[head++];
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (!reached[targets[arc]] && residualCapacities[arc] > 0) {
+                    reached[targets[arc]] = true;
+                    vertexQueue[tail++] = targets[arc];
+                }
+            }
+        }
+
+        List<Edge> cut = new ArrayList<>();
+        for (int section = 0; section < residualNetwork.getNumberOfSections(); section++) {
+            int arc = residualNetwork.getSectionArc(section);
+            int fromVertex = targets[reverseArcs[arc]];
+            if (reached[fromVertex] && !reached[targets[arc]]) {
+                cut.add(new Edge(residualNetwork.getVertex(fromVertex), residualNetwork.getVertex(targets[arc]),
+                        residualNetwork.getCapacity(arc)));
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * Moves the flow onto a newer compilation of the Graph. The sections of the old network are a subset of the
+     * new sections, and both are sorted the same way, so every old section is found with a single merge.
+     * Sections whose capacity fell below their flow are repaired afterwards.
+     *
+     * @param newNetwork the newer compilation of the Graph
+     * @param source     the index of the start Vertex in the new network
+     * @param sink       the index of the end Vertex in the new network
+     */
+    synchronized void transferTo(ResidualNetwork newNetwork, int source, int sink) {
+        int[] newResidualCapacities = newNetwork.createResidualCapacities();
+        int[] overflowingSections = new int[newNetwork.getNumberOfSections()];
+        int numberOfOverflowingSections = 0;
+        int newSection = 0;
+
+        for (int oldSection = 0; oldSection < residualNetwork.getNumberOfSections(); oldSection++) {
+            int oldArc = residualNetwork.getSectionArc(oldSection);
+            while (compareSections(residualNetwork, oldArc, newNetwork, newNetwork.getSectionArc(newSection)) > 0) {
+                newSection++;
+            }
+            int newArc = newNetwork.getSectionArc(newSection);
+            int flow = residualCapacities[residualNetwork.getReverseArcs()[oldArc]];
+            newResidualCapacities[newArc] = newNetwork.getCapacity(newArc) - flow;
+            newResidualCapacities[newNetwork.getReverseArcs()[newArc]] = flow;
+            if (newResidualCapacities[newArc] < 0) overflowingSections[numberOfOverflowingSections++] = newArc;
+        }
+        this.residualNetwork = newNetwork;
+        this.residualCapacities = newResidualCapacities;
+        for (int i = 0; i < numberOfOverflowingSections; i++) {
+            repairSection(overflowingSections[i], source, sink);
+        }
+    }
+
+    /**
+     * Continues the calculation from the stored flow until it is maximal again
+     *
+     * @param solver the algorithm which is used
+     * @param source the index of the start Vertex
+     * @param sink   the index of the end Vertex
+     */
+    synchronized void augment(MaxFlowSolver solver, int source, int sink) {
+        flowValue += solver.calculateMaxFlow(residualNetwork, residualCapacities, source, sink);
+    }
+
+    /**
+     * Lowers the flow of a section to its capacity. The removed flow is rerouted around the section if possible,
+     * the rest is sent back from the origin of the section to the start point and from the end point to the
+     * destination of the section, which lowers the value of the flow.
+     *
+     * @param arc    the forward arc of the section
+     * @param source the index of the start Vertex
+     * @param sink   the index of the end Vertex
+     */
+    private void repairSection(int arc, int source, int sink) {
+        int reverseArc = residualNetwork.getReverseArcs()[arc];
+        int overflow = residualCapacities[reverseArc] - residualNetwork.getCapacity(arc);
+        if (overflow <= 0) {
+            return;
+        }
+        int fromVertex = residualNetwork.getTargets()[reverseArc];
+        int toVertex = residualNetwork.getTargets()[arc];
+        residualCapacities[arc] = 0;
+        residualCapacities[reverseArc] = residualNetwork.getCapacity(arc);
+
+        long rerouted = REPAIR_SOLVER.augment(residualNetwork, residualCapacities, fromVertex, toVertex, overflow);
+        long cancelled = overflow - rerouted;
+        if (cancelled > 0) {
+            REPAIR_SOLVER.augment(residualNetwork, residualCapacities, fromVertex, source, cancelled);
+            REPAIR_SOLVER.augment(residualNetwork, residualCapacities, sink, toVertex, cancelled);
+            flowValue -= cancelled;
+        }
+    }
+
+    /**
+     * Compares two sections in the order of the Graph
+     *
+     * @param firstNetwork  the network of the first section
+     * @param firstArc      the forward arc of the first section
+     * @param secondNetwork the network of the second section
+     * @param secondArc     the forward arc of the second section
+     * @return a number which describes which section comes first
+     */
+    private static int compareSections(ResidualNetwork firstNetwork, int firstArc,
+                                       ResidualNetwork secondNetwork, int secondArc) {
+        Vertex firstOrigin = firstNetwork.getVertex(firstNetwork.getTargets()[firstNetwork.getReverseArcs()[firstArc]]);
+        Vertex secondOrigin
+                = secondNetwork.getVertex(secondNetwork.getTargets()[secondNetwork.getReverseArcs()[secondArc]]);
+        int comparison = firstOrigin.compareTo(secondOrigin);
+        if (comparison != 0) return comparison;
+        return firstNetwork.getVertex(firstNetwork.getTargets()[firstArc])
+                .compareTo(secondNetwork.getVertex(secondNetwork.getTargets()[secondArc]));
+    }
+}
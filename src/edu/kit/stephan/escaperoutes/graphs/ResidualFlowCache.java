@@ -0,0 +1,136 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.statistics.Counter;
+import edu.kit.stephan.escaperoutes.statistics.RecordedEvent;
+import edu.kit.stephan.escaperoutes.statistics.RecorderEvent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class limits the memory which is used by the residual states of all calculated Flows. If the number of
+ * states or their size exceeds the budget, the least recently used state is evicted. An evicted Flow can still be
+ * listed, but it has to be calculated from zero after its network was changed. The cache is shared by all
+ * networks, so every access is synchronized, but no residual state is locked while the cache is.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see ResidualFlow
+ */
+public final class ResidualFlowCache {
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 16;
+    private final int maximumNumberOfStates;
+    private final long maximumBytes;
+    private final Map<ResidualFlow, Long> leastRecentlyUsedStates;
+    private long usedBytes;
+
+    /**
+     * Constructor of a cache without limits
+     */
+    public ResidualFlowCache() {
+        this(Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maximumNumberOfStates the maximum number of residual states
+     * @param maximumBytes          the maximum size of all residual states in bytes
+     */
+    public ResidualFlowCache(int maximumNumberOfStates, long maximumBytes) {
+        this.maximumNumberOfStates = maximumNumberOfStates;
+        this.maximumBytes = maximumBytes;
+        this.leastRecentlyUsedStates = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    }
+
+    /**
+     * Stores a residual state or updates its size, and evicts the least recently used states if the budget is
+     * exceeded. The stored state itself is never evicted by this call. The evicted states are released after the
+     * cache lock, because their monitors may be held by long repairs on other networks.
+     *
+     * @param residualFlow the residual state
+     */
+    void store(ResidualFlow residualFlow) {
+        long size = residualFlow.getSizeInBytes();
+        List<Eviction> evictions = new ArrayList<>();
+        synchronized (this) {
+            Long previousSize = leastRecentlyUsedStates.put(residualFlow, size);
+            if (previousSize != null) usedBytes -= previousSize;
+            usedBytes += size;
+
+            Iterator<Map.Entry<ResidualFlow, Long>> iterator = leastRecentlyUsedStates.entrySet().iterator();
+            while ((leastRecentlyUsedStates.size() > maximumNumberOfStates || usedBytes > maximumBytes)
+                    && iterator.hasNext()) {
+                Map.Entry<ResidualFlow, Long> eldest = iterator.next();
+                if (eldest.getKey() == residualFlow) continue;
+                usedBytes -= eldest.getValue();
+                iterator.remove();
+                evictions.add(new Eviction(eldest.getKey(), eldest.getValue(), leastRecentlyUsedStates.size(),
+                        usedBytes));
+            }
+        }
+        for (Eviction eviction : evictions) {
+            RecordedEvent event = RecorderEvent.CACHE_EVICTION.begin();
+            eviction.residualFlow.evict();
+            Counter.CACHE_EVICTIONS.increment();
+            if (event != null) event.commit(eviction.evictedBytes, eviction.cachedStates, eviction.cachedBytes);
+        }
+    }
+
+    /**
+     * Removes a residual state without evicting it
+     *
+     * @param residualFlow the residual state
+     */
+    synchronized void remove(ResidualFlow residualFlow) {
+        Long size = leastRecentlyUsedStates.remove(residualFlow);
+        if (size != null) usedBytes -= size;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of stored residual states
+     */
+    public synchronized int getNumberOfStates() {
+        return leastRecentlyUsedStates.size();
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the size of all stored residual states in bytes
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * This class describes a residual state which was removed from the cache and still has to be released
+     */
+    private static final class Eviction {
+        private final ResidualFlow residualFlow;
+        private final long evictedBytes;
+        private final int cachedStates;
+        private final long cachedBytes;
+
+        /**
+         * Constructor
+         *
+         * @param residualFlow the removed residual state
+         * @param evictedBytes the size of the removed residual state
+         * @param cachedStates the number of states which were left in the cache
+         * @param cachedBytes  the size of the states which were left in the cache
+         */
+        private Eviction(ResidualFlow residualFlow, long evictedBytes, int cachedStates, long cachedBytes) {
+            this.residualFlow = residualFlow;
+            this.evictedBytes = evictedBytes;
+            this.cachedStates = cachedStates;
+            this.cachedBytes = cachedBytes;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import edu.kit.stephan.escaperoutes.utilities.Pair;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class describes a Graph compiled into a compressed sparse row structure. Every Vertex is mapped to an int
+ * index and every section is stored as a forward arc and a reverse arc, so the flow algorithms can work on
+ * primitive arrays only.
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see Graph
+ */
+public final class ResidualNetwork {
+    private static final int NOT_IN_NETWORK = -1;
+    private final Map<Vertex, Integer> vertexIndices;
+    private final Vertex[] vertices;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] capacities;
+    private final int[] reverseArcs;
+    private final int[] sectionArcs;
+    private volatile NetworkStatistics statistics;
+
+    /**
+     * Constructor, which compiles the adjacency map of a Graph
+     * @param graphMap the adjacency map of the Graph which should be compiled
+     */
+    ResidualNetwork(Map<Vertex, ? extends Set<Pair<Vertex, Integer>>> graphMap) {
+        int numberOfVertices = graphMap.size();
+        this.vertexIndices = new HashMap<>(numberOfVertices * 2);
+        this.vertices = new Vertex[numberOfVertices];
+        this.offsets = new int[numberOfVertices + 1];
+
+        int index = 0;
+        int numberOfEdges = 0;
+        for (Map.Entry<Vertex, ? extends Set<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
+            vertices[index] = vertexSetEntry.getKey();
+            vertexIndices.put(vertexSetEntry.getKey(), index);
+            index++;
+            numberOfEdges += vertexSetEntry.getValue().size();
+        }
+        /*
+        Count forward and reverse arcs of every Vertex
+         */
+        for (Map.Entry<Vertex, ? extends Set<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
+            offsets[vertexIndices.get(vertexSetEntry.getKey()) + 1] += vertexSetEntry.getValue().size();
+            for (Pair<Vertex, Integer> pair : vertexSetEntry.getValue()) {
+                offsets[vertexIndices.get(pair.getFirstElement()) + 1]++;
+            }
+        }
+        for (int i = 0; i < numberOfVertices; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        /*
+        Fill the arcs
+         */
+        this.targets = new int[numberOfEdges * 2];
+        this.capacities = new int[numberOfEdges * 2];
+        this.reverseArcs = new int[numberOfEdges * 2];
+        this.sectionArcs = new int[numberOfEdges];
+        int section = 0;
+        int[] nextFreeArc = new int[numberOfVertices];
+        System.arraycopy(offsets, 0, nextFreeArc, 0, numberOfVertices);
+        for (Map.Entry<Vertex, ? extends Set<Pair<Vertex, Integer>>> vertexSetEntry : graphMap.entrySet()) {
+            int from = vertexIndices.get(vertexSetEntry.getKey());
+            for (Pair<Vertex, Integer> pair : vertexSetEntry.getValue()) {
+                int to = vertexIndices.get(pair.getFirstElement());
+                int forwardArc = nextFreeArc[from]++;
+                int reverseArc = nextFreeArc[to]++;
+                targets[forwardArc] = to;
+                capacities[forwardArc] = pair.getSecondElement();
+                reverseArcs[forwardArc] = reverseArc;
+                targets[reverseArc] = from;
+                capacities[reverseArc] = 0;
+                reverseArcs[reverseArc] = forwardArc;
+                sectionArcs[section++] = forwardArc;
+            }
+        }
+    }
+
+    /**
+     * Constructor, which takes the arrays of an already compiled network
+     * @param vertexIndices the index of every Vertex
+     * @param vertices the Vertex of every index
+     * @param offsets the first arc of every Vertex
+     * @param targets the target of every arc
+     * @param capacities the capacity of every arc
+     * @param reverseArcs the reverse of every arc
+     * @param sectionArcs the forward arc of every section
+     */
+    private ResidualNetwork(Map<Vertex, Integer> vertexIndices, Vertex[] vertices, int[] offsets, int[] targets,
+                            int[] capacities, int[] reverseArcs, int[] sectionArcs) {
+        this.vertexIndices = vertexIndices;
+        this.vertices = vertices;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.capacities = capacities;
+        this.reverseArcs = reverseArcs;
+        this.sectionArcs = sectionArcs;
+    }
+
+    /**
+     * Creates a copy of the network with a virtual super source and a virtual super sink, which get the two indices
+     * after the last Vertex. The super source has an arc to every start point whose capacity is the capacity
+     * leaving the start point, and every end point has an arc to the super sink whose capacity is the capacity
+     * reaching the end point, so the maximum flow between the super points is the maximum flow between the sets.
+     * A capacity above the int range is split into several parallel arcs. The virtual arcs are no sections and the
+     * super points have no Vertex.
+     * @param sources the indices of the start points
+     * @param sinks the indices of the end points
+     * @return the extended network
+     */
+    ResidualNetwork withSuperPoints(int[] sources, int[] sinks) {
+        int numberOfVertices = vertices.length;
+        int superSource = numberOfVertices;
+        int superSink = numberOfVertices + 1;
+        long[] sourceCapacities = new long[sources.length];
+        long[] sinkCapacities = new long[sinks.length];
+        int[] virtualArcs = new int[numberOfVertices + 2];
+        for (int i = 0; i < sources.length; i++) {
+            for (int arc = offsets[sources[i]]; arc < offsets[sources[i] + 1]; arc++) {
+                sourceCapacities[i] += capacities[arc];
+            }
+            int numberOfArcs = countVirtualArcs(sourceCapacities[i]);
+            virtualArcs[sources[i]] += numberOfArcs;
+            virtualArcs[superSource] += numberOfArcs;
+        }
+        for (int i = 0; i < sinks.length; i++) {
+            for (int arc = offsets[sinks[i]]; arc < offsets[sinks[i] + 1]; arc++) {
+                sinkCapacities[i] += capacities[reverseArcs[arc]];
+            }
+            int numberOfArcs = countVirtualArcs(sinkCapacities[i]);
+            virtualArcs[sinks[i]] += numberOfArcs;
+            virtualArcs[superSink] += numberOfArcs;
+        }
+
+        int[] newOffsets = new int[numberOfVertices + 3];
+        int[] shifts = new int[numberOfVertices];
+        for (int vertex = 0; vertex < numberOfVertices + 2; vertex++) {
+            int degree = vertex < numberOfVertices ? offsets[vertex + 1] - offsets[vertex] : 0;
+            newOffsets[vertex + 1] = newOffsets[vertex] + degree + virtualArcs[vertex];
+            if (vertex < numberOfVertices) shifts[vertex] = newOffsets[vertex] - offsets[vertex];
+        }
+        int numberOfArcs = newOffsets[numberOfVertices + 2];
+        int[] newTargets = new int[numberOfArcs];
+        int[] newCapacities = new int[numberOfArcs];
+        int[] newReverseArcs = new int[numberOfArcs];
+        int[] newSectionArcs = new int[sectionArcs.length];
+        for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+            for (int arc = offsets[vertex]; arc < offsets[vertex + 1]; arc++) {
+                newTargets[arc + shifts[vertex]] = targets[arc];
+                newCapacities[arc + shifts[vertex]] = capacities[arc];
+                newReverseArcs[arc + shifts[vertex]] = reverseArcs[arc] + shifts[targets[arc]];
+            }
+        }
+        for (int section = 0; section < sectionArcs.length; section++) {
+            newSectionArcs[section] = sectionArcs[section] + shifts[targets[reverseArcs[sectionArcs[section]]]];
+        }
+        int[] nextFreeArc = new int[numberOfVertices + 2];
+        for (int vertex = 0; vertex < numberOfVertices + 2; vertex++) {
+            nextFreeArc[vertex] = newOffsets[vertex + 1] - virtualArcs[vertex];
+        }
+        for (int i = 0; i < sources.length; i++) {
+            addVirtualArcs(superSource, sources[i], sourceCapacities[i], nextFreeArc, newTargets, newCapacities,
+                    newReverseArcs);
+        }
+        for (int i = 0; i < sinks.length; i++) {
+            addVirtualArcs(sinks[i], superSink, sinkCapacities[i], nextFreeArc, newTargets, newCapacities,
+                    newReverseArcs);
+        }
+        return new ResidualNetwork(vertexIndices, Arrays.copyOf(vertices, numberOfVertices + 2), newOffsets,
+                newTargets, newCapacities, newReverseArcs, newSectionArcs);
+    }
+
+    /**
+     * Counts the parallel arcs which carry a capacity
+     * @param capacity the capacity, which may be above the int range
+     * @return the number of arcs
+     */
+    private static int countVirtualArcs(long capacity) {
+        return (int) ((capacity + Integer.MAX_VALUE - 1) / Integer.MAX_VALUE);
+    }
+
+    /**
+     * Adds the parallel forward and reverse arcs which carry a capacity between two Vertices
+     * @param from the index of the origin
+     * @param to the index of the destination
+     * @param capacity the capacity, which may be above the int range
+     * @param nextFreeArc the next free arc of every Vertex
+     * @param newTargets the target array of the extended network
+     * @param newCapacities the capacity array of the extended network
+     * @param newReverseArcs the reverse arc array of the extended network
+     */
+    private static void addVirtualArcs(int from, int to, long capacity, int[] nextFreeArc, int[] newTargets,
+                                       int[] newCapacities, int[] newReverseArcs) {
+        for (long remaining = capacity; remaining > 0; remaining -= Integer.MAX_VALUE) {
+            int forwardArc = nextFreeArc[from]++;
+            int reverseArc = nextFreeArc[to]++;
+            newTargets[forwardArc] = to;
+            newCapacities[forwardArc] = (int) Math.min(remaining, Integer.MAX_VALUE);
+            newReverseArcs[forwardArc] = reverseArc;
+            newTargets[reverseArc] = from;
+            newReverseArcs[reverseArc] = forwardArc;
+        }
+    }
+
+    /**
+     * Getter-Method
+     * @param vertex the Vertex which should be looked up
+     * @return the index of the Vertex, or -1 if the Vertex is not part of the network
+     */
+    public int getIndex(Vertex vertex) {
+        Integer index = vertexIndices.get(vertex);
+        return index == null ? NOT_IN_NETWORK : index;
+    }
+
+    /**
+     * Getter-Method
+     * @param index the index of a Vertex
+     * @return the Vertex which corresponds to the index, or null for a virtual super point
+     */
+    public Vertex getVertex(int index) {
+        return vertices[index];
+    }
+
+    /**
+     * Getter-Method
+     * @return the number of Vertices
+     */
+    public int getNumberOfVertices() {
+        return vertices.length;
+    }
+
+    /**
+     * Getter-Method
+     * @return the number of arcs, which is twice the number of sections
+     */
+    public int getNumberOfArcs() {
+        return targets.length;
+    }
+
+    /**
+     * Getter-Method
+     * @return the number of sections
+     */
+    public int getNumberOfSections() {
+        return sectionArcs.length;
+    }
+
+    /**
+     * Getter-Method, the sections are numbered in the order of the Graph, which is sorted by the name of the origin
+     * and then by the name of the destination
+     * @param section the number of a section
+     * @return the forward arc of the section
+     */
+    public int getSectionArc(int section) {
+        return sectionArcs[section];
+    }
+
+    /**
+     * Getter-Method
+     * @param arc the index of an arc
+     * @return the capacity of the arc, which is zero for reverse arcs
+     */
+    public int getCapacity(int arc) {
+        return capacities[arc];
+    }
+
+    /**
+     * Getter-Method, the arcs of Vertex i are stored between offsets[i] and offsets[i + 1]
+     * @return the offset array, which must not be modified
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Getter-Method
+     * @return the target array, which must not be modified
+     */
+    public int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Getter-Method
+     * @return the reverse arc array, which must not be modified
+     */
+    public int[] getReverseArcs() {
+        return reverseArcs;
+    }
+
+    /**
+     * Getter-Method, the statistics are calculated on the first call and kept for the lifetime of the compilation
+     * @return the statistics of the network
+     */
+    NetworkStatistics getStatistics() {
+        NetworkStatistics current = statistics;
+        if (current == null) {
+            current = new NetworkStatistics(this);
+            statistics = current;
+        }
+        return current;
+    }
+
+    /**
+     * Creates a fresh residual capacity array, which contains the capacities of the sections and zero on every
+     * reverse arc
+     * @return the copied capacities
+     */
+    public int[] createResidualCapacities() {
+        return capacities.clone();
+    }
+}
@@ -0,0 +1,81 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class describes how a flow of a network is calculated: the algorithm, the structure it searches the
+ * compiled network with, the number of threads it uses and the reason why it was chosen.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see SolverPlanner
+ */
+final class SolverPlan {
+    private static final String OUTPUT_TO_STRING = "solver %s, %s, parallelism %d%nreason %s";
+    private static final String QUEUE_SEARCH = "breadth first search with a queue";
+    private static final String BITSET_SEARCH = "direction optimizing search with bitsets";
+    private static final String LEVEL_GRAPH = "level graph with current arcs";
+    private static final String HEIGHT_BUCKETS = "highest label buckets";
+    private static final String ATOMIC_ARRAYS = "pulses over atomic arrays";
+    private static final int SEQUENTIAL = 1;
+    private final SolverType solverType;
+    private final String representation;
+    private final int parallelism;
+    private final String reason;
+
+    /**
+     * Constructor, which derives the representation and the parallelism of an algorithm on a network
+     *
+     * @param solverType the algorithm, which must not be the automatic selection
+     * @param statistics the statistics of the compiled network
+     * @param reason     the reason why the algorithm was chosen
+     */
+    SolverPlan(SolverType solverType, NetworkStatistics statistics, String reason) {
+        this.solverType = solverType;
+        this.reason = reason;
+        int commonParallelism = ForkJoinPool.getCommonPoolParallelism();
+        switch (solverType) {
+            case EDMONDS_KARP:
+                boolean bitsets = statistics.getNumberOfVertices() >= DirectionOptimizingSearch.MINIMUM_VERTICES;
+                this.representation = bitsets ? BITSET_SEARCH : QUEUE_SEARCH;
+                this.parallelism = bitsets ? commonParallelism : SEQUENTIAL;
+                break;
+            case DINIC:
+                this.representation = LEVEL_GRAPH;
+                this.parallelism = SEQUENTIAL;
+                break;
+            case PARALLEL_PUSH_RELABEL:
+                boolean parallel = statistics.getNumberOfArcs() >= ParallelPushRelabelSolver.MINIMUM_ARCS;
+                this.representation = parallel ? ATOMIC_ARRAYS : HEIGHT_BUCKETS;
+                this.parallelism = parallel ? commonParallelism : SEQUENTIAL;
+                break;
+            case PUSH_RELABEL:
+                this.representation = HEIGHT_BUCKETS;
+                this.parallelism = SEQUENTIAL;
+                break;
+            default:
+                this.representation = QUEUE_SEARCH;
+                this.parallelism = SEQUENTIAL;
+                break;
+        }
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the algorithm
+     */
+    SolverType getSolverType() {
+        return solverType;
+    }
+
+    /**
+     * To String Method
+     *
+     * @return the algorithm, the representation and the parallelism, and the reason in a second line
+     */
+    @Override
+    public String toString() {
+        return String.format(OUTPUT_TO_STRING, solverType.getSolverName(), representation, parallelism, reason);
+    }
+}
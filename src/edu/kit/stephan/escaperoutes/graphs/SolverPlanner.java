@@ -0,0 +1,151 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class chooses the algorithm of every flow calculation from the statistics of the compiled network. The
+ * statistics are cached by the network, so the choice only costs a few comparisons per calculation, the reason of
+ * the choice is only formatted when a plan is explained. The rules follow measurements on generated networks: the
+ * plain search has the lowest overhead on small networks, blocking flows are fastest with unit capacities and on
+ * deep networks, capacity scaling bounds the number of augmenting paths when the capacities differ widely, and
+ * push-relabel is fastest otherwise.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see NetworkStatistics
+ * @see SolverPlan
+ */
+final class SolverPlanner implements MaxFlowSolver {
+    private static final String SMALL_VERTICES_PROPERTY = "escaperoutes.planner.smallVertices";
+    private static final String WIDE_CAPACITY_RATIO_PROPERTY = "escaperoutes.planner.wideCapacityRatio";
+    private static final int DEFAULT_SMALL_VERTICES = 256;
+    private static final long DEFAULT_WIDE_CAPACITY_RATIO = 1L << 16;
+    private static final int SMALL_VERTICES = Integer.getInteger(SMALL_VERTICES_PROPERTY, DEFAULT_SMALL_VERTICES);
+    private static final long WIDE_CAPACITY_RATIO = Long.getLong(WIDE_CAPACITY_RATIO_PROPERTY,
+            DEFAULT_WIDE_CAPACITY_RATIO);
+    private static final int SPARSE_DEGREE = 4;
+
+    /**
+     * Calculates the maximum flow between two Vertices with the chosen algorithm
+     *
+     * @param residualNetwork    the compiled network
+     * @param residualCapacities the residual capacity of each arc, which gets updated by the calculation
+     * @param source             the index of the start Vertex
+     * @param sink               the index of the end Vertex
+     * @return the value of the maximum flow
+     */
+    @Override
+    public long calculateMaxFlow(ResidualNetwork residualNetwork, int[] residualCapacities, int source, int sink) {
+        return choose(residualNetwork.getStatistics()).getSolver()
+                .calculateMaxFlow(residualNetwork, residualCapacities, source, sink);
+    }
+
+    /**
+     * Chooses the algorithm for a network without formatting the reason
+     *
+     * @param statistics the statistics of the compiled network
+     * @return the algorithm
+     */
+    static SolverType choose(NetworkStatistics statistics) {
+        return chooseRule(statistics).solverType;
+    }
+
+    /**
+     * Chooses the algorithm for a network and explains the choice
+     *
+     * @param statistics the statistics of the compiled network
+     * @return the plan of the calculation
+     */
+    static SolverPlan plan(NetworkStatistics statistics) {
+        Rule rule = chooseRule(statistics);
+        String reason;
+        switch (rule) {
+            case SMALL:
+                reason = String.format(rule.reason, SMALL_VERTICES);
+                break;
+            case PARALLEL:
+                reason = String.format(rule.reason, ParallelPushRelabelSolver.MINIMUM_ARCS,
+                        ForkJoinPool.getCommonPoolParallelism());
+                break;
+            case WIDE:
+                reason = String.format(rule.reason, WIDE_CAPACITY_RATIO);
+                break;
+            case DEEP:
+                reason = String.format(rule.reason, statistics.getNumberOfLayers());
+                break;
+            default:
+                reason = rule.reason;
+                break;
+        }
+        return new SolverPlan(rule.solverType, statistics, reason);
+    }
+
+    /**
+     * Finds the first rule which matches a network
+     *
+     * @param statistics the statistics of the compiled network
+     * @return the matching rule
+     */
+    private static Rule chooseRule(NetworkStatistics statistics) {
+        if (statistics.getNumberOfVertices() < SMALL_VERTICES) return Rule.SMALL;
+        if (statistics.getNumberOfArcs() >= ParallelPushRelabelSolver.MINIMUM_ARCS
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return Rule.PARALLEL;
+        }
+        if (statistics.hasUnitCapacities()) return Rule.UNIT;
+        if (statistics.getCapacityRatio() >= WIDE_CAPACITY_RATIO
+                && statistics.getNumberOfArcs() <= (long) SPARSE_DEGREE * statistics.getNumberOfVertices()) {
+            return Rule.WIDE;
+        }
+        if ((long) statistics.getNumberOfLayers() * statistics.getNumberOfLayers() > statistics.getNumberOfVertices()) {
+            return Rule.DEEP;
+        }
+        return Rule.DEFAULT;
+    }
+
+    /**
+     * This enum describes the rules of the planner in the order in which they are checked
+     */
+    private enum Rule {
+        /**
+         * Small networks
+         */
+        SMALL(SolverType.EDMONDS_KARP, "less than %d vertices, the breadth first search has the least overhead"),
+        /**
+         * Large networks, if the common pool has several threads
+         */
+        PARALLEL(SolverType.PARALLEL_PUSH_RELABEL, "at least %d arcs and %d threads, the pushes run in parallel"),
+        /**
+         * Networks whose sections all have the capacity one
+         */
+        UNIT(SolverType.DINIC, "unit capacities, every blocking flow saturates its paths"),
+        /**
+         * Sparse networks whose capacities differ widely
+         */
+        WIDE(SolverType.CAPACITY_SCALING, "capacity ratio of at least %d on a sparse network, the scaling phases "
+                + "bound the augmenting paths"),
+        /**
+         * Networks with more layers than the square root of their Vertices
+         */
+        DEEP(SolverType.DINIC, "%d layers exceed the square root of the vertices, the blocking flows need few "
+                + "phases"),
+        /**
+         * All other networks
+         */
+        DEFAULT(SolverType.PUSH_RELABEL, "no special structure, push-relabel needs the least work");
+
+        private final SolverType solverType;
+        private final String reason;
+
+        /**
+         * Constructor of the Rule Enum
+         *
+         * @param solverType the algorithm which is chosen by the rule
+         * @param reason     the format of the reason why the algorithm is chosen
+         */
+        Rule(SolverType solverType, String reason) {
+            this.solverType = solverType;
+            this.reason = reason;
+        }
+    }
+}
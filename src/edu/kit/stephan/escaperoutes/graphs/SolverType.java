@@ -0,0 +1,92 @@
+package edu.kit.stephan.escaperoutes.graphs;
+
+import java.util.Arrays;
+
+/**
+ * This enum describes the algorithms which can be used to calculate a flow
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see MaxFlowSolver
+ */
+public enum SolverType {
+    /**
+     * The EdmondsKarp Algorithm
+     */
+    EDMONDS_KARP("edmondsKarp", new EdmondsKarpSolver()),
+    /**
+     * Dinic's Algorithm
+     */
+    DINIC("dinic", new DinicSolver()),
+    /**
+     * The highest label Push-Relabel Algorithm
+     */
+    PUSH_RELABEL("pushRelabel", new PushRelabelSolver()),
+    /**
+     * The EdmondsKarp Algorithm with capacity scaling
+     */
+    CAPACITY_SCALING("capacityScaling", new CapacityScalingSolver()),
+    /**
+     * The lock-free parallel Push-Relabel Algorithm, which is sequential on small networks
+     */
+    PARALLEL_PUSH_RELABEL("parallelPushRelabel", new ParallelPushRelabelSolver()),
+    /**
+     * The algorithm which is chosen for every calculation from the statistics of the network
+     */
+    AUTOMATIC("automatic", new SolverPlanner());
+
+    private final String solverName;
+    private final MaxFlowSolver solver;
+
+    /**
+     * Constructor of the SolverType Enum
+     *
+     * @param solverName the corresponding String name of a solver
+     * @param solver     the algorithm
+     */
+    SolverType(String solverName, MaxFlowSolver solver) {
+        this.solverName = solverName;
+        this.solver = solver;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the solverName
+     */
+    public String getSolverName() {
+        return solverName;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the algorithm
+     */
+    public MaxFlowSolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * Resolves the automatic selection to the algorithm which it chooses for a network, every other algorithm is
+     * returned unchanged
+     *
+     * @param residualNetwork the compiled network on which the flow is calculated
+     * @return the algorithm which calculates the flow
+     */
+    SolverType resolve(ResidualNetwork residualNetwork) {
+        return this == AUTOMATIC ? SolverPlanner.choose(residualNetwork.getStatistics()) : this;
+    }
+
+    /**
+     * Gets the corresponding SolverType to an inputted String
+     *
+     * @param solverName the name of a solver
+     * @return the SolverType, or null if there is none
+     */
+    public static SolverType getSolverType(String solverName) {
+        return Arrays.stream(SolverType.values())
+                .filter(solverType -> solverType.getSolverName().equals(solverName))
+                .findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,211 @@
+package edu.kit.stephan.escaperoutes.main;
+
+import edu.kit.stephan.escaperoutes.commands.Command;
+import edu.kit.stephan.escaperoutes.commands.CommandArguments;
+import edu.kit.stephan.escaperoutes.commands.Result;
+import edu.kit.stephan.escaperoutes.graphs.EscapeNetworkDatabase;
+import edu.kit.stephan.escaperoutes.utilities.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class executes Commands on a pool of threads. Every Command declares how it uses the Graph and the
+ * calculated Flows of its network and the list of all networks, and waits only for the earlier Commands it
+ * conflicts with. So Commands on different networks run in parallel, flows and prints of the same network run
+ * concurrently, and every Command sees the same state as in a sequential execution. Saving and restoring the
+ * whole database waits for every earlier Command and blocks every later one.
+ * The Commands have to be scheduled by a single thread in the order of the input.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see Session
+ */
+final class CommandScheduler {
+    private final EscapeNetworkDatabase escapeNetworkDatabase;
+    private final ExecutorService executorService;
+    private final Map<String, Lane> graphLanes;
+    private final Map<String, Lane> flowLanes;
+    private final Lane networkListLane;
+    private final Lane databaseLane;
+
+    /**
+     * Constructor
+     *
+     * @param escapeNetworkDatabase the database on which the Commands are executed
+     * @param numberOfThreads       the number of threads which execute the Commands
+     */
+    CommandScheduler(EscapeNetworkDatabase escapeNetworkDatabase, int numberOfThreads) {
+        this.escapeNetworkDatabase = escapeNetworkDatabase;
+        this.executorService = Executors.newFixedThreadPool(numberOfThreads);
+        this.graphLanes = new HashMap<>();
+        this.flowLanes = new HashMap<>();
+        this.networkListLane = new Lane();
+        this.databaseLane = new Lane();
+    }
+
+    /**
+     * Schedules a Command after every earlier Command it conflicts with
+     *
+     * @param command    the Command
+     * @param arguments  the arguments of the Command
+     * @return the future result of the Command
+     */
+    CompletableFuture<Result> schedule(Command command, CommandArguments arguments) {
+        List<Pair<Lane, Access>> accesses = getAccesses(command, arguments);
+        CompletableFuture<?>[] dependencies = new CompletableFuture<?>[accesses.size()];
+        for (int i = 0; i < accesses.size(); i++) {
+            dependencies[i] = accesses.get(i).getFirstElement().enter(accesses.get(i).getSecondElement());
+        }
+        CompletableFuture<Result> result = CompletableFuture.allOf(dependencies).handleAsync((ignored, throwable)
+                -> command.execute(arguments, escapeNetworkDatabase), executorService);
+        for (Pair<Lane, Access> access : accesses) {
+            access.getFirstElement().register(result);
+        }
+        return result;
+    }
+
+    /**
+     * Stops the threads after every scheduled Command was executed
+     */
+    void shutdown() {
+        executorService.shutdown();
+    }
+
+    /**
+     * Describes which parts of the database a Command uses
+     *
+     * @param command    the Command
+     * @param arguments  the arguments of the Command
+     * @return the used lanes and how they are used
+     */
+    private List<Pair<Lane, Access>> getAccesses(Command command, CommandArguments arguments) {
+        List<Pair<Lane, Access>> accesses = new ArrayList<>();
+        accesses.add(new Pair<>(databaseLane, command == Command.SAVE || command == Command.RESTORE
+                ? Access.WRITE : Access.READ));
+        switch (command) {
+            case ADD_NETWORK:
+            case ADD_SECTION:
+            case LOAD:
+                accesses.add(new Pair<>(getLane(graphLanes, arguments), Access.WRITE));
+                accesses.add(new Pair<>(getLane(flowLanes, arguments), Access.WRITE));
+                accesses.add(new Pair<>(networkListLane, Access.APPEND));
+                break;
+            case SET_SOLVER:
+                accesses.add(new Pair<>(getLane(graphLanes, arguments), Access.WRITE));
+                break;
+            case FLOW:
+            case FLOWS:
+            case CUT:
+            case EVACUATE:
+                accesses.add(new Pair<>(getLane(graphLanes, arguments), Access.READ));
+                accesses.add(new Pair<>(getLane(flowLanes, arguments), Access.APPEND));
+                break;
+            case PRINT:
+            case EXPORT:
+                accesses.add(new Pair<>(getLane(graphLanes, arguments), Access.READ));
+                break;
+            case EXPLAIN:
+                accesses.add(new Pair<>(getLane(graphLanes, arguments), Access.READ));
+                accesses.add(new Pair<>(getLane(flowLanes, arguments), Access.READ));
+                break;
+            case LIST_SPECIFIC_NETWORK:
+                accesses.add(new Pair<>(getLane(flowLanes, arguments), Access.READ));
+                break;
+            case LIST_ALL_NETWORKS:
+                accesses.add(new Pair<>(networkListLane, Access.READ));
+                break;
+            default:
+                break;
+        }
+        return accesses;
+    }
+
+    /**
+     * Gets the lane of the network of a Command
+     *
+     * @param lanes      the lanes of all networks
+     * @param arguments  the arguments of the Command
+     * @return the lane of the network
+     */
+    private static Lane getLane(Map<String, Lane> lanes, CommandArguments arguments) {
+        return lanes.computeIfAbsent(arguments.getIdentifier(), identifier -> new Lane());
+    }
+
+    /**
+     * Describes how a Command uses a lane. Commands with the same access, which is not WRITE, don't conflict.
+     */
+    private enum Access {
+        /**
+         * The Command only reads
+         */
+        READ,
+        /**
+         * The Command adds something, and the order of the added things does not matter
+         */
+        APPEND,
+        /**
+         * The Command changes the state exclusively
+         */
+        WRITE
+    }
+
+    /**
+     * This class describes a part of the database. The Commands which use it form groups of the same access, and
+     * every group waits for all earlier groups.
+     */
+    private static final class Lane {
+        private static final int MINIMUM_PRUNE_SIZE = 64;
+        private CompletableFuture<?> barrier;
+        private Access groupAccess;
+        private List<CompletableFuture<?>> group;
+        private int pruneSize;
+
+        /**
+         * Constructor
+         */
+        private Lane() {
+            this.barrier = CompletableFuture.completedFuture(null);
+            this.groupAccess = Access.WRITE;
+            this.group = new ArrayList<>();
+            this.pruneSize = MINIMUM_PRUNE_SIZE;
+        }
+
+        /**
+         * Lets a Command enter the lane. The Command joins the current group, if it does not conflict with it,
+         * otherwise it starts a new group.
+         *
+         * @param access how the Command uses the lane
+         * @return the future which has to complete before the Command is executed
+         */
+        private CompletableFuture<?> enter(Access access) {
+            if (access == groupAccess && access != Access.WRITE) {
+                return barrier;
+            }
+            group.add(barrier);
+            barrier = CompletableFuture.allOf(group.toArray(new CompletableFuture<?>[0]));
+            group = new ArrayList<>();
+            groupAccess = access;
+            return barrier;
+        }
+
+        /**
+         * Adds a Command, which entered the lane, to the current group. Completed Commands are removed from time
+         * to time, so a long group does not keep every result.
+         *
+         * @param command the future result of the Command
+         */
+        private void register(CompletableFuture<?> command) {
+            if (group.size() >= pruneSize) {
+                group.removeIf(CompletableFuture::isDone);
+                pruneSize = Math.max(MINIMUM_PRUNE_SIZE, group.size() * 2);
+            }
+            group.add(command);
+        }
+    }
+}
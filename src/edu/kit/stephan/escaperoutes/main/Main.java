@@ -1,6 +1,15 @@
 package edu.kit.stephan.escaperoutes.main;
 
+import edu.kit.informatik.Terminal;
+import edu.kit.stephan.escaperoutes.errors.Errors;
+import edu.kit.stephan.escaperoutes.statistics.RecorderEvent;
+import edu.kit.stephan.escaperoutes.statistics.Statistics;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * This class provides the Main access point
@@ -8,6 +17,10 @@ package edu.kit.stephan.escaperoutes.main;
  * @version 1.0
  */
 public final class Main {
+    private static final String PARALLEL_OPTION = "--parallel";
+    private static final String BATCH_OPTION = "--batch";
+    private static final String JOURNAL_OPTION = "--journal";
+    private static final String OPTION_PREFIX = "--";
 
     /**
      * Utility class constructor
@@ -18,10 +31,78 @@ public final class Main {
 
     /**
      * EntryPoint of the program
-     * @param args not used
+     * @param args empty for an interactive session; "--parallel" followed by an optional number of threads executes
+     *             the commands on several threads; "--batch" followed by an optional file executes the commands of
+     *             the file, or of the standard input, as a pipeline; "--journal" followed by a directory
+     *             recovers the database out of the journal in the directory and journals every change
      */
     public static void main(String[] args) {
-        Session session = new Session();
-        session.interactive();
+        int numberOfThreads = 0;
+        boolean isBatch = false;
+        String batchFile = null;
+        String journalDirectory = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(PARALLEL_OPTION)) {
+                numberOfThreads = hasValue(args, i) ? parseNumberOfThreads(args[++i])
+                        : Runtime.getRuntime().availableProcessors();
+                if (numberOfThreads <= 0) {
+                    Terminal.printError(Errors.NUMBER_OF_THREADS_INVALID);
+                    return;
+                }
+            } else if (args[i].equals(BATCH_OPTION)) {
+                isBatch = true;
+                if (hasValue(args, i)) batchFile = args[++i];
+            } else if (args[i].equals(JOURNAL_OPTION) && hasValue(args, i)) {
+                journalDirectory = args[++i];
+            }
+        }
+        Statistics.registerMBean();
+        RecorderEvent.registerListener();
+        Session session = numberOfThreads > 0 ? new Session(numberOfThreads) : new Session();
+        if (journalDirectory != null && !session.openJournal(journalDirectory)) return;
+        if (isBatch) {
+            runBatch(session, batchFile);
+        } else {
+            session.interactive();
+        }
+        if (journalDirectory != null) session.closeJournal();
+    }
+
+    /**
+     * Executes the commands of a file, or of the standard input, as a pipeline
+     * @param session the session
+     * @param batchFile the file, or null for the standard input
+     */
+    private static void runBatch(Session session, String batchFile) {
+        try (BufferedReader input = batchFile == null
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(batchFile))) {
+            session.batch(input);
+        } catch (IOException e) {
+            Terminal.printError(Errors.FILE_NOT_READABLE);
+        }
+    }
+
+    /**
+     * Parses the number of threads of the parallel option
+     * @param value the value of the option
+     * @return the number of threads, or 0 if the value is not an integer
+     */
+    private static int parseNumberOfThreads(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Checks if an option is followed by a value
+     * @param args the arguments of the program
+     * @param index the index of the option
+     * @return true, if the next argument is not an option; false, if not
+     */
+    private static boolean hasValue(String[] args, int index) {
+        return index + 1 < args.length && !args[index + 1].startsWith(OPTION_PREFIX);
     }
 }
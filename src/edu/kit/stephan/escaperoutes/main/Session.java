@@ -2,14 +2,27 @@ package edu.kit.stephan.escaperoutes.main;
 
 import edu.kit.informatik.Terminal;
 import edu.kit.stephan.escaperoutes.commands.Command;
+import edu.kit.stephan.escaperoutes.commands.CommandArguments;
 import edu.kit.stephan.escaperoutes.commands.CommandParser;
 
 import edu.kit.stephan.escaperoutes.commands.Result;
 import edu.kit.stephan.escaperoutes.errors.Errors;
+import edu.kit.stephan.escaperoutes.errors.SemanticsException;
 import edu.kit.stephan.escaperoutes.errors.SyntaxException;
 import edu.kit.stephan.escaperoutes.graphs.EscapeNetworkDatabase;
 import edu.kit.stephan.escaperoutes.utilities.Pair;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * This class describes a session of command execution
@@ -18,35 +31,337 @@ import java.util.List;
  * @version 1.0
  */
 public class Session {
+    private static final CompletableFuture<Result> END_OF_INPUT = new CompletableFuture<>();
+    private static final int CHUNK_SIZE = 1024;
+    private static final int PIPELINE_CAPACITY = 64;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
     private final EscapeNetworkDatabase escapeNetworkDatabase;
-    private boolean isRunning;
+    private final CommandScheduler commandScheduler;
+    private volatile boolean isRunning;
+    private volatile String batchError;
 
     /**
-     * Constructs a new instance.
+     * Constructs a new instance, which executes one command after another.
      */
     public Session() {
         isRunning = true;
         escapeNetworkDatabase = new EscapeNetworkDatabase();
+        commandScheduler = null;
     }
 
+    /**
+     * Constructs a new instance, which executes the commands on several threads. Commands on different networks
+     * run in parallel, the output keeps the order of the input.
+     * @param numberOfThreads the number of threads which execute the commands
+     */
+    public Session(int numberOfThreads) {
+        isRunning = true;
+        escapeNetworkDatabase = new EscapeNetworkDatabase();
+        commandScheduler = new CommandScheduler(escapeNetworkDatabase, numberOfThreads);
+    }
+
+    /**
+     * Opens the journal of the database and recovers the changes of earlier sessions out of it
+     * @param directory the directory of the journal
+     * @return true, if the journal was opened; false, if not and the error was printed
+     */
+    public boolean openJournal(String directory) {
+        try {
+            escapeNetworkDatabase.openJournal(directory);
+            return true;
+        } catch (SemanticsException e) {
+            printError(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes the pending changes of the journal and closes it
+     */
+    public void closeJournal() {
+        try {
+            escapeNetworkDatabase.closeJournal();
+        } catch (SemanticsException e) {
+            printError(e.getMessage());
+        }
+    }
+
+    /**
+     * Executes a single command without printing its result. In a session with several threads the command is
+     * scheduled like in the interactive session, so the commands have to be submitted by a single thread.
+     * @param line the command
+     * @return the future result of the command
+     */
+    public CompletableFuture<Result> submit(String line) {
+        return executeParsedCommand(ParsedCommand.parse(new CommandParser(), line));
+    }
+
+    /**
+     * Stops the threads of the session after every submitted command was executed
+     */
+    public void shutdown() {
+        if (commandScheduler != null) commandScheduler.shutdown();
+    }
 
     /**
      * Starts the interactive session by reading the Terminal Input
      */
     public void interactive() {
         isRunning = true;
+        if (commandScheduler != null) {
+            interactiveInParallel();
+            return;
+        }
         while (isRunning) {
             processSingleCommand();
         }
     }
 
+    /**
+     * Reads and schedules the commands until the quit command or the end of the input, while a second thread
+     * prints the results in the order of the input
+     */
+    private void interactiveInParallel() {
+        BlockingQueue<CompletableFuture<Result>> pendingResults = new LinkedBlockingQueue<>();
+        Thread printer = new Thread(() -> printInOrder(pendingResults));
+        printer.start();
+        boolean isReading = true;
+        while (isReading) {
+            String inputUser = Terminal.readLine();
+            if (inputUser == null) break;
+            CommandParser commandParser = new CommandParser();
+            try {
+                Pair<Command, CommandArguments> parsedArguments = commandParser.parseCommand(inputUser);
+                Command command = parsedArguments.getFirstElement();
+                pendingResults.add(commandScheduler.schedule(command, parsedArguments.getSecondElement()));
+                isReading = command != Command.QUIT;
+            } catch (SyntaxException e) {
+                pendingResults.add(CompletableFuture.completedFuture(
+                        new Result(Result.ResultType.FAILURE, e.getMessage())));
+            }
+        }
+        pendingResults.add(END_OF_INPUT);
+        try {
+            printer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            commandScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Prints the results of the scheduled commands in the order of the input
+     * @param pendingResults the future results of the scheduled commands
+     */
+    private void printInOrder(BlockingQueue<CompletableFuture<Result>> pendingResults) {
+        try {
+            CompletableFuture<Result> result = pendingResults.take();
+            while (result != END_OF_INPUT) {
+                printResult(result.join());
+                result = pendingResults.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executes the commands of a stream until the quit command or the end of the stream. The commands are read,
+     * parsed, executed and printed by a pipeline of threads, which pass chunks of lines through bounded queues, so
+     * the output is the same as in the interactive session but is written through a buffer.
+     * @param input the stream of commands, one command per line
+     */
+    public void batch(BufferedReader input) {
+        isRunning = true;
+        batchError = null;
+        BlockingQueue<List<String>> lines = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+        BlockingQueue<List<ParsedCommand>> parsedCommands = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+        BlockingQueue<List<CompletableFuture<Result>>> pendingResults = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+        startStage(() -> readLines(input, lines), lines, true);
+        startStage(() -> parseLines(lines, parsedCommands), parsedCommands, false);
+        startStage(() -> executeParsedCommands(parsedCommands, pendingResults), pendingResults, false);
+
+        PrintStream terminalOutput = System.out;
+        PrintStream bufferedOutput
+                = new PrintStream(new BufferedOutputStream(terminalOutput, OUTPUT_BUFFER_SIZE), false);
+        System.setOut(bufferedOutput);
+        try {
+            printChunksInOrder(pendingResults, bufferedOutput);
+        } finally {
+            bufferedOutput.flush();
+            System.setOut(terminalOutput);
+            if (commandScheduler != null) commandScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Starts a stage of the pipeline on its own thread. If the stage fails, the error is printed after the results
+     * of the earlier commands, so the batch does not end silently.
+     * @param stage the stage
+     * @param output the queue to the next stage, whose stream is ended after the stage
+     * @param isDaemon true, if the stage may still block when the session ends
+     * @param <T> the type of the elements of a chunk
+     */
+    private <T> void startStage(Runnable stage, BlockingQueue<List<T>> output, boolean isDaemon) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (RuntimeException e) {
+                if (batchError == null) batchError = Errors.BATCH_ABORTED;
+            } finally {
+                endStage(output);
+            }
+        });
+        thread.setDaemon(isDaemon);
+        thread.start();
+    }
+
+    /**
+     * First stage of the pipeline, which reads the lines of the stream. A chunk is passed on when it is full or
+     * when no more input is available yet.
+     * @param input the stream of commands
+     * @param lines the chunks of read lines
+     */
+    private void readLines(BufferedReader input, BlockingQueue<List<String>> lines) {
+        try {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line = input.readLine();
+            while (line != null) {
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE || !input.ready()) {
+                    lines.put(chunk);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+                line = input.readLine();
+            }
+            if (!chunk.isEmpty()) lines.put(chunk);
+        } catch (IOException e) {
+            batchError = Errors.FILE_NOT_READABLE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Second stage of the pipeline, which parses the lines until the quit command
+     * @param lines the chunks of read lines
+     * @param parsedCommands the chunks of parsed commands
+     */
+    private static void parseLines(BlockingQueue<List<String>> lines,
+                                   BlockingQueue<List<ParsedCommand>> parsedCommands) {
+        CommandParser commandParser = new CommandParser();
+        try {
+            boolean isParsing = true;
+            List<String> chunk = lines.take();
+            while (isParsing && !chunk.isEmpty()) {
+                List<ParsedCommand> parsedChunk = new ArrayList<>(chunk.size());
+                for (String line : chunk) {
+                    ParsedCommand parsedCommand = ParsedCommand.parse(commandParser, line);
+                    parsedChunk.add(parsedCommand);
+                    if (parsedCommand.getCommand() == Command.QUIT) {
+                        isParsing = false;
+                        break;
+                    }
+                }
+                parsedCommands.put(parsedChunk);
+                if (isParsing) chunk = lines.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Third stage of the pipeline, which executes the parsed commands one after another, or schedules them if the
+     * session executes the commands on several threads
+     * @param parsedCommands the chunks of parsed commands
+     * @param pendingResults the chunks of future results
+     */
+    private void executeParsedCommands(BlockingQueue<List<ParsedCommand>> parsedCommands,
+                                       BlockingQueue<List<CompletableFuture<Result>>> pendingResults) {
+        try {
+            List<ParsedCommand> chunk = parsedCommands.take();
+            while (!chunk.isEmpty()) {
+                List<CompletableFuture<Result>> results = new ArrayList<>(chunk.size());
+                for (ParsedCommand parsedCommand : chunk) {
+                    results.add(executeParsedCommand(parsedCommand));
+                }
+                pendingResults.put(results);
+                chunk = parsedCommands.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executes or schedules a parsed command. A command which fails with an unexpected exception results in a
+     * failure, so the following commands are still executed.
+     * @param parsedCommand the parsed command
+     * @return the future result of the command
+     */
+    private CompletableFuture<Result> executeParsedCommand(ParsedCommand parsedCommand) {
+        if (parsedCommand.getCommand() == null) {
+            return CompletableFuture.completedFuture(
+                    new Result(Result.ResultType.FAILURE, parsedCommand.getSyntaxError()));
+        }
+        if (commandScheduler != null) {
+            return commandScheduler.schedule(parsedCommand.getCommand(), parsedCommand.getArguments())
+                    .exceptionally(throwable -> new Result(Result.ResultType.FAILURE, Errors.COMMAND_ENDED_ERROR));
+        }
+        try {
+            return CompletableFuture.completedFuture(
+                    parsedCommand.getCommand().execute(parsedCommand.getArguments(), escapeNetworkDatabase));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(
+                    new Result(Result.ResultType.FAILURE, Errors.COMMAND_ENDED_ERROR));
+        }
+    }
+
+    /**
+     * Last stage of the pipeline, which prints the results in the order of the input and the error of a failed
+     * stage after them. The buffer is flushed whenever the stage has to wait for more results.
+     * @param pendingResults the chunks of future results
+     * @param output the buffered output
+     */
+    private void printChunksInOrder(BlockingQueue<List<CompletableFuture<Result>>> pendingResults,
+                                    PrintStream output) {
+        try {
+            List<CompletableFuture<Result>> chunk = pendingResults.take();
+            while (!chunk.isEmpty()) {
+                for (CompletableFuture<Result> result : chunk) {
+                    printResult(result.join());
+                }
+                if (pendingResults.isEmpty()) output.flush();
+                chunk = pendingResults.take();
+            }
+            if (batchError != null) printError(batchError);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ends the stream of a stage by passing an empty chunk
+     * @param queue the queue to the next stage
+     * @param <T> the type of the elements of a chunk
+     */
+    private static <T> void endStage(BlockingQueue<List<T>> queue) {
+        try {
+            queue.put(Collections.emptyList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * processes a single input
      */
     private void processSingleCommand() {
         String inputUser = Terminal.readLine();
         CommandParser commandParser = new CommandParser();
-        Pair<String, List<String>> parsedArguments;
+        Pair<Command, CommandArguments> parsedArguments;
         try {
             parsedArguments = commandParser.parseCommand(inputUser);
         } catch (SyntaxException e) {
@@ -54,19 +369,26 @@ public class Session {
             return;
         }
 
-        final String command = parsedArguments.getFirstElement();
-        final List<String> parameters = parsedArguments.getSecondElement();
-        executeSingleCommand(command, parameters);
+        final Command command = parsedArguments.getFirstElement();
+        final CommandArguments arguments = parsedArguments.getSecondElement();
+        executeSingleCommand(command, arguments);
     }
 
     /**
      * Method which execute the inputted Command with the Parameters
      * (Inspired by the solution of Lukas Alber (Santorini))
-     * @param command    the parsed Command String
-     * @param parameters the parameters to the associated Command
+     * @param command   the parsed Command
+     * @param arguments the typed arguments to the associated Command
+     */
+    private void executeSingleCommand(Command command, CommandArguments arguments) {
+        printResult(command.execute(arguments, escapeNetworkDatabase));
+    }
+
+    /**
+     * Prints the result of a command and ends the session after the quit command
+     * @param result the result of the command
      */
-    private void executeSingleCommand(String command, List<String> parameters) {
-        Result result = Command.getCommand(command).executeCommand(parameters, escapeNetworkDatabase);
+    private void printResult(Result result) {
         switch (result.getType()) {
             case SUCCESS:
                 if (result.getMessage() != null) {
@@ -95,4 +417,64 @@ public class Session {
     private void printError(String errorMessage) {
         Terminal.printError(errorMessage);
     }
-}
\ No newline at end of file
+
+    /**
+     * This class describes a parsed line of the input, which is either a command or a syntax error
+     */
+    private static final class ParsedCommand {
+        private final Command command;
+        private final CommandArguments arguments;
+        private final String syntaxError;
+
+        /**
+         * Constructor
+         * @param command the command, or null if the line has a syntax error
+         * @param arguments the arguments of the command
+         * @param syntaxError the message of the syntax error, or null if there is none
+         */
+        private ParsedCommand(Command command, CommandArguments arguments, String syntaxError) {
+            this.command = command;
+            this.arguments = arguments;
+            this.syntaxError = syntaxError;
+        }
+
+        /**
+         * Parses a line of the input
+         * @param commandParser the parser
+         * @param inputUser the line
+         * @return the parsed line
+         */
+        private static ParsedCommand parse(CommandParser commandParser, String inputUser) {
+            try {
+                Pair<Command, CommandArguments> parsedArguments = commandParser.parseCommand(inputUser);
+                return new ParsedCommand(parsedArguments.getFirstElement(), parsedArguments.getSecondElement(), null);
+            } catch (SyntaxException e) {
+                return new ParsedCommand(null, null, e.getMessage());
+            }
+        }
+
+        /**
+         * Getter-Method
+         * @return the command, or null if the line has a syntax error
+         */
+        private Command getCommand() {
+            return command;
+        }
+
+        /**
+         * Getter-Method
+         * @return the arguments of the command
+         */
+        private CommandArguments getArguments() {
+            return arguments;
+        }
+
+        /**
+         * Getter-Method
+         * @return the message of the syntax error
+         */
+        private String getSyntaxError() {
+            return syntaxError;
+        }
+    }
+}
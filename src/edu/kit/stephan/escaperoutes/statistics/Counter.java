@@ -0,0 +1,109 @@
+package edu.kit.stephan.escaperoutes.statistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This enum describes the counters of the flow calculations. The solvers count in local variables and add the
+ * sums once per search, so the counters cost nothing in the inner loops. A counter is striped over the threads
+ * which use it, so it allocates nothing once it was used by a thread.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see Statistics
+ */
+public enum Counter {
+    /**
+     * The breadth first searches of all solvers
+     */
+    BFS_RUNS("bfsRuns"),
+    /**
+     * The paths along which flow was augmented
+     */
+    AUGMENTING_PATHS("augmentingPaths"),
+    /**
+     * The pushes of the Push-Relabel Algorithm
+     */
+    PUSHES("pushes"),
+    /**
+     * The relabels of the Push-Relabel Algorithm
+     */
+    RELABELS("relabels"),
+    /**
+     * The Vertices which were taken out of a queue or a stack by a search
+     */
+    VERTICES_SCANNED("verticesScanned"),
+    /**
+     * The arcs which were inspected by a search
+     */
+    EDGES_SCANNED("edgesScanned"),
+    /**
+     * The flows which were calculated before and still valid
+     */
+    CACHE_HITS("cacheHits"),
+    /**
+     * The flows which had to be calculated
+     */
+    CACHE_MISSES("cacheMisses"),
+    /**
+     * The calculated flows which were repaired out of their residual state instead of calculated from zero
+     */
+    REPAIRED_FLOWS("repairedFlows"),
+    /**
+     * The residual states which were evicted by the cache
+     */
+    CACHE_EVICTIONS("cacheEvictions");
+
+    private final String counterName;
+    private final LongAdder value;
+
+    /**
+     * Constructor of the Counter Enum
+     *
+     * @param counterName the name which is shown in the statistics
+     */
+    Counter(String counterName) {
+        this.counterName = counterName;
+        this.value = new LongAdder();
+    }
+
+    /**
+     * Adds an amount to the counter
+     *
+     * @param amount the amount
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * Adds one to the counter
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the current value
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the counterName
+     */
+    public String getCounterName() {
+        return counterName;
+    }
+
+    /**
+     * Sets the counter to zero
+     */
+    void reset() {
+        value.reset();
+    }
+}
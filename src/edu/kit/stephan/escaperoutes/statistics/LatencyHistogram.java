@@ -0,0 +1,155 @@
+package edu.kit.stephan.escaperoutes.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class describes a histogram of latencies in nanoseconds with a relative precision of about two percent.
+ * Small values have a bucket each, larger values share a bucket with all values of the same power of two and
+ * the same six leading bits. Recording only increments counters, so it allocates nothing and can be called by
+ * several threads at once.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see Statistics
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+    private static final int HIGHEST_MAGNITUDE = 42;
+    private static final long HIGHEST_VALUE = (1L << (HIGHEST_MAGNITUDE + 1)) - 1;
+    private final String name;
+    private final AtomicLongArray buckets;
+    private final LongAdder sum;
+    private final AtomicLong maximum;
+
+    /**
+     * Constructor
+     *
+     * @param name the name which is shown in the statistics
+     */
+    LatencyHistogram(String name) {
+        this.name = name;
+        this.buckets = new AtomicLongArray(getIndex(HIGHEST_VALUE) + 1);
+        this.sum = new LongAdder();
+        this.maximum = new AtomicLong();
+    }
+
+    /**
+     * Records a latency. Latencies above about two hours are recorded as the highest value.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, HIGHEST_VALUE));
+        buckets.incrementAndGet(getIndex(value));
+        sum.add(value);
+        long currentMaximum = maximum.get();
+        while (value > currentMaximum && !maximum.compareAndSet(currentMaximum, value)) {
+            currentMaximum = maximum.get();
+        }
+    }
+
+    /**
+     * Gets the bucket of a value
+     *
+     * @param value the value
+     * @return the index of the bucket
+     */
+    private static int getIndex(long value) {
+        if (value < LINEAR_BUCKETS) return (int) value;
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the highest value of a bucket
+     *
+     * @param index the index of the bucket
+     * @return the highest value which is recorded in the bucket
+     */
+    private static long getHighestValue(int index) {
+        if (index < LINEAR_BUCKETS) return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = SUB_BUCKETS + (index & (SUB_BUCKETS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies. The result is the highest value of the bucket of the percentile,
+     * but never more than the highest recorded latency.
+     *
+     * @param fraction the percentile as a fraction between zero and one
+     * @return the latency in nanoseconds, or zero if nothing was recorded
+     */
+    public long getPercentile(double fraction) {
+        long[] counts = new long[buckets.length()];
+        long count = 0;
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] = buckets.get(index);
+            count += counts[index];
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) return Math.min(getHighestValue(index), maximum.get());
+        }
+        return 0;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (int index = 0; index < buckets.length(); index++) {
+            count += buckets.get(index);
+        }
+        return count;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the mean of the recorded latencies in nanoseconds, or zero if nothing was recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the highest recorded latency in nanoseconds
+     */
+    public long getMaximum() {
+        return maximum.get();
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the name of the histogram
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Removes every recorded latency
+     */
+    void reset() {
+        for (int index = 0; index < buckets.length(); index++) {
+            buckets.set(index, 0);
+        }
+        sum.reset();
+        maximum.set(0);
+    }
+}
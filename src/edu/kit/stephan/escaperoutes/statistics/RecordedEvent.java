@@ -0,0 +1,33 @@
+package edu.kit.stephan.escaperoutes.statistics;
+
+/**
+ * This class describes an event of the Java Flight Recorder which was begun and is not committed yet
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see RecorderEvent
+ */
+public final class RecordedEvent {
+    private final RecorderEvent recorderEvent;
+    private final Object event;
+
+    /**
+     * Constructor
+     *
+     * @param recorderEvent the type of the event
+     * @param event         the event of the flight recorder
+     */
+    RecordedEvent(RecorderEvent recorderEvent, Object event) {
+        this.recorderEvent = recorderEvent;
+        this.event = event;
+    }
+
+    /**
+     * Ends the event and commits it with the values of its fields
+     *
+     * @param values the values of the fields in the order of the event type
+     */
+    public void commit(Object... values) {
+        recorderEvent.commit(event, values);
+    }
+}
@@ -0,0 +1,304 @@
+package edu.kit.stephan.escaperoutes.statistics;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This enum describes the events which are emitted to the Java Flight Recorder. The events are disabled by
+ * default and are enabled by the settings file escaperoutes.jfc in the root of the project, for example
+ * {@code -XX:StartFlightRecording:filename=escaperoutes.jfr,settings=escaperoutes.jfc}. The settings file also
+ * sets the threshold of every event to 0 ms, without it the short events are not recorded.
+ * The program is compiled for Java 8, which has no event classes, so the event types are created with the event
+ * factory of the flight recorder when the first recording starts. As long as no recording is running, beginning
+ * an event only reads a volatile flag and allocates nothing.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see RecordedEvent
+ */
+public enum RecorderEvent {
+    /**
+     * A flow which was not cached and was calculated or repaired
+     */
+    FLOW_CALCULATION("FlowCalculation", "Flow Calculation", "A maximum flow which was not cached",
+            new Field(String.class, "networkId", "Network"), new Field(String.class, "source", "Source"),
+            new Field(String.class, "sink", "Sink"), new Field(String.class, "solver", "Solver"),
+            new Field(int.class, "vertices", "Vertices"), new Field(int.class, "sections", "Sections"),
+            new Field(long.class, "augmentations", "Augmenting Paths"), new Field(long.class, "flowValue", "Flow"),
+            new Field(boolean.class, "repaired", "Repaired")),
+    /**
+     * A section which was added to an existing network and validated
+     */
+    SECTION_ADDED("SectionAdded", "Section Added", "A section which was applied tentatively and validated",
+            new Field(String.class, "networkId", "Network"), new Field(String.class, "section", "Section"),
+            new Field(boolean.class, "valid", "Valid"), new Field(int.class, "changes", "Tentative Changes"),
+            new Field(int.class, "vertices", "Vertices")),
+    /**
+     * A residual state which was evicted by the flow cache
+     */
+    CACHE_EVICTION("CacheEviction", "Cache Eviction", "A residual state which was evicted by the flow cache",
+            new Field(long.class, "evictedBytes", "Evicted Bytes"),
+            new Field(int.class, "cachedStates", "Cached States"),
+            new Field(long.class, "cachedBytes", "Cached Bytes"));
+
+    private static final String EVENT_NAME_PREFIX = "edu.kit.stephan.escaperoutes.";
+    private static final String CATEGORY = "Escape Routes";
+    private static final String JFR_PACKAGE = "jdk.jfr.";
+    private static final String RUNNING = "RUNNING";
+    private static final Set<Long> RUNNING_RECORDINGS = new HashSet<>();
+    private static final ThreadLocal<long[]> AUGMENTATIONS = ThreadLocal.withInitial(() -> new long[1]);
+    private static volatile boolean recording;
+    private static Method isEnabled;
+    private static Method begin;
+    private static Method end;
+    private static Method shouldCommit;
+    private static Method set;
+    private static Method commit;
+
+    private final String eventName;
+    private final String label;
+    private final String description;
+    private final List<Field> fields;
+    private volatile Object eventFactory;
+    private Method newEvent;
+
+    /**
+     * Constructor of the RecorderEvent Enum
+     *
+     * @param eventName   the name of the event without the prefix of the program
+     * @param label       the name which is shown by the tools of the flight recorder
+     * @param description the description of the event
+     * @param fields      the fields of the event in the order of their index
+     */
+    RecorderEvent(String eventName, String label, String description, Field... fields) {
+        this.eventName = EVENT_NAME_PREFIX + eventName;
+        this.label = label;
+        this.description = description;
+        this.fields = Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    /**
+     * Begins an event. The event has to be committed with the values of its fields in their order.
+     *
+     * @return the begun event, or null if no recording is running or the event is not enabled
+     */
+    public RecordedEvent begin() {
+        if (!recording) return null;
+        try {
+            Object event = getNewEvent().invoke(eventFactory);
+            if (!(Boolean) isEnabled.invoke(event)) return null;
+            begin.invoke(event);
+            return new RecordedEvent(this, event);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Counts the augmenting paths of the current thread, while a recording is running
+     *
+     * @param paths the number of augmenting paths
+     */
+    public static void addAugmentations(long paths) {
+        if (recording) AUGMENTATIONS.get()[0] += paths;
+    }
+
+    /**
+     * Gets the augmenting paths of the current thread since the last call and starts counting at zero
+     *
+     * @return the number of augmenting paths
+     */
+    public static long takeAugmentations() {
+        if (!recording) return 0;
+        long[] augmentations = AUGMENTATIONS.get();
+        long paths = augmentations[0];
+        augmentations[0] = 0;
+        return paths;
+    }
+
+    /**
+     * Ends an event and commits it, if its duration passes the threshold of the recording
+     *
+     * @param event  the event of the flight recorder
+     * @param values the values of the fields
+     */
+    void commit(Object event, Object... values) {
+        try {
+            end.invoke(event);
+            if (!(Boolean) shouldCommit.invoke(event)) return;
+            for (int index = 0; index < values.length; index++) {
+                set.invoke(event, index, values[index]);
+            }
+            commit.invoke(event);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            /*
+            An event which can't be committed is dropped, the flight recorder must never fail a command
+             */
+        }
+    }
+
+    /**
+     * Gets the method which creates an event and registers the event type, if it was not registered yet
+     *
+     * @return the method
+     * @throws ReflectiveOperationException if the event factory can't be used
+     */
+    private Method getNewEvent() throws ReflectiveOperationException {
+        if (eventFactory == null) {
+            synchronized (this) {
+                if (eventFactory == null) {
+                    Class<?> factoryClass = Class.forName(JFR_PACKAGE + "EventFactory");
+                    newEvent = factoryClass.getMethod("newEvent");
+                    eventFactory = factoryClass.getMethod("create", List.class, List.class)
+                            .invoke(null, createAnnotations(), createFields());
+                }
+            }
+        }
+        return newEvent;
+    }
+
+    /**
+     * Creates the annotations of the event type
+     *
+     * @return the annotation elements of the flight recorder
+     * @throws ReflectiveOperationException if the annotations can't be created
+     */
+    private List<Object> createAnnotations() throws ReflectiveOperationException {
+        List<Object> annotations = new ArrayList<>();
+        annotations.add(createAnnotation("Name", eventName));
+        annotations.add(createAnnotation("Label", label));
+        annotations.add(createAnnotation("Description", description));
+        annotations.add(createAnnotation("Category", new String[] {CATEGORY}));
+        annotations.add(createAnnotation("Enabled", false));
+        annotations.add(createAnnotation("StackTrace", false));
+        return annotations;
+    }
+
+    /**
+     * Creates the fields of the event type
+     *
+     * @return the value descriptors of the flight recorder
+     * @throws ReflectiveOperationException if the fields can't be created
+     */
+    private List<Object> createFields() throws ReflectiveOperationException {
+        Constructor<?> valueDescriptor = Class.forName(JFR_PACKAGE + "ValueDescriptor")
+                .getConstructor(Class.class, String.class, List.class);
+        List<Object> valueDescriptors = new ArrayList<>();
+        for (Field field : fields) {
+            valueDescriptors.add(valueDescriptor.newInstance(field.type, field.name,
+                    Collections.singletonList(createAnnotation("Label", field.label))));
+        }
+        return valueDescriptors;
+    }
+
+    /**
+     * Creates an annotation element of the flight recorder
+     *
+     * @param annotationName the simple name of the annotation
+     * @param value          the value of the annotation
+     * @return the annotation element
+     * @throws ReflectiveOperationException if the annotation element can't be created
+     */
+    private static Object createAnnotation(String annotationName, Object value) throws ReflectiveOperationException {
+        Class<? extends Annotation> annotation = Class.forName(JFR_PACKAGE + annotationName)
+                .asSubclass(Annotation.class);
+        return Class.forName(JFR_PACKAGE + "AnnotationElement").getConstructor(Class.class, Object.class)
+                .newInstance(annotation, value);
+    }
+
+    /**
+     * Listens to the recordings of the flight recorder, so the events are only created while a recording is
+     * running. Nothing happens if the Java runtime has no flight recorder.
+     *
+     * @return true, if the flight recorder is observed; false, if not
+     */
+    public static boolean registerListener() {
+        try {
+            Class<?> flightRecorder = Class.forName(JFR_PACKAGE + "FlightRecorder");
+            Class<?> listenerClass = Class.forName(JFR_PACKAGE + "FlightRecorderListener");
+            Class<?> eventClass = Class.forName(JFR_PACKAGE + "Event");
+            isEnabled = eventClass.getMethod("isEnabled");
+            begin = eventClass.getMethod("begin");
+            end = eventClass.getMethod("end");
+            shouldCommit = eventClass.getMethod("shouldCommit");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            commit = eventClass.getMethod("commit");
+            Object listener = Proxy.newProxyInstance(listenerClass.getClassLoader(), new Class<?>[] {listenerClass},
+                (proxy, method, arguments) -> {
+                    switch (method.getName()) {
+                        case "recordingStateChanged":
+                            updateRecording(arguments[0]);
+                            return null;
+                        case "equals":
+                            return proxy == arguments[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return RecorderEvent.class.getName();
+                        default:
+                            return null;
+                    }
+                });
+            flightRecorder.getMethod("addListener", listenerClass).invoke(null, listener);
+            if ((Boolean) flightRecorder.getMethod("isInitialized").invoke(null)) {
+                Object recorder = flightRecorder.getMethod("getFlightRecorder").invoke(null);
+                for (Object runningRecording : (List<?>) flightRecorder.getMethod("getRecordings").invoke(recorder)) {
+                    updateRecording(runningRecording);
+                }
+            }
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Updates the running recordings after the state of a recording has changed
+     *
+     * @param changedRecording the recording of the flight recorder
+     * @throws ReflectiveOperationException if the state of the recording can't be read
+     */
+    private static void updateRecording(Object changedRecording) throws ReflectiveOperationException {
+        Class<?> recordingClass = changedRecording.getClass();
+        long id = (Long) recordingClass.getMethod("getId").invoke(changedRecording);
+        String state = recordingClass.getMethod("getState").invoke(changedRecording).toString();
+        synchronized (RUNNING_RECORDINGS) {
+            if (state.equals(RUNNING)) {
+                RUNNING_RECORDINGS.add(id);
+            } else {
+                RUNNING_RECORDINGS.remove(id);
+            }
+            recording = !RUNNING_RECORDINGS.isEmpty();
+        }
+    }
+
+    /**
+     * This class describes a field of an event
+     */
+    private static final class Field {
+        private final Class<?> type;
+        private final String name;
+        private final String label;
+
+        /**
+         * Constructor
+         *
+         * @param type  the primitive type or String
+         * @param name  the name of the field
+         * @param label the name which is shown by the tools of the flight recorder
+         */
+        private Field(Class<?> type, String name, String label) {
+            this.type = type;
+            this.name = name;
+            this.label = label;
+        }
+    }
+}
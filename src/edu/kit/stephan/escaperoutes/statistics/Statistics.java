@@ -0,0 +1,126 @@
+package edu.kit.stephan.escaperoutes.statistics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class collects the latency histograms and the counters of the program. The histograms of the parser and
+ * the flow calculation exist from the start, every Command creates its own histogram. The statistics are shown
+ * by the stats command and by a JMX MBean.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see LatencyHistogram
+ * @see Counter
+ */
+public final class Statistics {
+    private static final List<LatencyHistogram> HISTOGRAMS = new CopyOnWriteArrayList<>();
+    /**
+     * The latencies of the parser
+     */
+    public static final LatencyHistogram PARSE = createHistogram("parse");
+    /**
+     * The latencies of the flow calculations, which were not cached
+     */
+    public static final LatencyHistogram FLOW_CALCULATION = createHistogram("flowCalculation");
+    private static final String OBJECT_NAME = "edu.kit.stephan.escaperoutes:type=Statistics";
+    private static final String HISTOGRAM_LINE = "%s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus "
+            + "max=%.1fus";
+    private static final String COUNTER_LINE = "%s=%d";
+    private static final double NANOS_PER_MICRO = 1e3;
+    static final double MEDIAN = 0.5;
+    static final double PERCENTILE_99 = 0.99;
+    static final double PERCENTILE_999 = 0.999;
+
+    /**
+     * Utility class constructor
+     */
+    private Statistics() {
+        throw new IllegalStateException("Utility-class constructor.");
+    }
+
+    /**
+     * Creates a histogram which is shown in the statistics
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public static LatencyHistogram createHistogram(String name) {
+        LatencyHistogram histogram = new LatencyHistogram(name);
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Getter-Method
+     *
+     * @return the histograms in the order of their creation
+     */
+    static List<LatencyHistogram> getHistograms() {
+        return HISTOGRAMS;
+    }
+
+    /**
+     * Registers the MBean of the statistics at the platform MBean server. A second registration is ignored.
+     *
+     * @return true, if the MBean is registered; false, if not
+     */
+    public static boolean registerMBean() {
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new StatisticsBean(), objectName);
+            }
+            return true;
+        } catch (JMException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the output of the stats command: a line with the latencies of every histogram, followed by a line
+     * with the value of every counter
+     *
+     * @return the statistics
+     */
+    public static String getReport() {
+        StringJoiner output = new StringJoiner(System.lineSeparator());
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            output.add(String.format(Locale.ROOT, HISTOGRAM_LINE, histogram.getName(), histogram.getCount(),
+                    histogram.getMean() / NANOS_PER_MICRO, toMicros(histogram.getPercentile(MEDIAN)),
+                    toMicros(histogram.getPercentile(PERCENTILE_99)), toMicros(histogram.getPercentile(PERCENTILE_999)),
+                    toMicros(histogram.getMaximum())));
+        }
+        for (Counter counter : Counter.values()) {
+            output.add(String.format(COUNTER_LINE, counter.getCounterName(), counter.get()));
+        }
+        return output.toString();
+    }
+
+    /**
+     * Removes every recorded latency and sets every counter to zero
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        for (Counter counter : Counter.values()) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Converts nanoseconds to microseconds
+     *
+     * @param nanos the nanoseconds
+     * @return the microseconds
+     */
+    static double toMicros(long nanos) {
+        return nanos / NANOS_PER_MICRO;
+    }
+}
@@ -0,0 +1,76 @@
+package edu.kit.stephan.escaperoutes.statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * This class implements the JMX view of the statistics, every attribute is read when it is requested
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see StatisticsMXBean
+ */
+final class StatisticsBean implements StatisticsMXBean {
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            counters.put(counter.getCounterName(), counter.get());
+        }
+        return counters;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (LatencyHistogram histogram : Statistics.getHistograms()) {
+            counts.put(histogram.getName(), histogram.getCount());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP50Micros() {
+        return getLatencies(histogram -> Statistics.toMicros(histogram.getPercentile(Statistics.MEDIAN)));
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP99Micros() {
+        return getLatencies(histogram -> Statistics.toMicros(histogram.getPercentile(Statistics.PERCENTILE_99)));
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP999Micros() {
+        return getLatencies(histogram -> Statistics.toMicros(histogram.getPercentile(Statistics.PERCENTILE_999)));
+    }
+
+    @Override
+    public Map<String, Double> getLatencyMaximumMicros() {
+        return getLatencies(histogram -> Statistics.toMicros(histogram.getMaximum()));
+    }
+
+    @Override
+    public String getReport() {
+        return Statistics.getReport();
+    }
+
+    @Override
+    public void reset() {
+        Statistics.reset();
+    }
+
+    /**
+     * Gets a value of every histogram
+     *
+     * @param value the function which gets the value of a histogram
+     * @return the value of every histogram by its name
+     */
+    private static Map<String, Double> getLatencies(ToDoubleFunction<LatencyHistogram> value) {
+        Map<String, Double> latencies = new LinkedHashMap<>();
+        for (LatencyHistogram histogram : Statistics.getHistograms()) {
+            latencies.put(histogram.getName(), value.applyAsDouble(histogram));
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,68 @@
+package edu.kit.stephan.escaperoutes.statistics;
+
+import java.util.Map;
+
+/**
+ * This interface describes the JMX view of the statistics. The latencies are given in microseconds by the name
+ * of their histogram, the counters by their name.
+ *
+ * @author Johannes Stephan
+ * @version 1.0
+ * @see Statistics
+ */
+public interface StatisticsMXBean {
+
+    /**
+     * Getter-Method
+     *
+     * @return the value of every counter
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Getter-Method
+     *
+     * @return the number of recorded latencies of every histogram
+     */
+    Map<String, Long> getLatencyCounts();
+
+    /**
+     * Getter-Method
+     *
+     * @return the median latency of every histogram
+     */
+    Map<String, Double> getLatencyP50Micros();
+
+    /**
+     * Getter-Method
+     *
+     * @return the 99th percentile of the latencies of every histogram
+     */
+    Map<String, Double> getLatencyP99Micros();
+
+    /**
+     * Getter-Method
+     *
+     * @return the 99.9th percentile of the latencies of every histogram
+     */
+    Map<String, Double> getLatencyP999Micros();
+
+    /**
+     * Getter-Method
+     *
+     * @return the highest latency of every histogram
+     */
+    Map<String, Double> getLatencyMaximumMicros();
+
+    /**
+     * Getter-Method
+     *
+     * @return the output of the stats command
+     */
+    String getReport();
+
+    /**
+     * Removes every recorded latency and sets every counter to zero
+     */
+    void reset();
+}